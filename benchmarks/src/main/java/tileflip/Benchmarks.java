@@ -0,0 +1,26 @@
+package tileflip;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/*
+ * runs the benchmarks and always writes the results as JSON, so two versions
+ * can be compared file to file.
+ * usage: java -jar benchmarks/target/benchmarks.jar [jmh options] [benchmark regex]
+ * the file is jmh-result.json unless -Dtileflip.benchResult=<file> says otherwise.
+ */
+public class Benchmarks {
+  public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+    System.setProperty("java.awt.headless", "true");
+    CommandLineOptions commandLine = new CommandLineOptions(args);
+    new Runner(new OptionsBuilder()
+        .parent(commandLine)
+        .resultFormat(ResultFormatType.JSON)
+        .result(System.getProperty("tileflip.benchResult", "jmh-result.json"))
+        .build()).run();
+  }
+}
@@ -0,0 +1,81 @@
+package tileflip;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/*
+ * building and dealing boards: what used to be calculateRowsAndCols(),
+ * generateSymbols() and the shuffle in initializeGUI(), now TileBoard.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardBenchmark {
+  @Param({"12", "2500", "250000"})
+  int differentTiles;
+
+  @Param({"2", "4"})
+  int identicalTilesToCancel;
+
+  private TileBoard board;
+  private TileBoard indexed;
+  private final SplittableRandom random = new SplittableRandom(1);
+  private long seed;
+
+  @Setup
+  public void setUp() {
+    board = new TileBoard(differentTiles, identicalTilesToCancel, 1);
+    indexed = new TileBoard(differentTiles, identicalTilesToCancel, 1);
+    indexed.symbolIndex();
+  }
+
+  @Benchmark
+  public int calculateRows() {
+    return TileBoard.calculateRows(differentTiles * identicalTilesToCancel);
+  }
+
+  /* allocation, deal and shuffle of a new game */
+  @Benchmark
+  public TileBoard newBoard() {
+    return new TileBoard(differentTiles, identicalTilesToCancel, seed++);
+  }
+
+  /* the bucket shuffle of BoardGenerator, on all cores */
+  @Benchmark
+  public TileBoard parallelBoard() {
+    return BoardGenerator.newBoard(differentTiles, identicalTilesToCancel, seed++, BoardGenerator.Constraint.NONE);
+  }
+
+  /* deal and shuffle into the arrays of the last game, what replaying costs */
+  @Benchmark
+  public TileBoard reset() {
+    board.reset(seed++);
+    return board;
+  }
+
+  /* the counting sort behind the first hint of a game */
+  @Benchmark
+  public SymbolIndex buildSymbolIndex() {
+    return new SymbolIndex(board);
+  }
+
+  /* a hint once the index exists, must not depend on the board size */
+  @Benchmark
+  public int hint() {
+    return indexed.hint(random);
+  }
+}
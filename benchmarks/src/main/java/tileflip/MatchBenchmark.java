@@ -0,0 +1,71 @@
+package tileflip;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/*
+ * the match check at large set sizes, what checkForMatch() did by comparing
+ * every flipped tile. a selection is built up to one tile short of a group,
+ * then failed with another symbol and flipped back, so the board can be
+ * reused for every invocation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MatchBenchmark {
+  @Param({"2", "64", "4096"})
+  int identicalTilesToCancel;
+
+  private static final int DIFFERENT_TILES = 16;
+
+  private TileBoard board;
+  private BotPlayer bot;
+  private int[] group;
+  private int other;
+  private long seed;
+
+  @Setup
+  public void setUp() {
+    board = new TileBoard(DIFFERENT_TILES, identicalTilesToCancel, 1);
+    bot = new BotPlayer(DIFFERENT_TILES, identicalTilesToCancel);
+    group = new int[identicalTilesToCancel];
+    int found = 0;
+    for (int i = 0; i < board.tileCount(); i++) {
+      if (board.symbolAt(i) == 0) {
+        group[found++] = i;
+      } else {
+        other = i;
+      }
+    }
+  }
+
+  @Benchmark
+  public TileBoard.Outcome failedSelection() {
+    for (int i = 0; i < identicalTilesToCancel - 1; i++) {
+      board.flip(group[i]);
+    }
+    TileBoard.Outcome outcome = board.flip(other);
+    board.flipBack();
+    return outcome;
+  }
+
+  /* a whole game with perfect memory, every group is matched once */
+  @Benchmark
+  public int game() {
+    board.reset(seed++);
+    return bot.playGame(board);
+  }
+}
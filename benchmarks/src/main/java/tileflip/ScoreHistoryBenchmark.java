@@ -0,0 +1,72 @@
+package tileflip;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/*
+ * what PlayerData.loadScores() and the leaderboard cost over a long history.
+ * the history is written once per trial into a temporary score log.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScoreHistoryBenchmark {
+  @Param({"1000", "100000", "1000000"})
+  int records;
+
+  private Path file;
+  private List<ScoreRecord> history;
+
+  @Setup
+  public void setUp() throws IOException {
+    file = Files.createTempFile("tileflip-scores", ".bin");
+    Files.delete(file); // ScoreLog writes its own header
+    SplittableRandom random = new SplittableRandom(1);
+    List<ScoreRecord> generated = new ArrayList<>(records);
+    for (int i = 0; i < records; i++) {
+      int setSize = 2 + random.nextInt(4);
+      int setNumber = 4 + random.nextInt(20);
+      generated.add(new ScoreRecord(i, 10_000 + random.nextInt(600_000), setSize * setNumber * 2, setSize,
+          setNumber));
+    }
+    try (ScoreLog log = ScoreLog.open(file)) {
+      log.appendAll(generated);
+    }
+    history = ScoreLog.read(file);
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    Files.deleteIfExists(file);
+  }
+
+  @Benchmark
+  public List<ScoreRecord> loadScores() throws IOException {
+    return ScoreLog.read(file);
+  }
+
+  @Benchmark
+  public Leaderboard buildLeaderboard() {
+    return Leaderboard.of(history);
+  }
+}
@@ -0,0 +1,46 @@
+package tileflip;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/* symbol labels for a whole board, what getSymbolForIndex() did per tile */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SymbolBenchmark {
+  @Param({"12", "2500", "250000"})
+  int differentTiles;
+
+  private final char[] buffer = new char[16];
+
+  /* the Strings the Swing views draw, memoized for small ids */
+  @Benchmark
+  public void labels(Blackhole blackhole) {
+    for (int id = 0; id < differentTiles; id++) {
+      blackhole.consume(SymbolLabels.label(id));
+    }
+  }
+
+  /* the allocation-free form */
+  @Benchmark
+  public int write() {
+    int chars = 0;
+    for (int id = 0; id < differentTiles; id++) {
+      chars += SymbolLabels.write(id, buffer, 0);
+    }
+    return chars;
+  }
+}
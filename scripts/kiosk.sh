@@ -0,0 +1,18 @@
+#!/bin/sh
+# starts straight into a board, for kiosks that restart between customers.
+# usage: scripts/kiosk.sh [differentTiles] [identicalTilesToCancel]   (after mvn package)
+#
+# the first run plays the launch once and records every loaded class into an
+# AppCDS archive, later runs map that archive instead of loading the classes
+# one by one. delete the archive after rebuilding the jar.
+set -e
+ROOT=$(cd "$(dirname "$0")/.." && pwd)
+JAR="$ROOT/game/target/tileflip-game-1.0-SNAPSHOT.jar"
+ARCHIVE="$ROOT/game/target/tileflip.jsa"
+DIFFERENT=${1:-12}
+IDENTICAL=${2:-2}
+
+if [ ! -f "$ARCHIVE" ]; then
+  java -XX:ArchiveClassesAtExit="$ARCHIVE" -jar "$JAR" --train "$DIFFERENT" "$IDENTICAL"
+fi
+exec java -XX:SharedArchiveFile="$ARCHIVE" -jar "$JAR" --play "$DIFFERENT" "$IDENTICAL"
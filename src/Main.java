@@ -1,5 +0,0 @@
-public class Main {
-  public static void main(String[] args) {
-    TileFlippingGame.gameStart();
-  }
-}
\ No newline at end of file
@@ -0,0 +1,357 @@
+package tileflip;
+
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+import java.util.function.IntConsumer;
+import javax.swing.*;
+
+/*
+ * paints a whole board in one component instead of one JButton per tile.
+ * a click is turned into a tile index with coordinate math, only the tiles
+ * inside the clip are painted, and flipping a tile repaints its rectangle only.
+ * mouse wheel zooms around the cursor, dragging pans the board.
+ *
+ * the idea of a canvas plus a MouseListener comes from out/DrawingExample.java
+ */
+class BoardCanvas extends JComponent implements FlipAnimator.View {
+  private static final Color BACKGROUND = new Color(0x3C3F41);
+  private static final Color FACE_DOWN = new Color(0x4A78B5);
+  private static final Color FACE_UP = new Color(0xF2F2F2);
+  private static final Color CANCELED = new Color(0xB8B8B8);
+  /* FACE_UP fading into CANCELED, one color per step so a frame creates none */
+  private static final Color[] FADING = new Color[16];
+  private static final Color GRID = new Color(0x2B2B2B);
+  static final Color HINT = new Color(0xF5C542);
+  private static final double MAX_ZOOM = 256;
+  private static final int MIN_LABEL_SIZE = 6; // tiles smaller than this show no symbol
+  private static final int DRAG_SLOP = 4;
+  /* glyphs of other sizes are dropped once the wheel has rested this long, not on every zoom step */
+  static final int GLYPH_TRIM_DELAY_MILLIS = 500;
+
+  private TileBoard board;
+  private final IntConsumer tileClicked;
+
+  /* pixel size of a tile = fitted size * zoom, the board origin sits at (panX, panY) */
+  private double zoom = 1;
+  private double panX;
+  private double panY;
+
+  private int highlighted = -1;
+  private FlipAnimator animator;
+
+  private final GlyphCache glyphs = GlyphCache.shared();
+  private int glyphSize = -1;
+  private final Timer glyphTrim = new Timer(GLYPH_TRIM_DELAY_MILLIS, e -> glyphs.retainSizes(glyphSize, glyphSize));
+
+  static {
+    for (int i = 0; i < FADING.length; i++) {
+      float t = (float) i / (FADING.length - 1);
+      FADING[i] = new Color(Math.round(FACE_UP.getRed() + t * (CANCELED.getRed() - FACE_UP.getRed())),
+          Math.round(FACE_UP.getGreen() + t * (CANCELED.getGreen() - FACE_UP.getGreen())),
+          Math.round(FACE_UP.getBlue() + t * (CANCELED.getBlue() - FACE_UP.getBlue())));
+    }
+  }
+
+  public BoardCanvas(TileBoard board, IntConsumer tileClicked) {
+    this.board = board;
+    this.tileClicked = tileClicked;
+    setOpaque(true);
+    setPreferredSize(new Dimension(800, 800));
+    glyphTrim.setRepeats(false);
+
+    MouseAdapter mouse = new MouseAdapter() {
+      private int pressX;
+      private int pressY;
+      private boolean dragging;
+
+      @Override
+      public void mousePressed(MouseEvent e) {
+        pressX = e.getX();
+        pressY = e.getY();
+        dragging = false;
+      }
+
+      @Override
+      public void mouseDragged(MouseEvent e) {
+        if (!dragging && Math.abs(e.getX() - pressX) + Math.abs(e.getY() - pressY) < DRAG_SLOP) {
+          return;
+        }
+        dragging = true;
+        panBy(e.getX() - pressX, e.getY() - pressY);
+        pressX = e.getX();
+        pressY = e.getY();
+      }
+
+      @Override
+      public void mouseReleased(MouseEvent e) {
+        if (dragging || !SwingUtilities.isLeftMouseButton(e)) {
+          return;
+        }
+        int index = tileAt(e.getX(), e.getY());
+        if (index >= 0) {
+          tileClicked.accept(index);
+        }
+      }
+
+      @Override
+      public void mouseWheelMoved(MouseWheelEvent e) {
+        zoomAt(e.getX(), e.getY(), Math.pow(1.1, -e.getPreciseWheelRotation()));
+      }
+    };
+    addMouseListener(mouse);
+    addMouseMotionListener(mouse);
+    addMouseWheelListener(mouse);
+  }
+
+  /* shows another board, zoomed out */
+  public void setBoard(TileBoard board) {
+    this.board = board;
+    this.zoom = 1;
+    this.highlighted = -1;
+    clampPan();
+    repaint();
+  }
+
+  /* size of a tile at zoom 1, so that the whole board fits the component */
+  private double fittedTileSize() {
+    return Math.max(1e-3, Math.min((double) getWidth() / board.cols(), (double) getHeight() / board.rows()));
+  }
+
+  private double tileSize() {
+    return fittedTileSize() * zoom;
+  }
+
+  /* which tile is under the point, -1 when the point is outside the board */
+  public int tileAt(int x, int y) {
+    double tile = tileSize();
+    int col = (int) Math.floor((x - panX) / tile);
+    int row = (int) Math.floor((y - panY) / tile);
+    if (row < 0 || col < 0 || row >= board.rows() || col >= board.cols()) {
+      return -1;
+    }
+    return row * board.cols() + col;
+  }
+
+  /* the tiles that move are painted over the board by a second pass */
+  public void setAnimator(FlipAnimator animator) {
+    this.animator = animator;
+  }
+
+  @Override
+  public boolean tileBounds(int index, Rectangle into) {
+    double tile = tileSize();
+    int x = (int) Math.floor(panX + (index % board.cols()) * tile);
+    int y = (int) Math.floor(panY + (index / board.cols()) * tile);
+    int side = (int) Math.ceil(tile) + 1;
+    if (x + side < 0 || y + side < 0 || x > getWidth() || y > getHeight()) {
+      return false;
+    }
+    into.setBounds(x, y, side, side);
+    return true;
+  }
+
+  /* only repaint the rectangle covered by one tile */
+  public void repaintTile(int index) {
+    double tile = tileSize();
+    int row = index / board.cols();
+    int col = index % board.cols();
+    int x = (int) Math.floor(panX + col * tile);
+    int y = (int) Math.floor(panY + row * tile);
+    int side = (int) Math.ceil(tile) + 1;
+    if (x + side < 0 || y + side < 0 || x > getWidth() || y > getHeight()) {
+      return; // culled, not on the screen right now
+    }
+    repaint(x, y, side, side);
+  }
+
+  /* outlines one tile (-1 for none) and moves the board so it can be seen */
+  public void setHighlight(int index) {
+    int old = highlighted;
+    highlighted = index;
+    if (old >= 0) {
+      repaintTile(old);
+    }
+    if (index < 0) {
+      return;
+    }
+    double tile = tileSize();
+    double x = panX + (index % board.cols()) * tile;
+    double y = panY + (index / board.cols()) * tile;
+    if (x < 0 || y < 0 || x + tile > getWidth() || y + tile > getHeight()) {
+      panX -= x + tile / 2 - getWidth() / 2.0;
+      panY -= y + tile / 2 - getHeight() / 2.0;
+      clampPan();
+      repaint();
+    } else {
+      repaintTile(index);
+    }
+  }
+
+  public void zoomAt(int x, int y, double factor) {
+    double newZoom = Math.max(1, Math.min(MAX_ZOOM, zoom * factor));
+    factor = newZoom / zoom;
+    /* keep the point under the cursor where it is */
+    panX = x - (x - panX) * factor;
+    panY = y - (y - panY) * factor;
+    zoom = newZoom;
+    clampPan();
+    repaint();
+  }
+
+  public void panBy(int dx, int dy) {
+    panX += dx;
+    panY += dy;
+    clampPan();
+    repaint();
+  }
+
+  /* do not let the board leave the component */
+  private void clampPan() {
+    double tile = tileSize();
+    double boardWidth = board.cols() * tile;
+    double boardHeight = board.rows() * tile;
+    panX = boardWidth <= getWidth() ? (getWidth() - boardWidth) / 2 : Math.min(0, Math.max(getWidth() - boardWidth, panX));
+    panY = boardHeight <= getHeight() ? (getHeight() - boardHeight) / 2 : Math.min(0, Math.max(getHeight() - boardHeight, panY));
+  }
+
+  @Override
+  public void setBounds(int x, int y, int width, int height) {
+    super.setBounds(x, y, width, height);
+    clampPan();
+  }
+
+  /*
+   * the animated tiles inside the clip, over what the first pass painted.
+   * a flip squeezes the tile to a line and opens it with the other side up.
+   */
+  private void paintMoving(Graphics g, double tile, int firstRow, int lastRow, int firstCol, int lastCol,
+      int labelSize, double scale) {
+    int cols = board.cols();
+    for (int slot = 0; slot < animator.activeCount(); slot++) {
+      int index = animator.activeTile(slot);
+      int row = index / cols;
+      int col = index % cols;
+      if (row < firstRow || row > lastRow || col < firstCol || col > lastCol) {
+        continue;
+      }
+      int x = (int) Math.floor(panX + col * tile);
+      int y = (int) Math.floor(panY + row * tile);
+      int width = (int) Math.floor(panX + (col + 1) * tile) - x;
+      int height = (int) Math.floor(panY + (row + 1) * tile) - y;
+      float progress = animator.activeProgress(slot);
+      int kind = animator.activeKind(slot);
+      g.setColor(BACKGROUND);
+      g.fillRect(x, y, width, height);
+      if (kind == FlipAnimator.FADE) {
+        g.setColor(FADING[Math.round(progress * (FADING.length - 1))]);
+        g.fillRect(x, y, width, height);
+        if (labelSize > 0) {
+          g.drawImage(glyphs.glyph(board.symbolAt(index), labelSize, scale), x + (width - labelSize) / 2,
+              y + (height - labelSize) / 2, labelSize, labelSize, null);
+        }
+        continue;
+      }
+      boolean faceUp = kind == FlipAnimator.FLIP_UP ? progress >= 0.5f : progress < 0.5f;
+      float squeeze = Math.abs(1 - 2 * progress);
+      int squeezed = Math.round(width * squeeze);
+      g.setColor(faceUp ? FACE_UP : FACE_DOWN);
+      g.fillRect(x + (width - squeezed) / 2, y, squeezed, height);
+      int labelWidth = Math.round(labelSize * squeeze);
+      if (faceUp && labelWidth > 0) {
+        g.drawImage(glyphs.glyph(board.symbolAt(index), labelSize, scale), x + (width - labelWidth) / 2,
+            y + (height - labelSize) / 2, labelWidth, labelSize, null);
+      }
+    }
+  }
+
+  @Override
+  protected void paintComponent(Graphics g) {
+    Rectangle clip = g.getClipBounds();
+    if (clip == null) {
+      clip = new Rectangle(0, 0, getWidth(), getHeight());
+    }
+    g.setColor(BACKGROUND);
+    g.fillRect(clip.x, clip.y, clip.width, clip.height);
+
+    double tile = tileSize();
+    double scale = GlyphCache.scaleOf(g);
+    int cols = board.cols();
+    int rows = board.rows();
+    /* viewport culling: only the rows and columns crossing the clip */
+    int firstCol = Math.max(0, (int) Math.floor((clip.x - panX) / tile));
+    int lastCol = Math.min(cols - 1, (int) Math.floor((clip.x + clip.width - panX) / tile));
+    int firstRow = Math.max(0, (int) Math.floor((clip.y - panY) / tile));
+    int lastRow = Math.min(rows - 1, (int) Math.floor((clip.y + clip.height - panY) / tile));
+    if (firstCol > lastCol || firstRow > lastRow) {
+      return;
+    }
+
+    /* all visible tiles start face down, grid lines are drawn per row / column */
+    int left = (int) Math.floor(panX + firstCol * tile);
+    int top = (int) Math.floor(panY + firstRow * tile);
+    int right = (int) Math.floor(panX + (lastCol + 1) * tile);
+    int bottom = (int) Math.floor(panY + (lastRow + 1) * tile);
+    g.setColor(FACE_DOWN);
+    g.fillRect(left, top, right - left, bottom - top);
+
+    boolean showLabels = tile >= MIN_LABEL_SIZE;
+    int labelSize = (int) tile;
+    if (showLabels && labelSize != glyphSize) {
+      /* zoomed or resized, the glyphs of the old sizes go once the size stays */
+      glyphSize = labelSize;
+      glyphTrim.restart();
+    }
+
+    for (int row = firstRow; row <= lastRow; row++) {
+      int y = (int) Math.floor(panY + row * tile);
+      int height = (int) Math.floor(panY + (row + 1) * tile) - y;
+      int base = row * cols;
+      for (int col = firstCol; col <= lastCol; col++) {
+        int index = base + col;
+        if (!board.isFlipped(index)) {
+          continue;
+        }
+        int x = (int) Math.floor(panX + col * tile);
+        int width = (int) Math.floor(panX + (col + 1) * tile) - x;
+        g.setColor(board.isCleared(index) ? CANCELED : FACE_UP);
+        g.fillRect(x, y, width, height);
+        if (showLabels) {
+          g.drawImage(glyphs.glyph(board.symbolAt(index), labelSize, scale), x + (width - labelSize) / 2, y + (height - labelSize) / 2,
+              labelSize, labelSize, null);
+        }
+      }
+    }
+
+    if (animator != null && animator.activeCount() > 0) {
+      paintMoving(g, tile, firstRow, lastRow, firstCol, lastCol, showLabels ? labelSize : 0, scale);
+    }
+
+    if (tile >= 3) {
+      g.setColor(GRID);
+      for (int col = firstCol; col <= lastCol + 1; col++) {
+        int x = (int) Math.floor(panX + col * tile);
+        g.drawLine(x, top, x, bottom);
+      }
+      for (int row = firstRow; row <= lastRow + 1; row++) {
+        int y = (int) Math.floor(panY + row * tile);
+        g.drawLine(left, y, right, y);
+      }
+    }
+    if (highlighted >= 0) {
+      int row = highlighted / cols;
+      int col = highlighted % cols;
+      if (row >= firstRow && row <= lastRow && col >= firstCol && col <= lastCol) {
+        int x = (int) Math.floor(panX + col * tile);
+        int y = (int) Math.floor(panY + row * tile);
+        int side = (int) Math.floor(panX + (col + 1) * tile) - x;
+        g.setColor(HINT);
+        for (int i = 0; i < Math.min(3, (side + 1) / 2); i++) {
+          g.drawRect(x + i, y + i, side - 1 - 2 * i, side - 1 - 2 * i);
+        }
+      }
+    }
+    GameMetrics.shared().boardPainted();
+  }
+}
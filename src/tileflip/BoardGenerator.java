@@ -0,0 +1,183 @@
+package tileflip;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/*
+ * deals big boards on all cores. the deal only depends on the seed, never on
+ * how many threads ran it, so a journal or a stress run can deal it again.
+ * usage: java tileflip.BoardGenerator [differentTiles] [identical] [apart]   (a headless stress run)
+ *
+ * the shuffle scatters the tiles into buckets and then shuffles each bucket:
+ *   1. every chunk of tiles draws a random bucket per tile and counts them
+ *   2. prefix sums give every (chunk, bucket) pair its place in the output
+ *   3. every chunk draws the same buckets again and writes its tiles there
+ *   4. every bucket is shuffled with Fisher-Yates
+ * a tile lands in a uniformly random bucket and every order inside a bucket is
+ * equally likely, so the whole permutation is uniform. each chunk and each
+ * bucket has its own random stream derived from the seed, chunks and buckets
+ * are fixed by the board size alone.
+ *
+ * with Constraint.APART a repair pass afterwards swaps tiles until no two
+ * identical symbols touch each other in the grid (left, right, above, below).
+ */
+final class BoardGenerator {
+  /* tiles per chunk, also about the tiles per bucket, small enough for the cache */
+  private static final int CHUNK = 1 << 16;
+  private static final int MAX_CHUNKS = 1024;
+  private static final int REPAIR_ATTEMPTS = 64;
+  private static final int REPAIR_ROUNDS = 3;
+
+  enum Constraint {
+    NONE,
+    APART // no two identical symbols next to each other
+  }
+
+  private BoardGenerator() {
+  }
+
+  static TileBoard newBoard(int differentTiles, int identicalTilesToCancel, long seed, Constraint constraint) {
+    long tiles = (long) differentTiles * identicalTilesToCancel;
+    if (differentTiles <= 0 || identicalTilesToCancel <= 0 || tiles > Integer.MAX_VALUE - 8) {
+      throw new IllegalArgumentException("no board of " + differentTiles + " x " + identicalTilesToCancel);
+    }
+    int[] symbols = new int[(int) tiles];
+    deal(symbols, identicalTilesToCancel, seed);
+    if (constraint == Constraint.APART) {
+      keepApart(symbols, seed);
+    }
+    return TileBoard.dealt(differentTiles, identicalTilesToCancel, symbols);
+  }
+
+  /* every symbol id identical times, in a random order decided by the seed */
+  static void deal(int[] symbols, int identical, long seed) {
+    int tiles = symbols.length;
+    int chunks = Math.max(1, Math.min(MAX_CHUNKS, (tiles + CHUNK - 1) / CHUNK));
+    int chunkSize = (tiles + chunks - 1) / chunks;
+    int buckets = chunks;
+
+    int[][] counts = new int[chunks][buckets];
+    IntStream.range(0, chunks).parallel().forEach(chunk -> {
+      SplittableRandom random = new SplittableRandom(streamSeed(seed, chunk));
+      int[] count = counts[chunk];
+      for (int i = chunk * chunkSize, end = Math.min(tiles, i + chunkSize); i < end; i++) {
+        count[random.nextInt(buckets)]++;
+      }
+    });
+
+    /* bucket by bucket, inside a bucket chunk by chunk: counts become write positions */
+    int[] bucketStart = new int[buckets + 1];
+    int position = 0;
+    for (int bucket = 0; bucket < buckets; bucket++) {
+      bucketStart[bucket] = position;
+      for (int chunk = 0; chunk < chunks; chunk++) {
+        int count = counts[chunk][bucket];
+        counts[chunk][bucket] = position;
+        position += count;
+      }
+    }
+    bucketStart[buckets] = position;
+
+    IntStream.range(0, chunks).parallel().forEach(chunk -> {
+      SplittableRandom random = new SplittableRandom(streamSeed(seed, chunk));
+      int[] next = counts[chunk];
+      for (int i = chunk * chunkSize, end = Math.min(tiles, i + chunkSize); i < end; i++) {
+        symbols[next[random.nextInt(buckets)]++] = i / identical;
+      }
+    });
+
+    IntStream.range(0, buckets).parallel().forEach(bucket -> {
+      SplittableRandom random = new SplittableRandom(streamSeed(seed, chunks + bucket));
+      int from = bucketStart[bucket];
+      for (int i = bucketStart[bucket + 1] - 1; i > from; i--) {
+        int j = from + random.nextInt(i - from + 1);
+        int tmp = symbols[i];
+        symbols[i] = symbols[j];
+        symbols[j] = tmp;
+      }
+    });
+  }
+
+  /*
+   * swaps every tile that touches an identical one with a random tile where
+   * both fit. a swap never creates a new conflict, so one round usually does
+   * it, the conflicts are found on all cores and repaired in index order.
+   */
+  static void keepApart(int[] symbols, long seed) {
+    int rows = TileBoard.calculateRows(symbols.length);
+    int cols = symbols.length / rows;
+    SplittableRandom random = new SplittableRandom(streamSeed(seed, -1));
+    for (int round = 0; round < REPAIR_ROUNDS; round++) {
+      int[] conflicts = IntStream.range(0, symbols.length).parallel()
+          .filter(i -> conflicts(symbols, cols, i, symbols[i])).toArray();
+      if (conflicts.length == 0) {
+        return;
+      }
+      boolean repaired = true;
+      for (int i : conflicts) {
+        for (int attempt = 0; attempt < REPAIR_ATTEMPTS && conflicts(symbols, cols, i, symbols[i]); attempt++) {
+          int j = random.nextInt(symbols.length);
+          int mine = symbols[i];
+          int theirs = symbols[j];
+          if (mine == theirs) {
+            continue;
+          }
+          symbols[i] = theirs;
+          symbols[j] = mine;
+          if (conflicts(symbols, cols, i, theirs) || conflicts(symbols, cols, j, mine)) {
+            symbols[i] = mine;
+            symbols[j] = theirs;
+          }
+        }
+        repaired &= !conflicts(symbols, cols, i, symbols[i]);
+      }
+      if (repaired) {
+        return;
+      }
+    }
+    throw new IllegalArgumentException("identical symbols cannot be kept apart on this board");
+  }
+
+  /* whether the symbol at tile i would touch an identical one */
+  private static boolean conflicts(int[] symbols, int cols, int i, int symbol) {
+    int col = i % cols;
+    return col > 0 && symbols[i - 1] == symbol
+        || col < cols - 1 && symbols[i + 1] == symbol
+        || i >= cols && symbols[i - cols] == symbol
+        || i + cols < symbols.length && symbols[i + cols] == symbol;
+  }
+
+  /* the seed of random stream number `stream`, splitmix64 so that neighbouring streams are unrelated */
+  private static long streamSeed(long seed, long stream) {
+    long z = seed + (stream + 1) * 0x9E3779B97F4A7C15L;
+    z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+    z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+    return z ^ (z >>> 31);
+  }
+
+  public static void main(String[] args) throws Exception {
+    System.setProperty("java.awt.headless", "true");
+    int differentTiles = args.length > 0 ? Integer.parseInt(args[0]) : 5_000_000;
+    int identical = args.length > 1 ? Integer.parseInt(args[1]) : 2;
+    Constraint constraint = args.length > 2 && args[2].equals("apart") ? Constraint.APART : Constraint.NONE;
+    long seed = 42;
+
+    newBoard(differentTiles, identical, seed, constraint); // warm up
+    long start = System.nanoTime();
+    TileBoard board = newBoard(differentTiles, identical, seed, constraint);
+    double millis = (System.nanoTime() - start) / 1e6;
+    /* the same seed on a single thread must give the same deal */
+    TileBoard alone = new ForkJoinPool(1).submit(() -> newBoard(differentTiles, identical, seed, constraint)).get();
+    boolean same = true;
+    for (int i = 0; i < board.tileCount() && same; i++) {
+      same = board.symbolAt(i) == alone.symbolAt(i);
+    }
+    System.out.printf("%d tiles dealt in %.1f ms (%.2f ms per million tiles) on %d cores, %s on one thread%n",
+        board.tileCount(), millis, millis * 1e6 / board.tileCount(), ForkJoinPool.getCommonPoolParallelism(),
+        same ? "identical" : "DIFFERENT");
+    if (!same) {
+      System.exit(1);
+    }
+  }
+}
@@ -0,0 +1,127 @@
+package tileflip;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/*
+ * boards dealt ahead of time for the settings that were played last, so
+ * "play again" does not wait for a deal.
+ *
+ * one ready board per setting (generator, differentTiles, identical). the
+ * settings are kept in least recently used order and the oldest are dropped
+ * when there are more than MAX_SETTINGS or more than MAX_TILES tiles waiting.
+ * deals run one at a time on a daemon thread.
+ */
+final class BoardPool {
+  private static final int MAX_SETTINGS = 4;
+  private static final long MAX_TILES = Long.getLong("tileflip.poolTiles", 4_000_000);
+
+  /* a board nobody has played yet, with what the replay journal needs to deal it again */
+  record Dealt(TileBoard board, int generator, long seed) {
+  }
+
+  private record Key(int generator, int differentTiles, int identicalTilesToCancel) {
+    long tiles() {
+      return (long) differentTiles * identicalTilesToCancel;
+    }
+  }
+
+  /* null value: a deal for the setting is on its way */
+  private final LinkedHashMap<Key, Dealt> ready = new LinkedHashMap<>(16, 0.75f, true);
+  private long waitingTiles;
+  private final ExecutorService dealer = Executors.newSingleThreadExecutor(r -> {
+    Thread thread = new Thread(r, "board-pool");
+    thread.setDaemon(true);
+    return thread;
+  });
+  private final Random seeds = new Random();
+
+  private static final BoardPool shared = new BoardPool();
+
+  static BoardPool shared() {
+    return shared;
+  }
+
+  /*
+   * the waiting board for the setting, null when there is none yet. either
+   * way the next board of the setting is dealt in the background.
+   */
+  synchronized Dealt take(int generator, int differentTiles, int identicalTilesToCancel) {
+    Key key = new Key(generator, differentTiles, identicalTilesToCancel);
+    Dealt dealt = ready.get(key);
+    if (dealt != null) {
+      ready.remove(key);
+      waitingTiles -= key.tiles();
+    }
+    prepare(key);
+    return dealt;
+  }
+
+  /* deals a board for the setting in the background unless one is waiting or on its way */
+  synchronized void prepare(int generator, int differentTiles, int identicalTilesToCancel) {
+    prepare(new Key(generator, differentTiles, identicalTilesToCancel));
+  }
+
+  private void prepare(Key key) {
+    if (key.tiles() > MAX_TILES) {
+      return;
+    }
+    if (ready.get(key) != null || ready.containsKey(key)) {
+      return; // waiting or on its way, get() made it the most recently used
+    }
+    ready.put(key, null);
+    evict();
+    long seed = seeds.nextLong();
+    dealer.execute(() -> {
+      Dealt dealt;
+      try {
+        dealt = deal(key, seed);
+      } catch (RuntimeException e) {
+        synchronized (this) {
+          ready.remove(key); // not a board that can be dealt
+        }
+        throw e;
+      }
+      synchronized (this) {
+        if (ready.containsKey(key) && ready.get(key) == null) {
+          ready.put(key, dealt);
+          waitingTiles += key.tiles();
+          evict();
+        }
+      }
+    });
+  }
+
+  /* the settings used longest ago go first, a deal on its way is dropped with its setting */
+  private void evict() {
+    Iterator<Map.Entry<Key, Dealt>> oldest = ready.entrySet().iterator();
+    while ((ready.size() > MAX_SETTINGS || waitingTiles > MAX_TILES) && oldest.hasNext()) {
+      Map.Entry<Key, Dealt> entry = oldest.next();
+      if (entry.getValue() != null) {
+        waitingTiles -= entry.getKey().tiles();
+      }
+      oldest.remove();
+    }
+  }
+
+  private static Dealt deal(Key key, long seed) {
+    return deal(key.generator(), key.differentTiles(), key.identicalTilesToCancel(), seed);
+  }
+
+  /* identical symbols cannot be kept apart on every board, such a board is dealt without */
+  static Dealt deal(int generator, int differentTiles, int identicalTilesToCancel, long seed) {
+    try {
+      return new Dealt(ReplayJournal.deal(generator, differentTiles, identicalTilesToCancel, seed), generator, seed);
+    } catch (IllegalArgumentException e) {
+      if (generator != ReplayJournal.GENERATOR_PARALLEL_APART) {
+        throw e;
+      }
+      int fallback = ReplayJournal.GENERATOR_PARALLEL;
+      return new Dealt(ReplayJournal.deal(fallback, differentTiles, identicalTilesToCancel, seed), fallback, seed);
+    }
+  }
+}
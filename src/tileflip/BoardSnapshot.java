@@ -0,0 +1,330 @@
+package tileflip;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/*
+ * the board of the running game in a memory-mapped file, so a closed window or
+ * a restarted kiosk carries on where it stopped.
+ *
+ * layout, every region starts on a page of PAGE bytes:
+ *   header: int magic "TFBS" | int version | int differentTiles | int identical
+ *     | int symbol width | int flipCount | long elapsed nanos | int selectedCount
+ *   selection: identicalTilesToCancel ints
+ *   symbols: one id per tile in 1, 2 or 4 bytes, whatever differentTiles needs
+ *   flipped, cleared: the bitsets of the board as longs
+ * the symbols are written once when the board is dealt. after that a change
+ * writes only the header, the selection and the bitset words of the tiles it
+ * touched into the map, and marks their pages dirty. the autosave thread then
+ * forces just the dirty pages to disk. what is in the map survives a killed
+ * process anyway (it is in the page cache), forcing covers a power loss.
+ * a save torn between pages is repaired when the board is restored.
+ *
+ * the file is never deleted or truncated while a map of it may be alive
+ * (windows refuses both): a finished game clears the magic instead, and the
+ * next game maps the same file again, growing it when its board is bigger.
+ */
+final class BoardSnapshot {
+  /* one saved game per player, next to their profile */
+  static final Path FILE = ProfileStore.withSystemSettings().fileOf(ProfileStore.currentPlayer(), ".snapshot");
+  private static final int MAGIC = 0x54464253; // "TFBS"
+  private static final int FINISHED = 0; // in place of the magic, nothing to resume
+  private static final int VERSION = 1;
+  private static final int PAGE = 4096;
+  private static final long AUTOSAVE_MILLIS = Long.getLong("tileflip.autosaveMillis", 1000);
+
+  private static final int DIFFERENT_TILES = 8;
+  private static final int IDENTICAL = 12;
+  private static final int SYMBOL_WIDTH = 16;
+  private static final int FLIP_COUNT = 20;
+  private static final int ELAPSED = 24;
+  private static final int SELECTED_COUNT = 32;
+  private static final int HEADER_SIZE = 36;
+
+  /* what the prompt shows about a saved game before it is opened */
+  record Saved(int differentTiles, int identicalTilesToCancel, int flipCount, long elapsedNanos) {
+  }
+
+  private final TileBoard board;
+  private final MappedByteBuffer map;
+  private final int selectionOffset;
+  private final int symbolsOffset;
+  private final int flippedOffset;
+  private final int clearedOffset;
+  /* one bit per page changed since the last flush */
+  private final AtomicLongArray dirtyPages;
+  private volatile long startNanos;
+  private volatile boolean closed;
+
+  private BoardSnapshot(TileBoard board, MappedByteBuffer map) {
+    this.board = board;
+    this.map = map;
+    this.selectionOffset = PAGE;
+    this.symbolsOffset = selectionOffset + pages(4L * board.identicalTilesToCancel());
+    this.flippedOffset = symbolsOffset + pages((long) symbolWidth(board.differentTiles()) * board.tileCount());
+    this.clearedOffset = flippedOffset + pages(8L * board.bitsetWords());
+    this.dirtyPages = new AtomicLongArray(TileBoard.wordsFor(map.capacity() / PAGE));
+  }
+
+  /* bytes the file takes for a board of this size */
+  private static long fileSize(int differentTiles, int identicalTilesToCancel) {
+    long tiles = (long) differentTiles * identicalTilesToCancel;
+    return PAGE + pages(4L * identicalTilesToCancel) + pages(symbolWidth(differentTiles) * tiles)
+        + 2 * pages(8 * ((tiles + 63) / 64));
+  }
+
+  private static int pages(long bytes) {
+    return (int) Math.min(Integer.MAX_VALUE, (bytes + PAGE - 1) / PAGE * PAGE);
+  }
+
+  private static int symbolWidth(int differentTiles) {
+    return differentTiles <= 1 << 8 ? 1 : differentTiles <= 1 << 16 ? 2 : 4;
+  }
+
+  private static MappedByteBuffer map(Path path, long size, boolean create) throws IOException {
+    if (size > Integer.MAX_VALUE) {
+      throw new IOException("board too large for a snapshot");
+    }
+    try (FileChannel channel = create
+        ? FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)
+        : FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      if (!create && channel.size() < size) {
+        throw new IOException("snapshot has " + channel.size() + " bytes instead of " + size);
+      }
+      /* a file of a bigger board than this one keeps its length, only the start is mapped */
+      return channel.map(FileChannel.MapMode.READ_WRITE, 0, size); // stays valid after the channel is closed
+    }
+  }
+
+  /*
+   * a snapshot at path for a new board, with what never changes in a game:
+   * the sizes and the symbols. it reads nothing else of the board, so it may
+   * run on any thread while the game is played. it cannot be resumed until
+   * writeAll (on the EDT) has put in the state and the magic.
+   * every page is left dirty, the first flush takes the file to disk.
+   */
+  static BoardSnapshot create(Path path, TileBoard board) throws IOException {
+    Files.createDirectories(path.toAbsolutePath().getParent());
+    MappedByteBuffer map = map(path, fileSize(board.differentTiles(), board.identicalTilesToCancel()), true);
+    BoardSnapshot snapshot = new BoardSnapshot(board, map);
+    map.putInt(0, FINISHED); // the game saved in the file before is gone from here on
+    map.putInt(4, VERSION);
+    map.putInt(DIFFERENT_TILES, board.differentTiles());
+    map.putInt(IDENTICAL, board.identicalTilesToCancel());
+    int width = symbolWidth(board.differentTiles());
+    map.putInt(SYMBOL_WIDTH, width);
+    map.putLong(ELAPSED, 0); // the file may hold the time of an older game
+    for (int i = 0, at = snapshot.symbolsOffset; i < board.tileCount(); i++, at += width) {
+      int symbol = board.symbolAt(i);
+      switch (width) {
+        case 1 -> map.put(at, (byte) symbol);
+        case 2 -> map.putShort(at, (short) symbol);
+        default -> map.putInt(at, symbol);
+      }
+    }
+    for (int page = 0; page < map.capacity() / PAGE; page++) {
+      snapshot.markDirty(page * PAGE);
+    }
+    return snapshot;
+  }
+
+  /* like create, a board that cannot be saved is played without a snapshot */
+  static BoardSnapshot createOrNull(Path path, TileBoard board) {
+    try {
+      return create(path, board);
+    } catch (IOException e) {
+      System.err.println("the game is not saved while it runs: " + e.getMessage());
+      return null;
+    }
+  }
+
+  /* the header of a saved game, null when there is none that could be opened */
+  static Saved describe(Path path) {
+    if (!Files.isRegularFile(path)) {
+      return null;
+    }
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+      if (channel.read(header, 0) < HEADER_SIZE || header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+        return null;
+      }
+      int differentTiles = header.getInt(DIFFERENT_TILES);
+      int identical = header.getInt(IDENTICAL);
+      if (differentTiles <= 0 || identical <= 0 || channel.size() < fileSize(differentTiles, identical)) {
+        return null;
+      }
+      return new Saved(differentTiles, identical, header.getInt(FLIP_COUNT), header.getLong(ELAPSED));
+    } catch (IOException e) {
+      return null;
+    }
+  }
+
+  /* maps a saved game and restores its board, see TileBoard.restore for what gets repaired */
+  static BoardSnapshot open(Path path) throws IOException {
+    Saved saved = describe(path);
+    if (saved == null) {
+      throw new IOException("no saved game in " + path);
+    }
+    int differentTiles = saved.differentTiles();
+    int identical = saved.identicalTilesToCancel();
+    MappedByteBuffer map = map(path, fileSize(differentTiles, identical), false);
+    int tiles = differentTiles * identical;
+    int width = symbolWidth(differentTiles);
+    if (map.getInt(SYMBOL_WIDTH) != width) {
+      throw new IOException("snapshot has symbols of " + map.getInt(SYMBOL_WIDTH) + " bytes");
+    }
+    int symbolsOffset = PAGE + pages(4L * identical);
+    int[] symbols = new int[tiles];
+    if (width == 4) {
+      map.slice(symbolsOffset, 4 * tiles).asIntBuffer().get(symbols);
+    } else {
+      for (int i = 0, at = symbolsOffset; i < tiles; i++, at += width) {
+        symbols[i] = width == 1 ? map.get(at) & 0xFF : map.getShort(at) & 0xFFFF;
+      }
+    }
+    int words = TileBoard.wordsFor(tiles);
+    int flippedOffset = symbolsOffset + pages((long) width * tiles);
+    long[] flipped = new long[words];
+    long[] cleared = new long[words];
+    map.slice(flippedOffset, 8 * words).asLongBuffer().get(flipped);
+    map.slice(flippedOffset + pages(8L * words), 8 * words).asLongBuffer().get(cleared);
+    int selectedCount = Math.min(Math.max(map.getInt(SELECTED_COUNT), 0), identical);
+    int[] selection = new int[identical];
+    map.slice(PAGE, 4 * identical).asIntBuffer().get(selection);
+    TileBoard board;
+    try {
+      board = TileBoard.restore(differentTiles, identical, symbols, flipped, cleared, selection, selectedCount,
+          saved.flipCount());
+    } catch (IllegalArgumentException e) {
+      throw new IOException(e.getMessage(), e);
+    }
+    BoardSnapshot snapshot = new BoardSnapshot(board, map);
+    snapshot.writeAll(); // the repaired state
+    return snapshot;
+  }
+
+  TileBoard board() {
+    return board;
+  }
+
+  /* how long the game had been played when it was saved last */
+  long elapsedNanos() {
+    return map.getLong(ELAPSED);
+  }
+
+  /* the game clock, elapsed time is saved as now minus startNanos */
+  void started(long startNanos) {
+    this.startNanos = startNanos;
+  }
+
+  /* a tile changed on the board, EDT only */
+  void tileChanged(int index) {
+    int word = index >>> 6;
+    map.putLong(flippedOffset + 8 * word, board.flippedWord(word));
+    map.putLong(clearedOffset + 8 * word, board.clearedWord(word));
+    markDirty(flippedOffset + 8 * word);
+    markDirty(clearedOffset + 8 * word);
+  }
+
+  /* the flip count or the selection changed, EDT only */
+  void stateChanged() {
+    int selectedCount = board.selectedCount();
+    for (int i = 0; i < selectedCount; i++) {
+      map.putInt(selectionOffset + 4 * i, board.selectedAt(i));
+    }
+    map.putInt(SELECTED_COUNT, selectedCount);
+    map.putInt(FLIP_COUNT, board.flipCount());
+    if (selectedCount > 0) {
+      markDirty(selectionOffset + 4 * (selectedCount - 1));
+    }
+    markDirty(0);
+  }
+
+  /*
+   * the whole state of the board, after it was played without the snapshot
+   * for a while, then the magic: from here on the file can be resumed. EDT only
+   */
+  void writeAll() {
+    for (int word = 0; word < board.bitsetWords(); word++) {
+      tileChanged(word << 6);
+    }
+    stateChanged();
+    map.putInt(0, MAGIC);
+  }
+
+  /* written before the page is marked, so a flush that clears the mark sees the write */
+  private void markDirty(int offset) {
+    int page = offset / PAGE;
+    long bit = 1L << page;
+    int word = page >>> 6;
+    long old;
+    do {
+      old = dirtyPages.get(word);
+    } while ((old & bit) == 0 && !dirtyPages.compareAndSet(word, old, old | bit));
+  }
+
+  /* forces the dirty pages to disk, runs of neighbouring pages in one call */
+  synchronized void flush() {
+    if (startNanos != 0) {
+      map.putLong(ELAPSED, System.nanoTime() - startNanos);
+      markDirty(ELAPSED);
+    }
+    int runStart = -1;
+    int pageCount = map.capacity() / PAGE;
+    for (int word = 0; word < dirtyPages.length(); word++) {
+      long dirty = dirtyPages.getAndSet(word, 0);
+      for (int bit = 0; bit < 64; bit++) {
+        int page = (word << 6) + bit;
+        boolean isDirty = (dirty & (1L << bit)) != 0 && page < pageCount;
+        if (isDirty && runStart < 0) {
+          runStart = page;
+        } else if (!isDirty && runStart >= 0) {
+          map.force(runStart * PAGE, (page - runStart) * PAGE);
+          runStart = -1;
+        }
+      }
+    }
+    if (runStart >= 0) {
+      map.force(runStart * PAGE, (pageCount - runStart) * PAGE);
+    }
+  }
+
+  /* flushes every AUTOSAVE_MILLIS (-Dtileflip.autosaveMillis) on a daemon thread until closed */
+  void startAutosave() {
+    Thread autosave = new Thread(() -> {
+      try {
+        while (!closed) {
+          Thread.sleep(AUTOSAVE_MILLIS);
+          if (!closed) {
+            flush();
+          }
+        }
+      } catch (InterruptedException e) {
+        // the application is going away
+      }
+    }, "board-autosave");
+    autosave.setDaemon(true);
+    autosave.start();
+  }
+
+  /* a last flush, the file stays to be resumed */
+  synchronized void close() {
+    if (!closed) {
+      flush();
+      closed = true;
+    }
+  }
+
+  /* the game is over: the magic is cleared on disk, the file stays for the next game */
+  synchronized void finish() {
+    closed = true;
+    map.putInt(0, FINISHED);
+    map.force(0, PAGE);
+  }
+}
@@ -0,0 +1,308 @@
+package tileflip;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/*
+ * a computer player for headless runs.
+ * it remembers the symbols it has seen and flips a whole group as soon as it
+ * knows where all of its tiles are. how much it remembers is set by its Memory:
+ * a perfect bot never forgets, a limited one forgets its oldest tile when it
+ * is full, a decaying one forgets every tile after a random number of flips.
+ * all memory is kept in int arrays sized for the board, so playing many games
+ * allocates nothing.
+ */
+class BotPlayer {
+
+  /* at most capacity remembered tiles, half of them forgotten within halfLife flips (the mean lifetime is halfLife / ln 2) */
+  record Memory(int capacity, double halfLife) {
+    static final Memory PERFECT = new Memory(Integer.MAX_VALUE, Double.POSITIVE_INFINITY);
+    /* roughly what a person keeps in mind while playing */
+    static final Memory TYPICAL = new Memory(30, 200);
+
+    Memory {
+      if (capacity <= 0 || !(halfLife > 0)) {
+        throw new IllegalArgumentException("memory needs a positive capacity and half life");
+      }
+    }
+
+    static Memory limited(int capacity) {
+      return new Memory(capacity, Double.POSITIVE_INFINITY);
+    }
+
+    static Memory decaying(double halfLife) {
+      return new Memory(Integer.MAX_VALUE, halfLife);
+    }
+
+    boolean isPerfect() {
+      return capacity == Integer.MAX_VALUE && halfLife == Double.POSITIVE_INFINITY;
+    }
+  }
+
+  private static final int NONE = -1;
+
+  private final int differentTiles;
+  private final int identicalTilesToCancel;
+  private final Memory memory;
+  private final boolean bounded;
+  private final boolean decays;
+  private SplittableRandom random = new SplittableRandom(0);
+
+  /* remembered positions of each symbol, stored symbol by symbol */
+  private final int[] symbolPositions;
+  private final int[] symbolCount;
+  /* where a position is stored in symbolPositions, NONE when it is not remembered */
+  private final int[] slotOf;
+  /* remembered positions from oldest to newest, to forget the oldest when full (bounded memory only) */
+  private final int[] older;
+  private final int[] newer;
+  private int oldest = NONE;
+  private int newest = NONE;
+  private int remembered;
+  /* flip count at which a remembered position is forgotten, only used when decaying */
+  private final long[] forgetAt;
+
+  /* symbols whose tiles were all remembered at some point, checked again before use */
+  private final int[] ready;
+  private final boolean[] isReady;
+  private int readyCount;
+  /* with perfect memory every tile before this one is known or cleared */
+  private int unknownCursor;
+  private int mismatches;
+
+  public BotPlayer(int differentTiles, int identicalTilesToCancel) {
+    this(differentTiles, identicalTilesToCancel, Memory.PERFECT);
+  }
+
+  public BotPlayer(int differentTiles, int identicalTilesToCancel, Memory memory) {
+    int tiles = differentTiles * identicalTilesToCancel;
+    this.differentTiles = differentTiles;
+    this.identicalTilesToCancel = identicalTilesToCancel;
+    this.memory = memory;
+    this.bounded = memory.capacity() != Integer.MAX_VALUE;
+    this.decays = memory.halfLife() != Double.POSITIVE_INFINITY;
+    this.symbolPositions = new int[tiles];
+    this.symbolCount = new int[differentTiles];
+    this.slotOf = new int[tiles];
+    this.older = bounded ? new int[tiles] : null;
+    this.newer = bounded ? new int[tiles] : null;
+    this.forgetAt = decays ? new long[tiles] : null;
+    this.ready = new int[differentTiles];
+    this.isReady = new boolean[differentTiles];
+  }
+
+  public Memory memory() {
+    return memory;
+  }
+
+  /* plays the board until every tile is canceled, returns the flips used */
+  public int playGame(TileBoard board) {
+    return playGame(board, 0, Long.MAX_VALUE);
+  }
+
+  /*
+   * plays until every tile is canceled or maxFlips were used, whichever comes
+   * first. the seed drives the forgetting and the guesses of a bot without
+   * perfect memory, so a game is repeatable. returns the flips used.
+   */
+  public int playGame(TileBoard board, long seed, long maxFlips) {
+    if (board.differentTiles() != differentTiles || board.identicalTilesToCancel() != identicalTilesToCancel) {
+      throw new IllegalArgumentException("bot was built for another board size");
+    }
+    forgetAll();
+    if (!memory.isPerfect()) {
+      random = new SplittableRandom(seed);
+    }
+    while (!board.isCompleted() && board.flipCount() < maxFlips) {
+      playTurn(board);
+    }
+    return board.flipCount();
+  }
+
+  /* failed selections in the last game, each one costs a person a reveal pause */
+  public int mismatches() {
+    return mismatches;
+  }
+
+  private void forgetAll() {
+    Arrays.fill(slotOf, NONE);
+    Arrays.fill(symbolCount, 0);
+    Arrays.fill(isReady, false);
+    oldest = NONE;
+    newest = NONE;
+    remembered = 0;
+    readyCount = 0;
+    unknownCursor = 0;
+    mismatches = 0;
+  }
+
+  /* one complete selection, flipping back afterwards when it failed */
+  private void playTurn(TileBoard board) {
+    while (readyCount > 0) {
+      int symbol = ready[--readyCount];
+      isReady[symbol] = false;
+      expire(board, symbol);
+      if (symbolCount[symbol] == identicalTilesToCancel) {
+        int base = symbol * identicalTilesToCancel;
+        for (int i = 0; i < identicalTilesToCancel; i++) {
+          board.flip(symbolPositions[base + i]);
+        }
+        forgetResolved(board);
+        return;
+      }
+    }
+
+    int first = nextUnknown(board);
+    TileBoard.Outcome outcome = flipAndRemember(board, first);
+    int symbol = board.symbolAt(first);
+    while (outcome == TileBoard.Outcome.SELECTED) {
+      /* prefer a remembered tile with the same symbol */
+      int next = rememberedUnflipped(board, symbol);
+      if (next < 0) {
+        next = nextUnknown(board);
+      }
+      outcome = flipAndRemember(board, next);
+    }
+
+    if (outcome == TileBoard.Outcome.MISMATCHED) {
+      mismatches++;
+      board.flipBack();
+    } else {
+      /* the group got canceled, its tiles need no room in memory any more */
+      forgetResolved(board);
+    }
+  }
+
+  private TileBoard.Outcome flipAndRemember(TileBoard board, int position) {
+    TileBoard.Outcome outcome = board.flip(position);
+    remember(board, position);
+    return outcome;
+  }
+
+  private void remember(TileBoard board, int position) {
+    if (slotOf[position] != NONE) {
+      unlink(position); // seen again, it is fresh in mind now
+    } else {
+      if (bounded && remembered == memory.capacity()) {
+        forget(oldest);
+      }
+      int symbol = board.symbolAt(position);
+      int slot = symbol * identicalTilesToCancel + symbolCount[symbol]++;
+      symbolPositions[slot] = position;
+      slotOf[position] = slot;
+      remembered++;
+      if (symbolCount[symbol] == identicalTilesToCancel && !isReady[symbol]) {
+        isReady[symbol] = true;
+        ready[readyCount++] = symbol;
+      }
+    }
+    linkNewest(position);
+    if (decays) {
+      /* exponential lifetime with the given half life */
+      double flips = -memory.halfLife() / Math.log(2) * Math.log(1 - random.nextDouble());
+      forgetAt[position] = board.flipCount() + (long) Math.min(flips, Long.MAX_VALUE / 2);
+    }
+  }
+
+  private void forget(int position) {
+    int slot = slotOf[position];
+    int symbol = slot / identicalTilesToCancel;
+    int last = symbol * identicalTilesToCancel + --symbolCount[symbol];
+    int moved = symbolPositions[last];
+    symbolPositions[slot] = moved;
+    slotOf[moved] = slot;
+    slotOf[position] = NONE;
+    unlink(position);
+    remembered--;
+  }
+
+  private void forgetResolved(TileBoard board) {
+    for (int i = 0; i < board.resolvedCount(); i++) {
+      int position = board.resolvedAt(i);
+      if (slotOf[position] != NONE) {
+        forget(position);
+      }
+    }
+  }
+
+  /* drops the tiles of a symbol whose time in memory is over */
+  private void expire(TileBoard board, int symbol) {
+    if (!decays) {
+      return;
+    }
+    int base = symbol * identicalTilesToCancel;
+    for (int i = symbolCount[symbol] - 1; i >= 0; i--) {
+      int position = symbolPositions[base + i];
+      if (board.flipCount() >= forgetAt[position]) {
+        forget(position);
+      }
+    }
+  }
+
+  private int rememberedUnflipped(TileBoard board, int symbol) {
+    expire(board, symbol);
+    int base = symbol * identicalTilesToCancel;
+    for (int i = 0; i < symbolCount[symbol]; i++) {
+      int position = symbolPositions[base + i];
+      if (!board.isFlipped(position)) {
+        return position;
+      }
+    }
+    return NONE;
+  }
+
+  /* a tile the bot does not remember: the next in order with perfect memory, a random one otherwise */
+  private int nextUnknown(TileBoard board) {
+    int tiles = slotOf.length;
+    if (memory.isPerfect()) {
+      while (!isUnknown(board, unknownCursor)) {
+        unknownCursor++;
+      }
+      return unknownCursor;
+    }
+    int start = random.nextInt(tiles);
+    for (int i = 0; i < tiles; i++) {
+      int position = start + i < tiles ? start + i : start + i - tiles;
+      if (isUnknown(board, position)) {
+        return position;
+      }
+    }
+    throw new IllegalStateException("every tile is remembered, a group should have been ready");
+  }
+
+  private boolean isUnknown(TileBoard board, int position) {
+    return slotOf[position] == NONE && !board.isFlipped(position);
+  }
+
+  private void linkNewest(int position) {
+    if (!bounded) {
+      return;
+    }
+    older[position] = newest;
+    newer[position] = NONE;
+    if (newest != NONE) {
+      newer[newest] = position;
+    } else {
+      oldest = position;
+    }
+    newest = position;
+  }
+
+  private void unlink(int position) {
+    if (!bounded) {
+      return;
+    }
+    int before = older[position];
+    int after = newer[position];
+    if (before != NONE) {
+      newer[before] = after;
+    } else {
+      oldest = after;
+    }
+    if (after != NONE) {
+      older[after] = before;
+    } else {
+      newest = before;
+    }
+  }
+}
@@ -0,0 +1,149 @@
+package tileflip;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/*
+ * estimates how hard a board size is by letting bots play it many times.
+ * usage: java DifficultyEstimator                      (builds the difficulty table)
+ *        java DifficultyEstimator <differentTiles> <identicalTilesToCancel> [games]
+ *
+ * the games are split across all cores with fork/join, or across the workers
+ * of the pool passed in. every game has its own seed and the sums are
+ * integers, so the result does not depend on how the work was split or how
+ * many cores there are.
+ */
+class DifficultyEstimator {
+  /* a game still running after this many flips counts as not finished, nobody plays that long */
+  static final int MAX_FLIPS = 100_000;
+  /* how long a person needs per flip, without the reveal pauses */
+  static final int MILLIS_PER_FLIP = Integer.getInteger("tileflip.millisPerFlip", 600);
+  /* split the games until a task plays about this many tiles */
+  private static final int TILES_PER_TASK = 50_000;
+
+  record Estimate(int differentTiles, int identicalTilesToCancel, int games, double meanFlips,
+      double flipsDeviation, double meanMismatches, double unfinishedShare) {
+
+    /* expected play time of a person: the flips at their pace plus a reveal pause per failed group */
+    double expectedSeconds() {
+      return (meanFlips * MILLIS_PER_FLIP + meanMismatches * TurnScheduler.DEFAULT_REVEAL_DELAY) / 1000;
+    }
+
+    /* most games did not finish within MAX_FLIPS */
+    boolean isHopeless() {
+      return unfinishedShare > 0.5;
+    }
+  }
+
+  /*
+   * plays games in rounds of doubling size until maxGames were played or the
+   * flips used reach flipBudget, so small boards get many games and huge ones
+   * stay affordable. game n is dealt and played with seed + n.
+   */
+  static Estimate estimate(int differentTiles, int identicalTilesToCancel, BotPlayer.Memory memory, int maxGames,
+      long flipBudget, long seed) {
+    return estimate(differentTiles, identicalTilesToCancel, memory, maxGames, flipBudget, seed,
+        ForkJoinPool.commonPool());
+  }
+
+  static Estimate estimate(int differentTiles, int identicalTilesToCancel, BotPlayer.Memory memory, int maxGames,
+      long flipBudget, long seed, ForkJoinPool pool) {
+    long[] sums = new long[SUMS];
+    int games = 0;
+    int round = Math.min(maxGames, pool.getParallelism() * 4);
+    while (games < maxGames && sums[FLIPS] < flipBudget) {
+      long[] part = pool.invoke(
+          new Games(differentTiles, identicalTilesToCancel, memory, seed, games, games + round));
+      for (int i = 0; i < SUMS; i++) {
+        sums[i] += part[i];
+      }
+      games += round;
+      round = Math.min(maxGames - games, round * 2);
+    }
+    double mean = (double) sums[FLIPS] / games;
+    double variance = Math.max(0, (double) sums[FLIPS_SQUARED] / games - mean * mean);
+    return new Estimate(differentTiles, identicalTilesToCancel, games, mean, Math.sqrt(variance),
+        (double) sums[MISMATCHES] / games, (double) sums[UNFINISHED] / games);
+  }
+
+  private static final int FLIPS = 0;
+  private static final int FLIPS_SQUARED = 1;
+  private static final int MISMATCHES = 2;
+  private static final int UNFINISHED = 3;
+  private static final int SUMS = 4;
+
+  /* games [from, to), split in halves until a part is small enough to play on one thread */
+  private static final class Games extends RecursiveTask<long[]> {
+    private static final long serialVersionUID = 1L;
+
+    private final int differentTiles;
+    private final int identicalTilesToCancel;
+    private final BotPlayer.Memory memory;
+    private final long seed;
+    private final int from;
+    private final int to;
+
+    Games(int differentTiles, int identicalTilesToCancel, BotPlayer.Memory memory, long seed, int from, int to) {
+      this.differentTiles = differentTiles;
+      this.identicalTilesToCancel = identicalTilesToCancel;
+      this.memory = memory;
+      this.seed = seed;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected long[] compute() {
+      long tiles = (long) differentTiles * identicalTilesToCancel;
+      if (to - from > 1 && (to - from) * tiles > TILES_PER_TASK) {
+        int middle = (from + to) >>> 1;
+        Games left = new Games(differentTiles, identicalTilesToCancel, memory, seed, from, middle);
+        left.fork();
+        long[] right = new Games(differentTiles, identicalTilesToCancel, memory, seed, middle, to).compute();
+        long[] sums = left.join();
+        for (int i = 0; i < SUMS; i++) {
+          sums[i] += right[i];
+        }
+        return sums;
+      }
+      /* one board and one bot for all games of this part */
+      TileBoard board = new TileBoard(differentTiles, identicalTilesToCancel, seed + from);
+      BotPlayer bot = new BotPlayer(differentTiles, identicalTilesToCancel, memory);
+      long[] sums = new long[SUMS];
+      for (int game = from; game < to; game++) {
+        if (game > from) {
+          board.reset(seed + game);
+        }
+        long flips = bot.playGame(board, seed + game, MAX_FLIPS);
+        sums[FLIPS] += flips;
+        sums[FLIPS_SQUARED] += flips * flips;
+        sums[MISMATCHES] += bot.mismatches();
+        sums[UNFINISHED] += board.isCompleted() ? 0 : 1;
+      }
+      return sums;
+    }
+  }
+
+  public static void main(String[] args) throws java.io.IOException {
+    System.setProperty("java.awt.headless", "true");
+    if (args.length == 0) {
+      long start = System.nanoTime();
+      DifficultyTable table = DifficultyTable.build();
+      table.save(DifficultyTable.FILE);
+      System.out.printf("%d estimates written to %s in %.1f s on %d cores%n", table.size(), DifficultyTable.FILE,
+          (System.nanoTime() - start) / 1e9, ForkJoinPool.getCommonPoolParallelism());
+      return;
+    }
+    int differentTiles = Integer.parseInt(args[0]);
+    int identical = Integer.parseInt(args[1]);
+    int games = args.length > 2 ? Integer.parseInt(args[2]) : 10_000;
+    for (BotPlayer.Memory memory : new BotPlayer.Memory[] {BotPlayer.Memory.PERFECT, BotPlayer.Memory.TYPICAL}) {
+      long start = System.nanoTime();
+      Estimate estimate = estimate(differentTiles, identical, memory, games, Long.MAX_VALUE, 1);
+      System.out.printf("%s: %d games, %.1f flips (sd %.1f), %.1f failed groups, %.0f%% unfinished, "
+          + "about %.1f min, took %.2f s%n", memory.isPerfect() ? "perfect memory" : "typical memory",
+          estimate.games(), estimate.meanFlips(), estimate.flipsDeviation(), estimate.meanMismatches(),
+          estimate.unfinishedShare() * 100, estimate.expectedSeconds() / 60, (System.nanoTime() - start) / 1e9);
+    }
+  }
+}
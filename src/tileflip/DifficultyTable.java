@@ -0,0 +1,233 @@
+package tileflip;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+
+/*
+ * precomputed bot results for a grid of board sizes, so the settings dialog can
+ * show an estimate while the player types instead of simulating on the spot.
+ *
+ * the grid covers identicalTilesToCancel 1..MAX_IDENTICAL and a roughly
+ * geometric range of differentTiles. sizes between grid points are
+ * interpolated on a log scale, bigger ones extrapolated from the last two.
+ *
+ * file layout: magic "TFDT", version, entry count, then per entry
+ *   int capacity | double halfLife | int differentTiles | int identical | int games
+ *   | double meanFlips | double flipsDeviation | double meanMismatches | double unfinishedShare
+ */
+class DifficultyTable {
+  static final Path FILE = ProfileStore.withSystemSettings().sharedFile("difficulty_table.bin");
+  private static final int MAGIC = 0x54464454; // "TFDT"
+  private static final int VERSION = 1;
+
+  static final int[] DIFFERENT_TILES = {1, 2, 3, 4, 6, 8, 12, 16, 24, 32, 48, 64, 96, 128, 192, 256, 384, 512, 768,
+      1024};
+  static final int MAX_IDENTICAL = 6;
+  static final BotPlayer.Memory[] MEMORIES = {BotPlayer.Memory.PERFECT, BotPlayer.Memory.TYPICAL};
+  private static final int MAX_GAMES = 2000;
+  private static final long FLIP_BUDGET = 4_000_000;
+  /* boards off the grid but at most this big are simulated on the spot */
+  private static final int LIVE_TILES = 2000;
+  private static final long LIVE_FLIP_BUDGET = 500_000;
+
+  private record Key(BotPlayer.Memory memory, int differentTiles, int identicalTilesToCancel) {
+  }
+
+  private final Map<Key, DifficultyEstimator.Estimate> estimates = new HashMap<>();
+  /* boards simulated on the spot, asked for again while the player types */
+  private final Map<Key, DifficultyEstimator.Estimate> simulated = new ConcurrentHashMap<>();
+
+  private static volatile DifficultyTable shared;
+
+  /* the table in the data directory, built and saved on first use when it is missing */
+  public static synchronized DifficultyTable shared() {
+    if (shared == null) {
+      shared = loadOrBuild(FILE);
+    }
+    return shared;
+  }
+
+  /* the shared table if it is ready, null while it is still being loaded or built */
+  public static DifficultyTable sharedIfLoaded() {
+    return shared;
+  }
+
+  static DifficultyTable loadOrBuild(Path path) {
+    try {
+      return load(path);
+    } catch (IOException e) {
+      // missing or from an older version, build a new one
+    }
+    /*
+     * the game is running meanwhile: one worker at the lowest priority, not
+     * every core. the table comes out the same, it just takes longer.
+     */
+    ForkJoinPool background = new ForkJoinPool(1, pool -> {
+      ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+      thread.setName("difficulty-table-worker");
+      thread.setPriority(Thread.MIN_PRIORITY);
+      return thread;
+    }, null, false);
+    DifficultyTable table;
+    try {
+      table = build(background);
+    } finally {
+      background.shutdown();
+    }
+    try {
+      table.save(path);
+    } catch (IOException e) {
+      e.printStackTrace();
+    }
+    return table;
+  }
+
+  /* simulates the whole grid on all cores, each row stops simulating once its boards are hopeless */
+  static DifficultyTable build() {
+    return build(ForkJoinPool.commonPool());
+  }
+
+  static DifficultyTable build(ForkJoinPool pool) {
+    DifficultyTable table = new DifficultyTable();
+    for (BotPlayer.Memory memory : MEMORIES) {
+      for (int identical = 1; identical <= MAX_IDENTICAL; identical++) {
+        DifficultyEstimator.Estimate last = null;
+        for (int different : DIFFERENT_TILES) {
+          if (last != null && last.isHopeless()) {
+            last = hopeless(different, identical); // more tiles will not make it easier
+          } else {
+            last = DifficultyEstimator.estimate(different, identical, memory, MAX_GAMES, FLIP_BUDGET, 1, pool);
+          }
+          table.estimates.put(new Key(memory, different, identical), last);
+        }
+      }
+    }
+    return table;
+  }
+
+  private static DifficultyEstimator.Estimate hopeless(int differentTiles, int identical) {
+    return new DifficultyEstimator.Estimate(differentTiles, identical, 0, DifficultyEstimator.MAX_FLIPS, 0, 0, 1);
+  }
+
+  public int size() {
+    return estimates.size();
+  }
+
+  /*
+   * the estimate for a board size from the table, interpolated when it is off
+   * the grid, simulated on the spot when it is small but outside the table.
+   * returns null when there is nothing to go by. a simulation takes a while,
+   * never call this on the EDT, see known().
+   */
+  public DifficultyEstimator.Estimate estimate(int differentTiles, int identical, BotPlayer.Memory memory) {
+    DifficultyEstimator.Estimate estimate = known(differentTiles, identical, memory);
+    if (estimate == null && needsSimulation(differentTiles, identical)) {
+      estimate = DifficultyEstimator.estimate(differentTiles, identical, memory, MAX_GAMES, LIVE_FLIP_BUDGET, 1);
+      simulated.put(new Key(memory, differentTiles, identical), estimate);
+    }
+    return estimate;
+  }
+
+  /* the estimate if it can be had at once: from the table or simulated before. null otherwise */
+  public DifficultyEstimator.Estimate known(int differentTiles, int identical, BotPlayer.Memory memory) {
+    DifficultyEstimator.Estimate estimate = lookup(differentTiles, identical, memory);
+    return estimate != null ? estimate : simulated.get(new Key(memory, differentTiles, identical));
+  }
+
+  /* whether estimate() would simulate, that is the board is small but not in the table */
+  public boolean needsSimulation(int differentTiles, int identical) {
+    return (long) differentTiles * identical <= LIVE_TILES
+        && lookup(differentTiles, identical, BotPlayer.Memory.TYPICAL) == null;
+  }
+
+  /* only what the table knows, null when identical is outside the grid */
+  public DifficultyEstimator.Estimate lookup(int differentTiles, int identical, BotPlayer.Memory memory) {
+    DifficultyEstimator.Estimate exact = estimates.get(new Key(memory, differentTiles, identical));
+    if (exact != null || identical < 1 || identical > MAX_IDENTICAL || differentTiles < 1) {
+      return exact;
+    }
+    int above = 1;
+    while (above < DIFFERENT_TILES.length - 1 && DIFFERENT_TILES[above] < differentTiles) {
+      above++;
+    }
+    DifficultyEstimator.Estimate low = estimates.get(new Key(memory, DIFFERENT_TILES[above - 1], identical));
+    DifficultyEstimator.Estimate high = estimates.get(new Key(memory, DIFFERENT_TILES[above], identical));
+    if (low == null || high == null) {
+      return null;
+    }
+    if (high.isHopeless() && differentTiles > DIFFERENT_TILES[above]) {
+      return hopeless(differentTiles, identical);
+    }
+    /* straight line through both points in log-log space */
+    double t = (Math.log(differentTiles) - Math.log(low.differentTiles()))
+        / (Math.log(high.differentTiles()) - Math.log(low.differentTiles()));
+    double flips = logLerp(low.meanFlips(), high.meanFlips(), t);
+    double unfinished = differentTiles > high.differentTiles() ? high.unfinishedShare()
+        : low.unfinishedShare() + (high.unfinishedShare() - low.unfinishedShare()) * t;
+    if (flips > DifficultyEstimator.MAX_FLIPS) {
+      unfinished = 1;
+    }
+    return new DifficultyEstimator.Estimate(differentTiles, identical, 0, flips,
+        logLerp(low.flipsDeviation(), high.flipsDeviation(), t),
+        logLerp(low.meanMismatches(), high.meanMismatches(), t), Math.min(1, unfinished));
+  }
+
+  /* interpolates log(1 + value), which also copes with values of zero */
+  private static double logLerp(double low, double high, double t) {
+    return Math.expm1(Math.log1p(low) + (Math.log1p(high) - Math.log1p(low)) * t);
+  }
+
+  /* writes a temporary file first and moves it over, a crash never leaves half a table */
+  public void save(Path path) throws IOException {
+    Files.createDirectories(path.toAbsolutePath().getParent());
+    Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeInt(estimates.size());
+      for (Map.Entry<Key, DifficultyEstimator.Estimate> entry : estimates.entrySet()) {
+        DifficultyEstimator.Estimate estimate = entry.getValue();
+        out.writeInt(entry.getKey().memory().capacity());
+        out.writeDouble(entry.getKey().memory().halfLife());
+        out.writeInt(estimate.differentTiles());
+        out.writeInt(estimate.identicalTilesToCancel());
+        out.writeInt(estimate.games());
+        out.writeDouble(estimate.meanFlips());
+        out.writeDouble(estimate.flipsDeviation());
+        out.writeDouble(estimate.meanMismatches());
+        out.writeDouble(estimate.unfinishedShare());
+      }
+    }
+    Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  public static DifficultyTable load(Path path) throws IOException {
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+      if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+        throw new IOException(path + " is not a difficulty table of this version");
+      }
+      DifficultyTable table = new DifficultyTable();
+      int count = in.readInt();
+      for (int i = 0; i < count; i++) {
+        BotPlayer.Memory memory = new BotPlayer.Memory(in.readInt(), in.readDouble());
+        DifficultyEstimator.Estimate estimate = new DifficultyEstimator.Estimate(in.readInt(), in.readInt(),
+            in.readInt(), in.readDouble(), in.readDouble(), in.readDouble(), in.readDouble());
+        table.estimates.put(new Key(memory, estimate.differentTiles(), estimate.identicalTilesToCancel()), estimate);
+      }
+      return table;
+    } catch (IllegalArgumentException e) {
+      throw new IOException(path + " is damaged", e);
+    }
+  }
+}
@@ -0,0 +1,89 @@
+package tileflip;
+
+import java.awt.EventQueue;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * notices when the event dispatch thread is stuck, so a slow click handler
+ * shows up in a flight recording with the place it was stuck in.
+ *
+ * a daemon thread posts a tiny event every threshold and checks whether the
+ * EDT has run it a threshold later. if not, the EDT's stack is sampled right
+ * away, and once the event finally runs a GameEvents.EdtStall is committed
+ * with the whole blocked time and that stack.
+ * threshold from -Dtileflip.edtStallMillis (default 100), 0 turns it off.
+ */
+final class EdtWatchdog implements Runnable {
+  static final long THRESHOLD_MILLIS = Long.getLong("tileflip.edtStallMillis", 100);
+  private static final int STACK_DEPTH = 32;
+
+  private final long thresholdNanos;
+  private volatile long answered;
+  private volatile Thread dispatchThread;
+  private long posted;
+
+  private static boolean started;
+
+  private EdtWatchdog(long thresholdMillis) {
+    this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+  }
+
+  /* starts the watchdog once, unless the threshold is 0 */
+  static synchronized void start() {
+    if (started || THRESHOLD_MILLIS <= 0) {
+      return;
+    }
+    started = true;
+    Thread thread = new Thread(new EdtWatchdog(THRESHOLD_MILLIS), "edt-watchdog");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  @Override
+  public void run() {
+    try {
+      while (true) {
+        long sequence = ++posted;
+        long postedAt = System.nanoTime();
+        EventQueue.invokeLater(() -> {
+          dispatchThread = Thread.currentThread(); // the EDT is replaced after an uncaught exception
+          answered = sequence;
+        });
+        TimeUnit.NANOSECONDS.sleep(thresholdNanos);
+        if (answered != sequence) {
+          stalled(sequence, postedAt);
+        }
+      }
+    } catch (InterruptedException e) {
+      // the application is going away
+    }
+  }
+
+  private void stalled(long sequence, long postedAt) throws InterruptedException {
+    GameEvents.EdtStall event = new GameEvents.EdtStall();
+    event.begin();
+    Thread edt = dispatchThread;
+    String stack = edt == null ? "" : format(edt.getStackTrace());
+    long poll = Math.max(1, thresholdNanos / 10);
+    while (answered != sequence) {
+      TimeUnit.NANOSECONDS.sleep(poll);
+    }
+    event.end();
+    if (event.shouldCommit()) {
+      event.blocked = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - postedAt);
+      event.stack = stack;
+      event.commit();
+    }
+  }
+
+  private static String format(StackTraceElement[] frames) {
+    StringBuilder text = new StringBuilder();
+    for (int i = 0; i < Math.min(frames.length, STACK_DEPTH); i++) {
+      text.append(frames[i]).append('\n');
+    }
+    if (frames.length > STACK_DEPTH) {
+      text.append("... ").append(frames.length - STACK_DEPTH).append(" more\n");
+    }
+    return text.toString();
+  }
+}
@@ -0,0 +1,306 @@
+package tileflip;
+
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/*
+ * what happens in a game, for everything that is not the game itself and can
+ * do without an event now and then (metrics, later sound or network; not the
+ * scores). the EDT publishes into a ring of preallocated slots and goes on,
+ * every consumer follows the ring on a daemon thread of its own and gets
+ * whatever piled up as one batch.
+ *
+ * one producer, many consumers. the producer never waits: a consumer that
+ * falls a whole ring behind loses the oldest events, the slots it missed are
+ * counted in dropped(). a slot is a seqlock, its sequence is written after
+ * the fields, so a consumer that reads a slot while it is being overwritten
+ * notices and counts it as dropped instead of seeing half an event.
+ *
+ * the bus is also a Flow.Publisher: a subscriber gets events only as far as
+ * it requested them, the rest waits in the ring (and is dropped when the
+ * ring laps it, like any slow consumer).
+ */
+final class EventBus implements Flow.Publisher<EventBus.Event> {
+  enum Type {
+    GAME_START,
+    FLIP,
+    MATCH, // a group cleared, the last one of the board is followed by GAME_END
+    MISMATCH,
+    GAME_END
+  }
+
+  /*
+   * an event as a consumer sees it. tile is the flipped tile (-1 for the
+   * others), flips and millis are known at the end of a game (0 before).
+   */
+  record Event(long sequence, Type type, long nanoTime, int differentTiles, int identicalTilesToCancel, int tile,
+               int flips, long millis) {
+  }
+
+  /* gets the events in order, endOfBatch tells when nothing else is waiting right now */
+  interface Handler {
+    void onEvent(Event event, boolean endOfBatch);
+  }
+
+  private static final int MAX_BATCH = 256;
+  private static final long IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+  /* written by the producer only, fields first, then the sequence */
+  private static final class Slot {
+    volatile long sequence = -1;
+    Type type;
+    long nanoTime;
+    int differentTiles;
+    int identicalTilesToCancel;
+    int tile;
+    int flips;
+    long millis;
+  }
+
+  private static final EventBus shared = new EventBus(1 << 12);
+
+  private final Slot[] slots;
+  private final int mask;
+  /* the last published sequence, -1 before the first */
+  private final AtomicLong cursor = new AtomicLong(-1);
+  /* copied on every change, the producer walks it without an iterator */
+  private volatile Follower[] followers = new Follower[0];
+
+  EventBus(int capacity) {
+    if (Integer.bitCount(capacity) != 1) {
+      throw new IllegalArgumentException("capacity must be a power of two: " + capacity);
+    }
+    slots = new Slot[capacity];
+    for (int i = 0; i < capacity; i++) {
+      slots[i] = new Slot();
+    }
+    mask = capacity - 1;
+  }
+
+  static EventBus shared() {
+    return shared;
+  }
+
+  /* one producer thread only (the EDT for the game window). never blocks, allocates nothing */
+  void publish(Type type, TileBoard board, int tile, int flips, long millis) {
+    long sequence = cursor.get() + 1;
+    Slot slot = slots[(int) sequence & mask];
+    slot.sequence = -1; // readers of the old event see it change
+    VarHandle.storeStoreFence();
+    slot.type = type;
+    slot.nanoTime = System.nanoTime();
+    slot.differentTiles = board.differentTiles();
+    slot.identicalTilesToCancel = board.identicalTilesToCancel();
+    slot.tile = tile;
+    slot.flips = flips;
+    slot.millis = millis;
+    slot.sequence = sequence;
+    cursor.set(sequence);
+    for (Follower follower : followers) {
+      follower.wake();
+    }
+  }
+
+  /* starts a consumer on a daemon thread of its own, it sees the events published from now on */
+  void subscribe(String name, Handler handler) {
+    start(new Follower(name, handler, null));
+  }
+
+  @Override
+  public void subscribe(Flow.Subscriber<? super Event> subscriber) {
+    start(new SubscriptionFollower(subscriber).follower);
+  }
+
+  private synchronized void start(Follower follower) {
+    Follower[] more = Arrays.copyOf(followers, followers.length + 1);
+    more[followers.length] = follower;
+    followers = more;
+    follower.thread.start();
+  }
+
+  private synchronized void remove(Follower follower) {
+    followers = Arrays.stream(followers).filter(f -> f != follower).toArray(Follower[]::new);
+  }
+
+  /* events lost by all consumers together because they fell a whole ring behind */
+  long dropped() {
+    long dropped = 0;
+    for (Follower follower : followers) {
+      dropped += follower.dropped;
+    }
+    return dropped;
+  }
+
+  /* one consumer: its position in the ring and the thread that moves it */
+  private final class Follower {
+    private final Handler handler;
+    private final SubscriptionFollower subscription; // null for a plain handler
+    private final Thread thread;
+    private volatile boolean waiting;
+    private volatile boolean stopped;
+    private volatile long dropped;
+    private long next;
+
+    private Follower(String name, Handler handler, SubscriptionFollower subscription) {
+      this.handler = handler;
+      this.subscription = subscription;
+      this.next = cursor.get() + 1;
+      this.thread = new Thread(this::run, name);
+      this.thread.setDaemon(true);
+    }
+
+    private void wake() {
+      if (waiting) {
+        LockSupport.unpark(thread);
+      }
+    }
+
+    private void run() {
+      List<Event> batch = new ArrayList<>(MAX_BATCH);
+      if (subscription != null) {
+        subscription.start();
+      }
+      while (!stopped) {
+        if (subscription != null && subscription.failed()) {
+          break;
+        }
+        long available = cursor.get();
+        long allowed = subscription == null ? MAX_BATCH : Math.min(MAX_BATCH, subscription.demand.get());
+        if (available < next || allowed == 0) {
+          idle(available);
+          continue;
+        }
+        if (available - next >= slots.length) {
+          skip(available - slots.length + 1); // lapped, the oldest slots are gone
+        }
+        long last = Math.min(available, next + allowed - 1);
+        for (long sequence = next; sequence <= last; sequence++) {
+          Event event = read(sequence);
+          if (event == null) {
+            if (batch.isEmpty()) {
+              skip(sequence + 1); // overwritten while it was read
+            }
+            break;
+          }
+          batch.add(event);
+        }
+        if (batch.isEmpty()) {
+          continue;
+        }
+        next = batch.get(batch.size() - 1).sequence() + 1;
+        deliver(batch);
+        batch.clear();
+      }
+      remove(this);
+    }
+
+    private void deliver(List<Event> batch) {
+      if (subscription != null) {
+        subscription.deliver(batch);
+        return;
+      }
+      for (int i = 0; i < batch.size(); i++) {
+        try {
+          handler.onEvent(batch.get(i), i == batch.size() - 1);
+        } catch (RuntimeException e) {
+          e.printStackTrace(); // a broken consumer does not stop the others or the game
+        }
+      }
+    }
+
+    /* nothing to do: park until the producer wakes us or demand arrives */
+    private void idle(long seen) {
+      waiting = true;
+      if (cursor.get() == seen && !stopped) {
+        LockSupport.parkNanos(this, IDLE_NANOS);
+      }
+      waiting = false;
+    }
+
+    private void skip(long to) {
+      if (to > next) {
+        dropped += to - next;
+        next = to;
+      }
+    }
+
+    /* a copy of the slot, null when the producer overwrote it meanwhile */
+    private Event read(long sequence) {
+      Slot slot = slots[(int) sequence & mask];
+      if (slot.sequence != sequence) {
+        return null;
+      }
+      Event event = new Event(sequence, slot.type, slot.nanoTime, slot.differentTiles, slot.identicalTilesToCancel,
+          slot.tile, slot.flips, slot.millis);
+      VarHandle.loadLoadFence();
+      return slot.sequence == sequence ? event : null;
+    }
+  }
+
+  /* a Flow subscriber behind a follower, onNext only as far as requested */
+  private final class SubscriptionFollower implements Flow.Subscription {
+    private final Flow.Subscriber<? super Event> subscriber;
+    private final AtomicLong demand = new AtomicLong();
+    private final Follower follower;
+    private volatile long badRequest; // a request(n) with n <= 0, signalled from the follower thread
+
+    private SubscriptionFollower(Flow.Subscriber<? super Event> subscriber) {
+      this.subscriber = subscriber;
+      this.follower = new Follower("event-subscriber", null, this);
+    }
+
+    /* on the follower thread, so onSubscribe and onNext never run at the same time */
+    private void start() {
+      subscriber.onSubscribe(this);
+    }
+
+    /* onError for a bad request, here so that it never overlaps onNext */
+    private boolean failed() {
+      if (badRequest == 0) {
+        return false;
+      }
+      follower.stopped = true;
+      subscriber.onError(new IllegalArgumentException("non-positive request: " + badRequest));
+      return true;
+    }
+
+    private void deliver(List<Event> batch) {
+      demand.addAndGet(-batch.size());
+      for (Event event : batch) {
+        if (follower.stopped) {
+          return;
+        }
+        try {
+          subscriber.onNext(event);
+        } catch (RuntimeException e) {
+          follower.stopped = true;
+          subscriber.onError(e);
+        }
+      }
+    }
+
+    @Override
+    public void request(long n) {
+      if (n <= 0) {
+        badRequest = n == 0 ? -1 : n;
+        LockSupport.unpark(follower.thread);
+        return;
+      }
+      /* unbounded once it overflows, as Flow specifies */
+      demand.getAndUpdate(d -> d + n < 0 ? Long.MAX_VALUE : d + n);
+      LockSupport.unpark(follower.thread);
+    }
+
+    @Override
+    public void cancel() {
+      follower.stopped = true;
+      LockSupport.unpark(follower.thread);
+    }
+  }
+}
@@ -0,0 +1,218 @@
+package tileflip;
+
+import java.awt.Rectangle;
+import java.awt.event.ActionEvent;
+import java.util.Arrays;
+import javax.swing.Timer;
+
+/*
+ * every tile animation of a view, driven by one Swing timer that only runs
+ * while something moves. a frame advances the clock, drops the animations
+ * that are done and repaints the union of the tiles that moved, once.
+ *
+ * the animations are parallel arrays (tile, kind, start) kept dense by
+ * swapping a finished one with the last, a small open addressing table maps
+ * a tile to its slot for painting. the arrays grow when more tiles move at
+ * once than ever before, a frame itself allocates nothing.
+ * -Dtileflip.animations=false turns it off, tiles then change at once.
+ */
+final class FlipAnimator {
+  static final int NONE = 0;
+  static final int FLIP_UP = 1; // face down to face up
+  static final int FLIP_DOWN = 2; // a failed group turned back
+  static final int FADE = 3; // a matched group greys out
+
+  static final boolean ENABLED = !"false".equals(System.getProperty("tileflip.animations"));
+  private static final int FRAME_MILLIS = 1000 / Integer.getInteger("tileflip.animationFps", 60);
+  private static final long FLIP_NANOS = 150_000_000;
+  private static final long FADE_NANOS = 250_000_000;
+
+  /* what an animation paints into */
+  interface View {
+    /* where the tile is painted now, false when it is not on the screen */
+    boolean tileBounds(int index, Rectangle into);
+
+    void repaint(int x, int y, int width, int height);
+  }
+
+  private View view;
+  private final Timer clock = new Timer(FRAME_MILLIS, (ActionEvent e) -> frame());
+
+  private int[] tiles = new int[64];
+  private int[] kinds = new int[64];
+  private long[] starts = new long[64];
+  private int active;
+  /* tile + 1 -> slot, 0 is an empty cell. capacity is a power of two, at least twice the slots */
+  private int[] tableKeys = new int[128];
+  private int[] tableSlots = new int[128];
+
+  /* the time the current frame shows, every tile of a frame is painted at the same moment */
+  private long frameNanos;
+  private final Rectangle bounds = new Rectangle();
+
+  FlipAnimator() {
+    clock.setCoalesce(true);
+  }
+
+  /* another view or board, running animations are dropped */
+  void setView(View view) {
+    this.view = view;
+    clear();
+  }
+
+  void clear() {
+    clock.stop();
+    active = 0;
+    Arrays.fill(tableKeys, 0);
+  }
+
+  /* starts or restarts the animation of a tile. EDT only */
+  void start(int tile, int kind) {
+    if (!ENABLED || view == null) {
+      return;
+    }
+    int slot = slotOf(tile);
+    if (slot < 0) {
+      if (active == tiles.length) {
+        grow();
+      }
+      slot = active++;
+      tiles[slot] = tile;
+      put(tile, slot);
+    }
+    kinds[slot] = kind;
+    starts[slot] = System.nanoTime();
+    if (!clock.isRunning()) {
+      frameNanos = System.nanoTime();
+      clock.start();
+    }
+  }
+
+  /* NONE when the tile does not move */
+  int kindOf(int tile) {
+    int slot = active == 0 ? -1 : slotOf(tile);
+    return slot < 0 ? NONE : kinds[slot];
+  }
+
+  /* 0 to 1, how far the animation of the tile is in the current frame */
+  float progressOf(int tile) {
+    int slot = active == 0 ? -1 : slotOf(tile);
+    return slot < 0 ? 1 : progress(slot);
+  }
+
+  /* the moving tiles, for views that paint them in a pass of their own */
+  int activeCount() {
+    return active;
+  }
+
+  int activeTile(int slot) {
+    return tiles[slot];
+  }
+
+  int activeKind(int slot) {
+    return kinds[slot];
+  }
+
+  float activeProgress(int slot) {
+    return progress(slot);
+  }
+
+  private float progress(int slot) {
+    long duration = kinds[slot] == FADE ? FADE_NANOS : FLIP_NANOS;
+    return Math.max(0f, Math.min(1f, (float) (frameNanos - starts[slot]) / duration));
+  }
+
+  /* one clock tick: advance, repaint the union of every moving tile, drop the finished ones */
+  private void frame() {
+    frameNanos = System.nanoTime();
+    int left = Integer.MAX_VALUE;
+    int top = Integer.MAX_VALUE;
+    int right = Integer.MIN_VALUE;
+    int bottom = Integer.MIN_VALUE;
+    for (int slot = active - 1; slot >= 0; slot--) {
+      if (view.tileBounds(tiles[slot], bounds)) {
+        left = Math.min(left, bounds.x);
+        top = Math.min(top, bounds.y);
+        right = Math.max(right, bounds.x + bounds.width);
+        bottom = Math.max(bottom, bounds.y + bounds.height);
+      }
+      if (progress(slot) >= 1) {
+        remove(slot); // painted once more in its final state
+      }
+    }
+    if (left < right) {
+      view.repaint(left, top, right - left, bottom - top);
+    }
+    if (active == 0) {
+      clock.stop();
+    }
+  }
+
+  private void remove(int slot) {
+    delete(tiles[slot]);
+    int last = --active;
+    if (slot != last) {
+      tiles[slot] = tiles[last];
+      kinds[slot] = kinds[last];
+      starts[slot] = starts[last];
+      put(tiles[slot], slot);
+    }
+  }
+
+  private void grow() {
+    int capacity = tiles.length * 2;
+    tiles = Arrays.copyOf(tiles, capacity);
+    kinds = Arrays.copyOf(kinds, capacity);
+    starts = Arrays.copyOf(starts, capacity);
+    tableKeys = new int[capacity * 2];
+    tableSlots = new int[capacity * 2];
+    for (int slot = 0; slot < active; slot++) {
+      put(tiles[slot], slot);
+    }
+  }
+
+  private int cellOf(int tile) {
+    int h = (tile + 1) * 0x9E3779B9;
+    return (h ^ (h >>> 16)) & (tableKeys.length - 1);
+  }
+
+  private int slotOf(int tile) {
+    for (int cell = cellOf(tile); tableKeys[cell] != 0; cell = (cell + 1) & (tableKeys.length - 1)) {
+      if (tableKeys[cell] == tile + 1) {
+        return tableSlots[cell];
+      }
+    }
+    return -1;
+  }
+
+  private void put(int tile, int slot) {
+    int cell = cellOf(tile);
+    while (tableKeys[cell] != 0 && tableKeys[cell] != tile + 1) {
+      cell = (cell + 1) & (tableKeys.length - 1);
+    }
+    tableKeys[cell] = tile + 1;
+    tableSlots[cell] = slot;
+  }
+
+  /* linear probing without tombstones: the cells after the hole that belong before it move up */
+  private void delete(int tile) {
+    int mask = tableKeys.length - 1;
+    int hole = cellOf(tile);
+    while (tableKeys[hole] != tile + 1) {
+      if (tableKeys[hole] == 0) {
+        return;
+      }
+      hole = (hole + 1) & mask;
+    }
+    for (int cell = (hole + 1) & mask; tableKeys[cell] != 0; cell = (cell + 1) & mask) {
+      int home = cellOf(tableKeys[cell] - 1);
+      /* the entry may fill the hole if the hole lies between its home and its cell */
+      if (((cell - home) & mask) >= ((cell - hole) & mask)) {
+        tableKeys[hole] = tableKeys[cell];
+        tableSlots[hole] = tableSlots[cell];
+        hole = cell;
+      }
+    }
+    tableKeys[hole] = 0;
+  }
+}
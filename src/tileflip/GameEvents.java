@@ -0,0 +1,116 @@
+package tileflip;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/*
+ * custom Java Flight Recorder events of the game, all in the category
+ * "Tile Flipping Game". they cost next to nothing while no recording runs.
+ * record with: java -XX:StartFlightRecording=filename=game.jfr -jar ...
+ *
+ * every event carries the board size (tiles) and the set size (identical
+ * tiles to cancel), so a recording can be sliced by difficulty.
+ */
+final class GameEvents {
+  private GameEvents() {
+  }
+
+  @Category("Tile Flipping Game")
+  abstract static class BoardEvent extends Event {
+    @Label("Tiles")
+    int tiles;
+
+    @Label("Set Size")
+    int setSize;
+
+    /* fills in the size fields from the board */
+    void board(TileBoard board) {
+      this.tiles = board.tileCount();
+      this.setSize = board.identicalTilesToCancel();
+    }
+  }
+
+  @Name("tileflip.Flip")
+  @Label("Flip")
+  @Description("One tile flipped by the player, including the repaint requests it caused")
+  @StackTrace(false)
+  static final class Flip extends BoardEvent {
+    @Label("Index")
+    int index;
+
+    @Label("Outcome")
+    String outcome;
+  }
+
+  @Name("tileflip.MatchResolved")
+  @Label("Match Resolved")
+  @Description("A selection ended: a group was cleared, or a failed group was flipped back after the reveal")
+  @StackTrace(false)
+  static final class MatchResolved extends BoardEvent {
+    @Label("Outcome")
+    String outcome;
+
+    @Label("Group Size")
+    int groupSize;
+  }
+
+  @Name("tileflip.GameStart")
+  @Label("Game Start")
+  @StackTrace(false)
+  static final class GameStart extends BoardEvent {
+  }
+
+  @Name("tileflip.GameEnd")
+  @Label("Game End")
+  @StackTrace(false)
+  static final class GameEnd extends BoardEvent {
+    @Label("Flips")
+    int flips;
+
+    @Label("Play Time")
+    @Timespan(Timespan.MILLISECONDS)
+    long playTime;
+  }
+
+  @Name("tileflip.BoardBuild")
+  @Label("Board Build")
+  @Description("Dealing a board, loading a saved one, or creating the components that show it")
+  @StackTrace(false)
+  static final class BoardBuild extends BoardEvent {
+    @Label("Stage")
+    String stage;
+  }
+
+  @Name("tileflip.PersistenceWrite")
+  @Label("Persistence Write")
+  @Description("One batch of scores appended to the score log, with its fsync if one was due. "
+      + "The sizes are those of the last score in the batch")
+  @StackTrace(false)
+  static final class PersistenceWrite extends BoardEvent {
+    @Label("Records")
+    int records;
+
+    @Label("Synced")
+    boolean synced;
+  }
+
+  @Name("tileflip.EdtStall")
+  @Category("Tile Flipping Game")
+  @Label("EDT Stall")
+  @Description("The event dispatch thread did not get to a queued event for longer than the threshold")
+  @StackTrace(false)
+  static final class EdtStall extends Event {
+    @Label("Blocked For")
+    @Timespan(Timespan.MILLISECONDS)
+    long blocked;
+
+    @Label("EDT Stack")
+    @Description("Where the event dispatch thread was when the stall was noticed")
+    String stack;
+  }
+}
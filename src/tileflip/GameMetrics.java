@@ -0,0 +1,180 @@
+package tileflip;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/*
+ * the game's metrics registry. counters and histograms are plain fields that
+ * are updated in place, so recording on the hot path allocates nothing and
+ * works before JMX is up. register() publishes them as MBeans:
+ *   tileflip:type=Game                       counters, gauges, exportSnapshot(file)
+ *   tileflip:type=Latency,name=<histogram>   percentiles in microseconds
+ */
+final class GameMetrics implements GameMetricsMBean {
+  private static final GameMetrics SHARED = new GameMetrics();
+
+  /* from a click until the tile it flipped was painted */
+  final LatencyHistogram clickToPaint = new LatencyHistogram("clickToPaint");
+  /* from a failed group being shown until it was flipped back */
+  final LatencyHistogram revealToResolution = new LatencyHistogram("revealToResolution");
+  /* from the settings until every tile of the board is in place */
+  final LatencyHistogram boardBuild = new LatencyHistogram("boardBuild");
+  /* one batch appended to the score log, with its fsync */
+  final LatencyHistogram save = new LatencyHistogram("save");
+  private final LatencyHistogram[] histograms = {clickToPaint, revealToResolution, boardBuild, save};
+
+  final LongAdder flips = new LongAdder();
+  final LongAdder matches = new LongAdder();
+  final LongAdder mismatches = new LongAdder();
+  final LongAdder gamesStarted = new LongAdder();
+  final LongAdder gamesCompleted = new LongAdder();
+
+  private volatile TileBoard board;
+  /* click waiting for its paint, only touched on the EDT */
+  private int clickedIndex = -1;
+  private long clickedAt;
+  private boolean registered;
+
+  private GameMetrics() {
+  }
+
+  static GameMetrics shared() {
+    return SHARED;
+  }
+
+  /* publishes the MBeans on the platform MBean server, once. done off the EDT, JMX is slow to load */
+  synchronized void register() {
+    if (registered) {
+      return;
+    }
+    registered = true;
+    try {
+      MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+      server.registerMBean(this, new ObjectName("tileflip:type=Game"));
+      for (LatencyHistogram histogram : histograms) {
+        server.registerMBean(histogram, new ObjectName("tileflip:type=Latency,name=" + histogram.name()));
+      }
+    } catch (JMException e) {
+      e.printStackTrace();
+    }
+  }
+
+  /* the game-counters consumer of the event bus */
+  void onEvent(EventBus.Event event, boolean endOfBatch) {
+    switch (event.type()) {
+      case GAME_START -> gamesStarted.increment();
+      case GAME_END -> gamesCompleted.increment();
+      default -> {
+      }
+    }
+  }
+
+  /* the board the gauges look at */
+  void setBoard(TileBoard board) {
+    this.board = board;
+  }
+
+  /* EDT only, see tilePainted() and boardPainted() */
+  void clicked(int index) {
+    clickedIndex = index;
+    clickedAt = System.nanoTime();
+  }
+
+  /* a tile view finished painting, closes the pending click when it is that tile. EDT only */
+  void tilePainted(int index) {
+    if (index == clickedIndex) {
+      boardPainted();
+    }
+  }
+
+  /* a view that paints many tiles at once finished painting. EDT only */
+  void boardPainted() {
+    if (clickedIndex >= 0) {
+      clickToPaint.record(System.nanoTime() - clickedAt);
+      clickedIndex = -1;
+    }
+  }
+
+  @Override
+  public long getFlips() {
+    return flips.sum();
+  }
+
+  @Override
+  public long getMatches() {
+    return matches.sum();
+  }
+
+  @Override
+  public long getMismatches() {
+    return mismatches.sum();
+  }
+
+  @Override
+  public long getGamesStarted() {
+    return gamesStarted.sum();
+  }
+
+  @Override
+  public long getGamesCompleted() {
+    return gamesCompleted.sum();
+  }
+
+  @Override
+  public long getRemainingTiles() {
+    TileBoard current = board;
+    return current == null ? 0
+        : current.tileCount() - (long) current.clearedGroups() * current.identicalTilesToCancel();
+  }
+
+  @Override
+  public long getHeapBytesPerTile() {
+    TileBoard current = board;
+    if (current == null) {
+      return 0;
+    }
+    Runtime runtime = Runtime.getRuntime();
+    return (runtime.totalMemory() - runtime.freeMemory()) / current.tileCount();
+  }
+
+  @Override
+  public String exportSnapshot(String file) throws IOException {
+    Path path = Paths.get(file).toAbsolutePath();
+    Files.writeString(path, snapshot(), StandardCharsets.UTF_8);
+    return path.toString();
+  }
+
+  /* everything as one JSON object */
+  String snapshot() {
+    StringBuilder json = new StringBuilder("{\n");
+    json.append("  \"timestamp\": ").append(System.currentTimeMillis()).append(",\n");
+    json.append("  \"flips\": ").append(getFlips()).append(",\n");
+    json.append("  \"matches\": ").append(getMatches()).append(",\n");
+    json.append("  \"mismatches\": ").append(getMismatches()).append(",\n");
+    json.append("  \"gamesStarted\": ").append(getGamesStarted()).append(",\n");
+    json.append("  \"gamesCompleted\": ").append(getGamesCompleted()).append(",\n");
+    json.append("  \"remainingTiles\": ").append(getRemainingTiles()).append(",\n");
+    json.append("  \"heapBytesPerTile\": ").append(getHeapBytesPerTile()).append(",\n");
+    json.append("  \"latencyMicros\": {\n");
+    for (int i = 0; i < histograms.length; i++) {
+      LatencyHistogram histogram = histograms[i];
+      json.append(String.format(Locale.ROOT,
+          "    \"%s\": {\"count\": %d, \"mean\": %.1f, \"p50\": %.1f, \"p90\": %.1f, \"p99\": %.1f, "
+              + "\"p999\": %.1f, \"max\": %.1f}%s\n",
+          histogram.name(), histogram.getCount(), histogram.getMeanMicros(), histogram.getP50Micros(),
+          histogram.getP90Micros(), histogram.getP99Micros(), histogram.getP999Micros(),
+          histogram.getMaxMicros(), i + 1 < histograms.length ? "," : ""));
+    }
+    json.append("  }\n}\n");
+    return json.toString();
+  }
+}
@@ -0,0 +1,23 @@
+package tileflip;
+
+/* counters and gauges of the running game as JMX shows them */
+public interface GameMetricsMBean {
+  long getFlips();
+
+  long getMatches();
+
+  long getMismatches();
+
+  long getGamesStarted();
+
+  long getGamesCompleted();
+
+  /* tiles of the current board that are not cleared yet, 0 without a board */
+  long getRemainingTiles();
+
+  /* used heap divided by the tiles of the current board, 0 without a board */
+  long getHeapBytesPerTile();
+
+  /* writes every counter, gauge and histogram as JSON to the file, returns its absolute path */
+  String exportSnapshot(String file) throws java.io.IOException;
+}
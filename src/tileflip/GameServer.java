@@ -0,0 +1,456 @@
+package tileflip;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ * hosts many independent games over TCP, one game per connection.
+ * usage: java GameServer [port] [event loops]
+ *
+ * a few event loop threads each run a Selector over their share of the
+ * connections and one TimerWheel for the reveal timeouts of all their games,
+ * so there is no thread and no Timer per game.
+ *
+ * protocol, one ASCII line per message:
+ *   client: NEW <differentTiles> <identicalTilesToCancel> [seed]
+ *   server: OK <rows> <cols>
+ *   client: FLIP <index>
+ *   server: SELECTED|MATCHED|MISMATCHED <index> <symbol id>
+ *           COMPLETED <index> <symbol id> <flips>
+ *           IGNORED <index>
+ *   server: HIDDEN <index> <index> ... (a failed group was flipped back)
+ *   client: QUIT
+ *   server: ERR <message> for anything it does not understand
+ *
+ * a client that sends faster than it reads is not read from while more than
+ * OUT_HIGH_WATER bytes wait for it, and closed when its replies would take
+ * more than MAX_OUT bytes.
+ */
+public class GameServer {
+  static final int DEFAULT_PORT = 7300;
+  private static final int MAX_LINE = 256;
+  /* a board per connection, so far smaller than what one player may deal on their own machine */
+  private static final int MAX_TILES = 1_000_000;
+  /* a failed group is sent back as one HIDDEN line with an index per tile */
+  private static final int MAX_IDENTICAL = 10_000;
+  private static final int OUT_HIGH_WATER = 64 * 1024;
+  private static final int MAX_OUT = 4 * 1024 * 1024;
+  private static final long TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+
+  private final ServerSocketChannel server;
+  private final Selector acceptSelector;
+  private final EventLoop[] loops;
+  private final long revealDelayNanos;
+  private final AtomicInteger sessions = new AtomicInteger();
+  private volatile boolean running = true;
+  /* serve() was called or the server was stopped before it, either happens once */
+  private final AtomicBoolean started = new AtomicBoolean();
+
+  public GameServer(InetSocketAddress address, int loopCount, int revealDelayMillis) throws IOException {
+    this.revealDelayNanos = TimeUnit.MILLISECONDS.toNanos(revealDelayMillis);
+    this.server = ServerSocketChannel.open();
+    this.server.bind(address, 1024);
+    this.server.configureBlocking(false);
+    this.acceptSelector = Selector.open();
+    this.server.register(acceptSelector, SelectionKey.OP_ACCEPT);
+    this.loops = new EventLoop[loopCount];
+    for (int i = 0; i < loopCount; i++) {
+      loops[i] = new EventLoop(i);
+    }
+  }
+
+  public int port() {
+    return server.socket().getLocalPort();
+  }
+
+  public int sessionCount() {
+    return sessions.get();
+  }
+
+  /*
+   * starts the event loops and accepts connections on the calling thread
+   * until stop(). the listening channel and its selector are closed on the
+   * way out, every event loop closes its connections and its selector.
+   */
+  public void serve() throws IOException {
+    if (!started.compareAndSet(false, true)) {
+      if (!running) {
+        return; // stopped before it got here
+      }
+      throw new IllegalStateException("the server is already serving");
+    }
+    for (EventLoop loop : loops) {
+      loop.thread.start();
+    }
+    try {
+      int next = 0;
+      while (running) {
+        acceptSelector.select();
+        acceptSelector.selectedKeys().clear();
+        SocketChannel channel;
+        while ((channel = server.accept()) != null) {
+          channel.configureBlocking(false);
+          channel.socket().setTcpNoDelay(true);
+          loops[next].hand(channel);
+          next = (next + 1) % loops.length;
+        }
+      }
+    } finally {
+      closeQuietly(acceptSelector);
+      closeQuietly(server);
+    }
+  }
+
+  /* the threads of serve() close what they own, a server that never served is closed here */
+  public void stop() {
+    running = false;
+    if (started.compareAndSet(false, true)) {
+      closeQuietly(acceptSelector);
+      closeQuietly(server);
+      for (EventLoop loop : loops) {
+        closeQuietly(loop.selector);
+      }
+      return;
+    }
+    acceptSelector.wakeup();
+    for (EventLoop loop : loops) {
+      loop.selector.wakeup();
+    }
+  }
+
+  private static void closeQuietly(Closeable closeable) {
+    try {
+      closeable.close();
+    } catch (IOException e) {
+      // closing anyway
+    }
+  }
+
+  /* one selector thread with its own timer wheel */
+  private class EventLoop implements Runnable {
+    private final Selector selector;
+    private final TimerWheel wheel = new TimerWheel(TICK_NANOS, 1024, System.nanoTime());
+    private final ConcurrentLinkedQueue<SocketChannel> handed = new ConcurrentLinkedQueue<>();
+    private final Thread thread;
+
+    EventLoop(int id) throws IOException {
+      this.selector = Selector.open();
+      this.thread = new Thread(this, "game-server-loop-" + id);
+    }
+
+    void hand(SocketChannel channel) {
+      handed.add(channel);
+      selector.wakeup();
+    }
+
+    @Override
+    public void run() {
+      try {
+        while (running) {
+          long wait = wheel.nanosUntilNextTick(System.nanoTime());
+          if (wait == Long.MAX_VALUE) {
+            selector.select();
+          } else if (wait < TimeUnit.MILLISECONDS.toNanos(1)) {
+            selector.selectNow();
+          } else {
+            selector.select(TimeUnit.NANOSECONDS.toMillis(wait));
+          }
+          SocketChannel channel;
+          while ((channel = handed.poll()) != null) {
+            Session session = new Session(this, channel);
+            session.key = channel.register(selector, SelectionKey.OP_READ, session);
+            sessions.incrementAndGet();
+          }
+          Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+          while (keys.hasNext()) {
+            SelectionKey key = keys.next();
+            keys.remove();
+            Session session = (Session) key.attachment();
+            try {
+              if (key.isReadable()) {
+                session.read();
+              }
+              if (key.isValid() && key.isWritable()) {
+                session.flush();
+              }
+            } catch (IOException e) {
+              session.close();
+            }
+          }
+          wheel.advance(System.nanoTime());
+        }
+      } catch (IOException e) {
+        e.printStackTrace();
+      } finally {
+        closeAll();
+      }
+    }
+
+    /* the server is stopping: every connection of this loop, then the selector */
+    private void closeAll() {
+      for (SelectionKey key : selector.keys()) {
+        ((Session) key.attachment()).close();
+      }
+      SocketChannel channel;
+      while ((channel = handed.poll()) != null) {
+        closeQuietly(channel);
+      }
+      closeQuietly(selector);
+    }
+  }
+
+  /* one connection playing one board */
+  private class Session {
+    private final EventLoop loop;
+    private final SocketChannel channel;
+    private SelectionKey key;
+    private final ByteBuffer in = ByteBuffer.allocate(MAX_LINE);
+    private int cursor; // parse position inside the current line of in
+    private int end;
+    private ByteBuffer out = ByteBuffer.allocate(512);
+    private TileBoard board;
+    private final TimerWheel.Timeout reveal = new TimerWheel.Timeout() {
+      @Override
+      protected void expired() {
+        endReveal();
+      }
+    };
+
+    Session(EventLoop loop, SocketChannel channel) {
+      this.loop = loop;
+      this.channel = channel;
+    }
+
+    void read() throws IOException {
+      int n = channel.read(in);
+      if (n < 0) {
+        close();
+        return;
+      }
+      in.flip();
+      int lineStart = 0;
+      for (int i = in.position(); i < in.limit() && channel.isOpen(); i++) {
+        if (in.get(i) == '\n') {
+          handle(lineStart, i);
+          lineStart = i + 1;
+        }
+      }
+      in.position(lineStart);
+      in.compact();
+      if (!in.hasRemaining()) {
+        reply("ERR line too long");
+        in.clear();
+      }
+      flush();
+    }
+
+    /* parses one command between from (inclusive) and to (exclusive) without allocating */
+    private void handle(int from, int to) {
+      cursor = from;
+      end = to;
+      try {
+        if (word("FLIP")) {
+          flip((int) number());
+        } else if (word("NEW")) {
+          int differentTiles = (int) number();
+          int identical = (int) number();
+          newGame(differentTiles, identical, hasMore() ? number() : System.nanoTime());
+        } else if (word("QUIT")) {
+          close();
+        } else {
+          reply("ERR unknown command");
+        }
+      } catch (RuntimeException e) {
+        reply("ERR bad arguments");
+      }
+    }
+
+    private boolean word(String word) {
+      skipSpaces();
+      if (end - cursor < word.length()) {
+        return false;
+      }
+      for (int i = 0; i < word.length(); i++) {
+        if (in.get(cursor + i) != word.charAt(i)) {
+          return false;
+        }
+      }
+      cursor += word.length();
+      return true;
+    }
+
+    private boolean hasMore() {
+      skipSpaces();
+      return cursor < end;
+    }
+
+    private long number() {
+      skipSpaces();
+      boolean negative = cursor < end && in.get(cursor) == '-';
+      if (negative) {
+        cursor++;
+      }
+      int start = cursor;
+      long value = 0;
+      while (cursor < end && in.get(cursor) >= '0' && in.get(cursor) <= '9') {
+        value = value * 10 + (in.get(cursor++) - '0');
+      }
+      if (cursor == start || cursor - start > 18) {
+        throw new IllegalArgumentException("not a number");
+      }
+      return negative ? -value : value;
+    }
+
+    private void skipSpaces() {
+      while (cursor < end && (in.get(cursor) == ' ' || in.get(cursor) == '\r')) {
+        cursor++;
+      }
+    }
+
+    private void newGame(int differentTiles, int identical, long seed) {
+      if (identical > MAX_IDENTICAL) {
+        reply("ERR too many identical tiles, at most " + MAX_IDENTICAL);
+        return;
+      }
+      if ((long) differentTiles * identical > MAX_TILES) {
+        reply("ERR too many tiles, at most " + MAX_TILES);
+        return;
+      }
+      loop.wheel.cancel(reveal);
+      board = new TileBoard(differentTiles, identical, seed);
+      putAscii("OK ").putNumber(board.rows()).putAscii(" ").putNumber(board.cols()).putAscii("\n");
+    }
+
+    private void flip(int index) {
+      if (board == null) {
+        reply("ERR no game, send NEW first");
+        return;
+      }
+      TileBoard.Outcome outcome = board.flip(index);
+      putAscii(outcome.name()).putAscii(" ").putNumber(index);
+      if (outcome != TileBoard.Outcome.IGNORED) {
+        putAscii(" ").putNumber(board.symbolAt(index));
+      }
+      if (outcome == TileBoard.Outcome.COMPLETED) {
+        putAscii(" ").putNumber(board.flipCount());
+      }
+      putAscii("\n");
+      if (outcome == TileBoard.Outcome.MISMATCHED) {
+        loop.wheel.schedule(reveal, revealDelayNanos, System.nanoTime());
+      }
+    }
+
+    private void endReveal() {
+      board.flipBack();
+      putAscii("HIDDEN");
+      for (int i = 0; i < board.resolvedCount(); i++) {
+        putAscii(" ").putNumber(board.resolvedAt(i));
+      }
+      putAscii("\n");
+      try {
+        flush();
+      } catch (IOException e) {
+        close();
+      }
+    }
+
+    private void reply(String line) {
+      putAscii(line).putAscii("\n");
+    }
+
+    private Session putAscii(String text) {
+      ensure(text.length());
+      for (int i = 0; i < text.length(); i++) {
+        out.put((byte) text.charAt(i));
+      }
+      return this;
+    }
+
+    /* decimal digits straight into the buffer, no String per number */
+    private Session putNumber(long value) {
+      ensure(20);
+      if (value < 0) {
+        out.put((byte) '-');
+        value = -value;
+      }
+      int start = out.position();
+      do {
+        out.put((byte) ('0' + value % 10));
+        value /= 10;
+      } while (value > 0);
+      for (int i = start, j = out.position() - 1; i < j; i++, j--) {
+        byte tmp = out.get(i);
+        out.put(i, out.get(j));
+        out.put(j, tmp);
+      }
+      return this;
+    }
+
+    /* a client that does not read its replies is dropped, the buffer is emptied for the writes still coming */
+    private void ensure(int bytes) {
+      if (out.remaining() < bytes && out.position() + bytes > MAX_OUT) {
+        close();
+        out.clear();
+        return;
+      }
+      if (out.remaining() < bytes) {
+        ByteBuffer bigger = ByteBuffer.allocate(Math.max(out.capacity() * 2, out.position() + bytes));
+        out.flip();
+        bigger.put(out);
+        out = bigger;
+      }
+    }
+
+    /* writes as much as the socket takes, waits for OP_WRITE for the rest */
+    void flush() throws IOException {
+      if (!channel.isOpen()) {
+        return;
+      }
+      out.flip();
+      channel.write(out);
+      boolean pending = out.hasRemaining();
+      out.compact();
+      /* no more commands while too much is waiting, reading resumes once the socket took it */
+      boolean backlog = out.position() > OUT_HIGH_WATER;
+      if (key != null && key.isValid()) {
+        key.interestOps((backlog ? 0 : SelectionKey.OP_READ) | (pending ? SelectionKey.OP_WRITE : 0));
+      }
+    }
+
+    void close() {
+      loop.wheel.cancel(reveal);
+      if (key != null) {
+        key.cancel();
+      }
+      try {
+        if (channel.isOpen()) {
+          channel.close();
+          sessions.decrementAndGet();
+        }
+      } catch (IOException e) {
+        // already gone
+      }
+    }
+  }
+
+  public static void main(String[] args) throws IOException {
+    System.setProperty("java.awt.headless", "true");
+    int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+    int loops = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+    GameServer server = new GameServer(new InetSocketAddress("127.0.0.1", port), loops,
+        Integer.getInteger("tileflip.revealDelay", 500));
+    System.out.println("Tile Flipping Game server on port " + server.port() + " with " + loops + " event loops");
+    server.serve();
+  }
+}
@@ -0,0 +1,249 @@
+package tileflip;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import javax.swing.SwingUtilities;
+
+/*
+ * one game apart from its window: the replay journal, the snapshot on disk,
+ * the score and the events of its start, its flips and its end.
+ * TileFlippingGame shows the board and tells the session what happened on it.
+ * every method runs on the EDT.
+ *
+ * a dealt game is recorded (journal and snapshot), a resumed one carries on
+ * with its snapshot, a replay or a training run leaves nothing on disk.
+ */
+final class GameSession {
+  private static final ExecutorService SNAPSHOT_FILES = Executors.newSingleThreadExecutor(r -> {
+    Thread thread = new Thread(r, "snapshot-writer");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  private final TileBoard board;
+  private final ReplayJournal journal; // the flips of this game, saved when it is won, null when not recorded
+  private final boolean recorded; // gets a snapshot on disk when it starts
+  private final long resumedNanos; // play time of a resumed game before this run
+  /* to show the time at the end of a game */
+  private long startTime;
+  private BoardSnapshot snapshot; // the running game on disk, null until it is written
+  /* the snapshot being written for this game, completed with null when there is none */
+  private CompletableFuture<BoardSnapshot> pendingSnapshot = CompletableFuture.completedFuture(null);
+  private boolean over; // finished or closed, a snapshot arriving late is not attached
+  private Thread journalSaver;
+  private CompletableFuture<Void> stored = CompletableFuture.completedFuture(null);
+
+  private GameSession(TileBoard board, ReplayJournal journal, boolean recorded, long resumedNanos) {
+    this.board = board;
+    this.journal = journal;
+    this.recorded = recorded;
+    this.resumedNanos = resumedNanos;
+  }
+
+  /* a new board the player plays: its flips are journaled and it is saved to be resumed */
+  static GameSession dealt(BoardPool.Dealt dealt) {
+    TileBoard board = dealt.board();
+    return new GameSession(board, new ReplayJournal(dealt.generator(), dealt.seed(), board.differentTiles(),
+        board.identicalTilesToCancel()), true, 0);
+  }
+
+  /*
+   * the saved game carried on. it keeps its play time but gets no replay
+   * journal, the flips before the restart are not known.
+   */
+  static GameSession resumed(BoardSnapshot saved) {
+    GameSession session = new GameSession(saved.board(), null, false, saved.elapsedNanos());
+    session.snapshot = saved;
+    session.pendingSnapshot = CompletableFuture.completedFuture(saved);
+    return session;
+  }
+
+  /* a replay or a training run: events and metrics, but nothing on disk */
+  static GameSession unrecorded(TileBoard board) {
+    return new GameSession(board, null, false, 0);
+  }
+
+  TileBoard board() {
+    return board;
+  }
+
+  /* every tile is in place: the clock starts, buildStartTime is when the board was asked for */
+  void start(long buildStartTime) {
+    long now = System.nanoTime();
+    this.startTime = now - resumedNanos;
+    GameMetrics metrics = GameMetrics.shared();
+    metrics.boardBuild.record(now - buildStartTime);
+    metrics.setBoard(board);
+    startEventConsumers();
+    EventBus.shared().publish(EventBus.Type.GAME_START, board, -1, 0, 0);
+    GameEvents.GameStart event = new GameEvents.GameStart();
+    event.board(board);
+    event.commit();
+    PlayerData.refreshLeaderboard(); // the scores of the other screens, ready by the end of this game
+    if (journal != null) {
+      journal.start(startTime);
+    }
+    if (snapshot != null) {
+      snapshot.started(startTime);
+      snapshot.startAutosave();
+    } else if (recorded) {
+      writeSnapshot();
+    }
+  }
+
+  long elapsedMillis() {
+    return (System.nanoTime() - startTime) / 1_000_000;
+  }
+
+  /*
+   * a snapshot of the new board is written on the snapshot thread, so a big
+   * board is playable before its file exists. flips made meanwhile are copied
+   * over when it is attached. all snapshot files are created and finished on
+   * that one thread, in the order the games asked for it.
+   */
+  private void writeSnapshot() {
+    pendingSnapshot = CompletableFuture.supplyAsync(() -> BoardSnapshot.createOrNull(BoardSnapshot.FILE, board),
+        SNAPSHOT_FILES);
+    pendingSnapshot.thenAccept(created -> SwingUtilities.invokeLater(() -> {
+      if (created == null || over) {
+        return; // the game ended before its file was ready
+      }
+      created.writeAll();
+      snapshot = created;
+      snapshot.started(startTime);
+      snapshot.startAutosave();
+    }));
+  }
+
+  void tileChanged(int index) {
+    if (snapshot != null) {
+      snapshot.tileChanged(index);
+    }
+  }
+
+  void flipped(int index) {
+    EventBus.shared().publish(EventBus.Type.FLIP, board, index, board.flipCount(), 0);
+    if (journal != null) {
+      journal.recordFlip(index, System.nanoTime());
+    }
+    if (snapshot != null) {
+      snapshot.stateChanged();
+    }
+  }
+
+  void turnEnded(TileBoard.Outcome outcome) {
+    if (snapshot != null) {
+      snapshot.stateChanged();
+    }
+    if (outcome != TileBoard.Outcome.SELECTED) {
+      EventBus.shared().publish(outcome == TileBoard.Outcome.MISMATCHED ? EventBus.Type.MISMATCH : EventBus.Type.MATCH,
+          board, -1, board.flipCount(), 0);
+    }
+  }
+
+  /*
+   * the board is completed: the snapshot is finished, the journal saved and the
+   * score stored. returns the score with the leaderboard it ranks in, which is
+   * null while the history is still loading.
+   */
+  Finished finish() {
+    long totalTime = elapsedMillis();
+    int flipCount = board.flipCount();
+    over = true;
+    CompletableFuture<BoardSnapshot> written = pendingSnapshot;
+    SNAPSHOT_FILES.execute(() -> {
+      BoardSnapshot file = written.join();
+      if (file != null) {
+        file.finish(); // nothing left to resume
+      }
+    });
+    snapshot = null;
+    pendingSnapshot = CompletableFuture.completedFuture(null);
+    if (journal != null) {
+      journalSaver = saveJournal(journal);
+    }
+    GameEvents.GameEnd event = new GameEvents.GameEnd();
+    event.board(board);
+    event.flips = flipCount;
+    event.playTime = totalTime;
+    event.commit();
+    ScoreRecord score = new ScoreRecord(System.currentTimeMillis(), totalTime, flipCount,
+        board.identicalTilesToCancel(), board.differentTiles());
+    /* stored directly, the bus may drop events and only feeds what can do without some */
+    stored = PlayerData.store(score);
+    Leaderboard leaderboard = PlayerData.rank(score);
+    EventBus.shared().publish(EventBus.Type.GAME_END, board, -1, flipCount, totalTime);
+    return new Finished(score, leaderboard);
+  }
+
+  record Finished(ScoreRecord score, Leaderboard leaderboard) {
+  }
+
+  /* before System.exit, which waits neither for the journal nor for the score on its way to the store */
+  void awaitSaved() {
+    try {
+      if (journalSaver != null) {
+        journalSaver.join();
+      }
+      stored.get(2, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (ExecutionException | TimeoutException e) {
+      e.printStackTrace();
+    }
+  }
+
+  /* the window is closing, the board stays on disk to be resumed */
+  void close() {
+    over = true;
+    if (snapshot != null) {
+      snapshot.close();
+    }
+  }
+
+  /* writes the journal of a won game into the replays directory on its own thread */
+  private static Thread saveJournal(ReplayJournal finished) {
+    Thread saver = new Thread(() -> {
+      try {
+        finished.save(finished.defaultPath(System.currentTimeMillis()));
+      } catch (IOException e) {
+        e.printStackTrace();
+      }
+    }, "journal-writer");
+    saver.start();
+    return saver;
+  }
+
+  private static boolean loadersStarted;
+  private static boolean consumersStarted;
+
+  /* what happens besides the game and may miss an event: the game counters, started once */
+  private static synchronized void startEventConsumers() {
+    if (consumersStarted) {
+      return;
+    }
+    consumersStarted = true;
+    EventBus.shared().subscribe("game-counters", GameMetrics.shared()::onEvent);
+  }
+
+  /* the score history and the difficulty table, each on its own daemon thread, started once */
+  static synchronized void startBackgroundLoaders() {
+    if (loadersStarted) {
+      return;
+    }
+    loadersStarted = true;
+    PlayerData.loadLeaderboard();
+    /* the difficulty table is built once on a low priority worker if it is missing, then read from disk */
+    Thread estimator = new Thread(DifficultyTable::shared, "difficulty-table");
+    estimator.setDaemon(true);
+    estimator.start();
+    Thread metrics = new Thread(GameMetrics.shared()::register, "metrics-registration");
+    metrics.setDaemon(true);
+    metrics.start();
+  }
+}
@@ -0,0 +1,202 @@
+package tileflip;
+
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.swing.SwingUtilities;
+
+/*
+ * pre-rendered images of the tile symbols, keyed by symbol id.
+ * deriving a font and measuring the text for every tile on every paint is what
+ * made repaints of big flipped boards slow, so each symbol is drawn once per
+ * (symbol, tile size, screen scale) and afterwards only copied with drawImage.
+ * the label text itself is only built when a glyph has to be rendered.
+ *
+ * the least recently used glyphs are dropped once the images take more than
+ * the memory bound. used from the event dispatch thread only.
+ *
+ * with TileFaces the glyph of a symbol is its picture. the picture is decoded
+ * on the TileFaces pool, meanwhile the letter stands in for it, and when it
+ * arrives it replaces the letter and the face listener repaints.
+ */
+class GlyphCache {
+  private static final GlyphCache SHARED =
+      new GlyphCache(Long.getLong("tileflip.glyphCacheBytes", 32L * 1024 * 1024), TileFaces.shared());
+
+  private final long maxBytes;
+  private long bytes;
+  private final LinkedHashMap<Key, BufferedImage> glyphs = new LinkedHashMap<>(256, 0.75f, true);
+  private final TileFaces faces; // null: letters only
+  /* faces asked for and not arrived yet, decoders skip the ones removed meanwhile */
+  private final Set<Key> decoding = ConcurrentHashMap.newKeySet();
+  private Runnable faceListener = () -> {
+  };
+
+  /* symbol is ~symbol for the letter standing in while the face is decoded */
+  private record Key(int symbol, int size, float scale) {
+  }
+
+  public GlyphCache(long maxBytes) {
+    this(maxBytes, null);
+  }
+
+  GlyphCache(long maxBytes, TileFaces faces) {
+    this.maxBytes = maxBytes;
+    this.faces = faces;
+  }
+
+  /* one cache for every board of the process, bound set by -Dtileflip.glyphCacheBytes */
+  public static GlyphCache shared() {
+    return SHARED;
+  }
+
+  /*
+   * draws the symbol in the middle of the given tile rectangle, its height
+   * is half of the shorter tile side like the old per-tile font code.
+   */
+  public void drawCentered(Graphics g, int symbol, int x, int y, int width, int height) {
+    int size = Math.min(width, height);
+    if (size <= 0) {
+      return;
+    }
+    BufferedImage image = glyph(symbol, size, scaleOf(g));
+    g.drawImage(image, x + (width - size) / 2, y + (height - size) / 2, size, size, null);
+  }
+
+  /* called on the EDT whenever a face arrived, the views repaint there */
+  public void setFaceListener(Runnable faceListener) {
+    this.faceListener = faceListener;
+  }
+
+  /* a size x size (logical pixels) transparent image with the symbol drawn on it */
+  public BufferedImage glyph(int symbol, int size, double scale) {
+    Key key = new Key(symbol, size, (float) scale);
+    BufferedImage image = glyphs.get(key);
+    if (image != null) {
+      return image;
+    }
+    if (faces != null) {
+      if (decoding.add(key)) {
+        int pixels = Math.max(1, (int) Math.ceil(size * scale));
+        faces.decode(symbol, pixels, () -> decoding.contains(key)).whenComplete((face, error) ->
+            SwingUtilities.invokeLater(() -> faceDecoded(key, face, error)));
+      }
+      Key letter = new Key(~symbol, size, (float) scale);
+      image = glyphs.get(letter);
+      if (image == null) {
+        image = render(symbol, size, scale);
+        put(letter, image);
+      }
+      return image;
+    }
+    image = render(symbol, size, scale);
+    put(key, image);
+    return image;
+  }
+
+  /* on the EDT: the face replaces the letter, a symbol without a face keeps its letter for good */
+  private void faceDecoded(Key key, BufferedImage face, Throwable error) {
+    if (!decoding.remove(key)) {
+      return; // that size is not wanted any more
+    }
+    if (error != null) {
+      error.printStackTrace();
+    }
+    Key letter = new Key(~key.symbol(), key.size(), key.scale());
+    BufferedImage placeholder = glyphs.remove(letter);
+    if (placeholder != null) {
+      bytes -= bytesOf(placeholder);
+    }
+    BufferedImage image = face != null ? face : placeholder;
+    if (image == null) {
+      return; // evicted meanwhile, rendered again when it is drawn
+    }
+    put(key, image);
+    if (face != null) {
+      faceListener.run();
+    }
+  }
+
+  private void put(Key key, BufferedImage image) {
+    BufferedImage old = glyphs.put(key, image);
+    if (old != null) {
+      bytes -= bytesOf(old);
+    }
+    bytes += bytesOf(image);
+    evict();
+  }
+
+  /* the tiles changed size, glyphs for any other size are useless now */
+  public void retainSizes(int minSize, int maxSize) {
+    decoding.removeIf(key -> key.size() < minSize || key.size() > maxSize);
+    Iterator<Map.Entry<Key, BufferedImage>> it = glyphs.entrySet().iterator();
+    while (it.hasNext()) {
+      Map.Entry<Key, BufferedImage> entry = it.next();
+      int size = entry.getKey().size();
+      if (size < minSize || size > maxSize) {
+        bytes -= bytesOf(entry.getValue());
+        it.remove();
+      }
+    }
+  }
+
+  public void clear() {
+    decoding.clear();
+    glyphs.clear();
+    bytes = 0;
+  }
+
+  public long bytes() {
+    return bytes;
+  }
+
+  public int size() {
+    return glyphs.size();
+  }
+
+  /* drop least recently used glyphs until the bound holds again */
+  private void evict() {
+    Iterator<BufferedImage> it = glyphs.values().iterator();
+    while (bytes > maxBytes && glyphs.size() > 1 && it.hasNext()) {
+      bytes -= bytesOf(it.next());
+      it.remove();
+    }
+  }
+
+  /* HiDPI screens paint through a scaled transform, render for device pixels */
+  static double scaleOf(Graphics g) {
+    if (g instanceof Graphics2D) {
+      AffineTransform transform = ((Graphics2D) g).getTransform();
+      return Math.max(1, transform.getScaleX());
+    }
+    return 1;
+  }
+
+  private static BufferedImage render(int symbol, int size, double scale) {
+    String label = SymbolLabels.label(symbol);
+    int pixels = Math.max(1, (int) Math.ceil(size * scale));
+    BufferedImage image = new BufferedImage(pixels, pixels, BufferedImage.TYPE_INT_ARGB);
+    Graphics2D g = image.createGraphics();
+    try {
+      g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+      g.setFont(new Font("Arial", Font.BOLD, Math.max(1, pixels / 2)));
+      g.setColor(Color.BLACK);
+      FontMetrics fm = g.getFontMetrics();
+      int textWidth = fm.stringWidth(label);
+      int textHeight = fm.getAscent();
+      g.drawString(label, (pixels - textWidth) / 2, (pixels + textHeight) / 2 - fm.getDescent());
+    } finally {
+      g.dispose();
+    }
+    return image;
+  }
+
+  private static long bytesOf(BufferedImage image) {
+    return 4L * image.getWidth() * image.getHeight();
+  }
+}
@@ -0,0 +1,49 @@
+package tileflip;
+
+import java.time.Instant;
+
+/*
+ * how long a launch takes until the window shows something (first frame) and
+ * until the board takes clicks (interactive), counted from the start of the
+ * process so JVM startup and class loading are included. each moment is
+ * recorded once and both are printed when the game is interactive.
+ */
+final class LaunchTimer {
+  private static final long processStartMillis = ProcessHandle.current().info().startInstant()
+      .map(Instant::toEpochMilli).orElse(System.currentTimeMillis());
+  private static long firstFrameMillis = -1;
+  private static long interactiveMillis = -1;
+
+  private LaunchTimer() {
+  }
+
+  /* call from paint code, only the first call counts. EDT only */
+  static void firstFrame() {
+    if (firstFrameMillis < 0) {
+      firstFrameMillis = sinceStart();
+    }
+  }
+
+  /* call when clicks reach the board, only the first call counts. EDT only */
+  static void interactive() {
+    if (interactiveMillis >= 0) {
+      return;
+    }
+    interactiveMillis = sinceStart();
+    firstFrame(); // a board can be ready before anything was painted
+    System.out.println("time to first frame " + firstFrameMillis + " ms, time to interactive "
+        + interactiveMillis + " ms");
+  }
+
+  static long firstFrameMillis() {
+    return firstFrameMillis;
+  }
+
+  static long interactiveMillis() {
+    return interactiveMillis;
+  }
+
+  private static long sinceStart() {
+    return System.currentTimeMillis() - processStartMillis;
+  }
+}
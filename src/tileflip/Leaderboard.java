@@ -0,0 +1,97 @@
+package tileflip;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * finished games ranked by time spent, separately for every difficulty
+ * (set number x set size). rank, top-K and percentile questions are answered
+ * in O(log n) from a RankTree instead of sorting the whole history each time.
+ * scores without a time (imported from the old text file) are not ranked.
+ */
+class Leaderboard {
+  private final Map<Long, RankTree> byDifficulty = new HashMap<>();
+
+  /* builds the index from the whole history, one bulk build per difficulty */
+  public static Leaderboard of(List<ScoreRecord> history) {
+    Map<Long, Times> times = new HashMap<>();
+    for (ScoreRecord record : history) {
+      if (isRanked(record)) {
+        times.computeIfAbsent(key(record.setNumber(), record.setSize()), k -> new Times()).add(record.elapsedMillis());
+      }
+    }
+    Leaderboard leaderboard = new Leaderboard();
+    for (Map.Entry<Long, Times> entry : times.entrySet()) {
+      leaderboard.byDifficulty.put(entry.getKey(), RankTree.of(entry.getValue().values, entry.getValue().size));
+    }
+    return leaderboard;
+  }
+
+  /* growable list of primitive times, only used while building */
+  private static class Times {
+    private long[] values = new long[16];
+    private int size;
+
+    private void add(long value) {
+      if (size == values.length) {
+        values = Arrays.copyOf(values, size * 2);
+      }
+      values[size++] = value;
+    }
+  }
+
+  /* a game just ended */
+  public synchronized void add(ScoreRecord record) {
+    if (isRanked(record)) {
+      byDifficulty.computeIfAbsent(key(record.setNumber(), record.setSize()), k -> new RankTree())
+          .insert(record.elapsedMillis());
+    }
+  }
+
+  /* number of ranked games played at this difficulty */
+  public synchronized int count(int setNumber, int setSize) {
+    RankTree tree = byDifficulty.get(key(setNumber, setSize));
+    return tree == null ? 0 : tree.size();
+  }
+
+  /* place a game with this time gets, 1 = fastest. ties share the better place */
+  public synchronized int rank(int setNumber, int setSize, long elapsedMillis) {
+    RankTree tree = byDifficulty.get(key(setNumber, setSize));
+    return tree == null ? 1 : tree.countLess(elapsedMillis) + 1;
+  }
+
+  /* "top 3%": share of the games at this difficulty that were not faster, in percent */
+  public synchronized double topPercent(int setNumber, int setSize, long elapsedMillis) {
+    RankTree tree = byDifficulty.get(key(setNumber, setSize));
+    if (tree == null || tree.size() == 0) {
+      return 100;
+    }
+    return 100.0 * rank(setNumber, setSize, elapsedMillis) / tree.size();
+  }
+
+  /* time needed to be in the given percentile, e.g. 50 for the median */
+  public synchronized long percentile(int setNumber, int setSize, double percent) {
+    RankTree tree = byDifficulty.get(key(setNumber, setSize));
+    if (tree == null || tree.size() == 0) {
+      return -1;
+    }
+    int k = (int) Math.ceil(percent / 100 * tree.size()) - 1;
+    return tree.select(Math.max(0, Math.min(tree.size() - 1, k)));
+  }
+
+  /* the k fastest times, fastest first */
+  public synchronized long[] top(int setNumber, int setSize, int k) {
+    RankTree tree = byDifficulty.get(key(setNumber, setSize));
+    return tree == null ? new long[0] : tree.smallest(k);
+  }
+
+  private static boolean isRanked(ScoreRecord record) {
+    return record.elapsedMillis() >= 0 && record.setSize() > 0 && record.setNumber() > 0;
+  }
+
+  private static long key(int setNumber, int setSize) {
+    return ((long) setNumber << 32) | (setSize & 0xFFFFFFFFL);
+  }
+}
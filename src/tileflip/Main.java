@@ -0,0 +1,65 @@
+package tileflip;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Locale;
+
+/*
+ * usage: java tileflip.Main                                        the game with introduction and settings
+ *        java tileflip.Main --play <differentTiles> <identical>    straight into a board, for kiosks
+ *        java tileflip.Main --train <differentTiles> <identical>   --play until the board is playable, then exits
+ *        java tileflip.Main --replay <journal> [speed]            shows a recorded game, see ReplayJournal
+ *        java tileflip.Main --server [port] [event loops]          see GameServer
+ *        java tileflip.Main --terminal <differentTiles> <identical> [seed]   in a terminal, see TerminalGame
+ */
+public class Main {
+  public static void main(String[] args) throws IOException {
+    if (args.length > 0 && args[0].equals("--server")) {
+      GameServer.main(Arrays.copyOfRange(args, 1, args.length));
+      return;
+    }
+    Locale.setDefault(Locale.ENGLISH); // show all text in english
+    if (args.length > 0 && args[0].equals("--terminal")) {
+      TileBoard board;
+      try {
+        board = TerminalGame.newBoard(Arrays.copyOfRange(args, 1, args.length));
+      } catch (IndexOutOfBoundsException | IllegalArgumentException e) {
+        System.err.println("usage: java tileflip.Main --terminal <differentTiles> <identicalTilesToCancel> [seed]");
+        System.exit(2);
+        return;
+      }
+      TerminalGame.run(board); // a failure while playing is not a usage error
+      return;
+    }
+    if (args.length > 0 && args[0].equals("--play")) {
+      try {
+        TileFlippingGame.quickStart(Integer.parseInt(args[1]), Integer.parseInt(args[2]));
+      } catch (IndexOutOfBoundsException | IllegalArgumentException e) {
+        System.err.println("usage: java tileflip.Main --play <differentTiles> <identicalTilesToCancel>");
+        System.exit(2);
+      }
+      return;
+    }
+    if (args.length > 0 && args[0].equals("--train")) {
+      try {
+        TileFlippingGame.trainingStart(Integer.parseInt(args[1]), Integer.parseInt(args[2]));
+      } catch (IndexOutOfBoundsException | IllegalArgumentException e) {
+        System.err.println("usage: java tileflip.Main --train <differentTiles> <identicalTilesToCancel>");
+        System.exit(2);
+      }
+      return;
+    }
+    if (args.length > 0 && args[0].equals("--replay")) {
+      try {
+        ReplayJournal journal = ReplayJournal.read(Paths.get(args[1]));
+        TileFlippingGame.replayStart(journal, args.length > 2 ? Double.parseDouble(args[2]) : 1);
+      } catch (IndexOutOfBoundsException | IllegalArgumentException e) {
+        System.err.println("usage: java tileflip.Main --replay <journal.tfr> [speed]");
+        System.exit(2);
+      }
+      return;
+    }
+    TileFlippingGame.gameStart();
+  }
+}
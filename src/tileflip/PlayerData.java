@@ -0,0 +1,202 @@
+package tileflip;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+/*
+ * the scores of the player at this screen, kept in a ProfileStore that other
+ * game processes may share. the leaderboard ranks against every player: it is
+ * built from the whole store once, then refreshed at the start of every game
+ * with the new scores of the profiles whose size or time changed.
+ */
+class PlayerData {
+
+  private static final ProfileStore STORE = ProfileStore.withSystemSettings();
+  private static final String PLAYER = ProfileStore.currentPlayer();
+  /* the files of older versions in the working directory, imported once into the first profile opened */
+  private static final Path LEGACY_LOG = Paths.get("player_data.bin");
+  private static final Path LEGACY_FILE = Paths.get("player_data.txt");
+  /* opening the log may import the old files, never on the EDT */
+  private static final ExecutorService STORES = Executors.newSingleThreadExecutor(r -> {
+    Thread thread = new Thread(r, "score-store");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  /* touched on the score-store thread only */
+  private static ScoreWriter writer;
+  private static final AtomicReference<CompletableFuture<Leaderboard>> leaderboard = new AtomicReference<>();
+  /* scores ranked before the leaderboard was loaded, added once it is */
+  private static final List<ScoreRecord> unranked = new ArrayList<>();
+  /* every profile as it was when it was read last, used by the loader and then by the score-store thread */
+  private static final Map<Path, Seen> seen = new HashMap<>();
+
+  private record Seen(long size, long modifiedMillis, int scores) {
+  }
+
+  /*
+   * the log stays open for the whole run instead of reopening a file per score,
+   * it is written by a background thread so the game never waits for the disk.
+   * opening may wait for the file locks of other processes, so this runs on the
+   * score-store thread only and holds no lock anybody else could wait for.
+   */
+  private static ScoreWriter writer() throws IOException {
+    if (writer == null) {
+      ScoreLog log = STORE.open(PLAYER);
+      if (Files.exists(LEGACY_LOG) || Files.exists(LEGACY_FILE)) {
+        STORE.importLegacy(log, LEGACY_LOG, LEGACY_FILE);
+      }
+      writer = ScoreWriter.withSystemSettings(log);
+    }
+    return writer;
+  }
+
+  /* returns at once, the score reaches the disk shortly after (or at exit) */
+  public static CompletableFuture<Void> saveScore(ScoreRecord score) {
+    rank(score);
+    return store(score);
+  }
+
+  /*
+   * adds the score to the leaderboard and returns it, never waits for the
+   * history to load: null while it is loading, the score joins it then.
+   */
+  static Leaderboard rank(ScoreRecord score) {
+    CompletableFuture<Leaderboard> loading = loadLeaderboard();
+    synchronized (unranked) {
+      if (!loading.isDone()) {
+        unranked.add(score);
+        return null;
+      }
+    }
+    Leaderboard ranked = loading.join();
+    ranked.add(score);
+    return ranked;
+  }
+
+  /*
+   * hands the score to the writer on the score-store thread. completes once it
+   * is queued there, from then on the writer's shutdown hook keeps it, so a
+   * caller about to exit waits for this.
+   */
+  static CompletableFuture<Void> store(ScoreRecord score) {
+    return CompletableFuture.runAsync(() -> {
+      try {
+        writer().enqueue(score);
+      } catch (IOException | IllegalStateException e) {
+        e.printStackTrace();
+      }
+    }, STORES);
+  }
+
+  /* the scores of every player, noting how far each profile was read. waits for the disk, never on the EDT */
+  public static List<ScoreRecord> loadScores() {
+    List<ScoreRecord> scores = new ArrayList<>();
+    try {
+      /* creates the profile and imports the old files if needed */
+      CompletableFuture.runAsync(() -> {
+        try {
+          writer();
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      }, STORES).join();
+      for (Path profile : STORE.profiles()) {
+        read(profile, 0, scores);
+      }
+    } catch (IOException | CompletionException e) {
+      e.printStackTrace();
+    }
+    return scores;
+  }
+
+  /*
+   * the size and time are taken before the scores, a profile that grows
+   * meanwhile is simply read again next time. returns the number of scores.
+   */
+  private static int read(Path profile, int from, List<ScoreRecord> into) throws IOException {
+    long size = Files.size(profile);
+    long modified = Files.getLastModifiedTime(profile).toMillis();
+    List<ScoreRecord> records = ScoreLog.read(profile);
+    into.addAll(records.subList(Math.min(from, records.size()), records.size()));
+    seen.put(profile, new Seen(size, modified, records.size()));
+    return records.size();
+  }
+
+  /*
+   * adds the scores other processes appended since the profiles were read,
+   * in the background. the own profile is skipped, its scores were ranked
+   * as they were played.
+   */
+  public static void refreshLeaderboard() {
+    loadLeaderboard().thenAcceptAsync(PlayerData::refresh, STORES);
+  }
+
+  private static void refresh(Leaderboard ranked) {
+    Path own = STORE.pathOf(PLAYER);
+    List<ScoreRecord> added = new ArrayList<>();
+    try {
+      for (Path profile : STORE.profiles()) {
+        Seen before = seen.get(profile);
+        if (profile.equals(own) || before != null && before.size() == Files.size(profile)
+            && before.modifiedMillis() == Files.getLastModifiedTime(profile).toMillis()) {
+          continue;
+        }
+        read(profile, before == null ? 0 : before.scores(), added);
+      }
+    } catch (IOException e) {
+      e.printStackTrace(); // the ones read so far still count
+    }
+    for (ScoreRecord score : added) {
+      ranked.add(score);
+    }
+  }
+
+  /*
+   * starts building the leaderboard from the whole history on a daemon
+   * thread, once. afterwards it is updated with every ranked score.
+   * takes no lock, the EDT calls it at the start and the end of every game.
+   */
+  public static CompletableFuture<Leaderboard> loadLeaderboard() {
+    CompletableFuture<Leaderboard> loaded = leaderboard.get();
+    if (loaded != null) {
+      return loaded;
+    }
+    CompletableFuture<Leaderboard> loading = new CompletableFuture<>();
+    if (!leaderboard.compareAndSet(null, loading)) {
+      return leaderboard.get(); // another thread started it
+    }
+    Thread loader = new Thread(() -> buildLeaderboard(loading), "leaderboard-loader");
+    loader.setDaemon(true);
+    loader.start();
+    return loading;
+  }
+
+  /*
+   * scores ranked meanwhile are added unless the history already holds them,
+   * the writer may have put them on the disk before it was read.
+   */
+  private static void buildLeaderboard(CompletableFuture<Leaderboard> loading) {
+    List<ScoreRecord> history = loadScores();
+    Leaderboard built = Leaderboard.of(history);
+    synchronized (unranked) {
+      for (ScoreRecord score : unranked) {
+        if (!history.contains(score)) {
+          built.add(score);
+        }
+      }
+      unranked.clear();
+      loading.complete(built); // under the lock, so rank() never parks a score after this
+    }
+  }
+}
@@ -0,0 +1,164 @@
+package tileflip;
+
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/*
+ * the score history of every player in a data directory that several game
+ * processes share (one JVM per screen on a multi-seat machine).
+ * usage: java tileflip.ProfileStore dataDir [player scores]   (appends scores, then lists the profiles)
+ *
+ * every player has a ScoreLog of their own, the logs are spread over SHARDS
+ * subdirectories by a hash of the name so that no directory gets huge:
+ *   dataDir/profiles/<shard>/<url encoded name>.bin
+ * appending locks only that player's file, so different players never wait
+ * for each other, and reading takes no lock at all.
+ *
+ * the other files of a player sit next to the log (the saved game as
+ * <name>.snapshot) or in a directory of their own (dataDir/replays/<name>),
+ * files of all players directly in dataDir (the difficulty table).
+ */
+final class ProfileStore {
+  private static final int SHARDS = 64;
+  private static final String SUFFIX = ".bin";
+
+  private final Path dataDir;
+  private final Path root;
+
+  ProfileStore(Path dataDir) {
+    this.dataDir = dataDir;
+    this.root = dataDir.resolve("profiles");
+  }
+
+  /* -Dtileflip.dataDir, the working directory by default */
+  static ProfileStore withSystemSettings() {
+    return new ProfileStore(Paths.get(System.getProperty("tileflip.dataDir", ".")));
+  }
+
+  /* -Dtileflip.player, the name of the logged in user by default */
+  static String currentPlayer() {
+    return System.getProperty("tileflip.player", System.getProperty("user.name", "player"));
+  }
+
+  Path pathOf(String player) {
+    return fileOf(player, SUFFIX);
+  }
+
+  /* a file of the player next to their log, the directory may not exist yet */
+  Path fileOf(String player, String suffix) {
+    CRC32 hash = new CRC32();
+    hash.update(player.getBytes(StandardCharsets.UTF_8));
+    String shard = String.format("%02x", hash.getValue() % SHARDS);
+    return root.resolve(shard).resolve(URLEncoder.encode(player, StandardCharsets.UTF_8) + suffix);
+  }
+
+  /* a directory of the player's own under dataDir/<kind> */
+  Path directoryOf(String player, String kind) {
+    return dataDir.resolve(kind).resolve(URLEncoder.encode(player, StandardCharsets.UTF_8));
+  }
+
+  /* a file of all players */
+  Path sharedFile(String name) {
+    return dataDir.resolve(name);
+  }
+
+  /* the player's log for appending, open it once per process (file locks belong to the process) */
+  ScoreLog open(String player) throws IOException {
+    Path path = pathOf(player);
+    Files.createDirectories(path.getParent());
+    return ScoreLog.open(path);
+  }
+
+  /* every score of the player, a lock free snapshot */
+  List<ScoreRecord> read(String player) throws IOException {
+    return ScoreLog.read(pathOf(player));
+  }
+
+  /* every score of every player, each profile read as a lock free snapshot */
+  List<ScoreRecord> readAll() throws IOException {
+    List<ScoreRecord> records = new ArrayList<>();
+    for (Path profile : profiles()) {
+      records.addAll(ScoreLog.read(profile));
+    }
+    return records;
+  }
+
+  /* the profile files, in no particular order */
+  List<Path> profiles() throws IOException {
+    List<Path> profiles = new ArrayList<>();
+    if (!Files.isDirectory(root)) {
+      return profiles;
+    }
+    try (DirectoryStream<Path> shards = Files.newDirectoryStream(root, Files::isDirectory)) {
+      for (Path shard : shards) {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(shard, "*" + SUFFIX)) {
+          files.forEach(profiles::add);
+        }
+      }
+    }
+    return profiles;
+  }
+
+  /*
+   * moves the scores of the files written before there were profiles into
+   * the log, under a lock of the data directory so that two processes
+   * starting at once do not both import them. a score log or a text file of
+   * set numbers, each renamed to *.imported afterwards.
+   * returns the number of imported scores.
+   */
+  int importLegacy(ScoreLog into, Path... files) throws IOException {
+    Files.createDirectories(root);
+    int imported = 0;
+    try (FileChannel channel = FileChannel.open(root.resolve("import.lock"), StandardOpenOption.CREATE,
+        StandardOpenOption.WRITE)) {
+      FileLock lock = channel.lock();
+      try {
+        for (Path file : files) {
+          if (!Files.exists(file)) {
+            continue; // never there, or another process was first
+          }
+          if (file.getFileName().toString().endsWith(".txt")) {
+            imported += into.importText(file);
+            continue;
+          }
+          List<ScoreRecord> records = ScoreLog.read(file);
+          into.appendAll(records);
+          into.sync();
+          Files.move(file, file.resolveSibling(file.getFileName() + ".imported"), StandardCopyOption.REPLACE_EXISTING);
+          imported += records.size();
+        }
+      } finally {
+        lock.release();
+      }
+    }
+    return imported;
+  }
+
+  public static void main(String[] args) throws IOException {
+    ProfileStore store = new ProfileStore(Paths.get(args.length > 0 ? args[0] : "."));
+    if (args.length > 2) {
+      int scores = Integer.parseInt(args[2]);
+      try (ScoreLog log = store.open(args[1])) {
+        for (int i = 0; i < scores; i++) {
+          log.append(new ScoreRecord(System.currentTimeMillis(), 1000 + i, 2 * i, 2, i));
+        }
+        log.sync();
+      }
+    }
+    for (Path profile : store.profiles()) {
+      System.out.println(store.root.relativize(profile) + ": " + ScoreLog.read(profile).size() + " scores");
+    }
+  }
+}
@@ -0,0 +1,181 @@
+package tileflip;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/*
+ * a multiset of long keys that answers "how many keys are smaller" and
+ * "which key is k-th smallest" in O(log n).
+ * it is a treap (binary search tree with random heap priorities) whose nodes
+ * live in parallel arrays, every node also knows the size of its subtree.
+ */
+class RankTree {
+  private static final int NIL = -1;
+
+  private long[] keys;
+  private int[] priorities;
+  private int[] left;
+  private int[] right;
+  private int[] sizes;
+  private int count;
+  private int root = NIL;
+  private final SplittableRandom random = new SplittableRandom();
+
+  public RankTree() {
+    allocate(16);
+  }
+
+  /*
+   * builds the tree from unsorted keys in O(n log n) with one primitive sort,
+   * much faster than inserting them one by one.
+   */
+  public static RankTree of(long[] keys, int length) {
+    RankTree tree = new RankTree();
+    long[] sorted = Arrays.copyOf(keys, length);
+    Arrays.sort(sorted);
+    tree.allocate(Math.max(16, length));
+    /* random priorities, the largest ones go to the top levels of a balanced tree */
+    int[] ranked = new int[length];
+    for (int i = 0; i < length; i++) {
+      ranked[i] = tree.random.nextInt() & Integer.MAX_VALUE;
+    }
+    Arrays.sort(ranked);
+    int[] next = {length};
+    tree.root = tree.buildBalanced(sorted, 0, length - 1, ranked, next);
+    tree.count = length;
+    return tree;
+  }
+
+  public int size() {
+    return count;
+  }
+
+  public void insert(long key) {
+    if (count == keys.length) {
+      allocate(keys.length * 2);
+    }
+    int node = count++;
+    keys[node] = key;
+    priorities[node] = random.nextInt() & Integer.MAX_VALUE;
+    left[node] = NIL;
+    right[node] = NIL;
+    sizes[node] = 1;
+    root = insert(root, node);
+  }
+
+  /* number of keys strictly smaller than key */
+  public int countLess(long key) {
+    int less = 0;
+    int node = root;
+    while (node != NIL) {
+      if (keys[node] < key) {
+        less += sizeOf(left[node]) + 1;
+        node = right[node];
+      } else {
+        node = left[node];
+      }
+    }
+    return less;
+  }
+
+  /* the k-th smallest key, k starting at 0 */
+  public long select(int k) {
+    if (k < 0 || k >= count) {
+      throw new IndexOutOfBoundsException(k);
+    }
+    int node = root;
+    while (true) {
+      int leftSize = sizeOf(left[node]);
+      if (k < leftSize) {
+        node = left[node];
+      } else if (k == leftSize) {
+        return keys[node];
+      } else {
+        k -= leftSize + 1;
+        node = right[node];
+      }
+    }
+  }
+
+  /* the smallest k keys in order, O(k + log n) */
+  public long[] smallest(int k) {
+    long[] result = new long[Math.min(k, count)];
+    int[] filled = {0};
+    collect(root, result, filled);
+    return result;
+  }
+
+  private void collect(int node, long[] result, int[] filled) {
+    if (node == NIL || filled[0] == result.length) {
+      return;
+    }
+    collect(left[node], result, filled);
+    if (filled[0] < result.length) {
+      result[filled[0]++] = keys[node];
+      collect(right[node], result, filled);
+    }
+  }
+
+  private int insert(int subtree, int node) {
+    if (subtree == NIL) {
+      return node;
+    }
+    sizes[subtree]++;
+    if (keys[node] < keys[subtree]) {
+      left[subtree] = insert(left[subtree], node);
+      if (priorities[left[subtree]] > priorities[subtree]) {
+        subtree = rotateRight(subtree);
+      }
+    } else {
+      right[subtree] = insert(right[subtree], node);
+      if (priorities[right[subtree]] > priorities[subtree]) {
+        subtree = rotateLeft(subtree);
+      }
+    }
+    return subtree;
+  }
+
+  private int rotateRight(int node) {
+    int pivot = left[node];
+    left[node] = right[pivot];
+    right[pivot] = node;
+    sizes[pivot] = sizes[node];
+    sizes[node] = sizeOf(left[node]) + sizeOf(right[node]) + 1;
+    return pivot;
+  }
+
+  private int rotateLeft(int node) {
+    int pivot = right[node];
+    right[node] = left[pivot];
+    left[pivot] = node;
+    sizes[pivot] = sizes[node];
+    sizes[node] = sizeOf(left[node]) + sizeOf(right[node]) + 1;
+    return pivot;
+  }
+
+  /* middle key becomes the root, a parent always takes a larger priority than its children */
+  private int buildBalanced(long[] sorted, int from, int to, int[] ranked, int[] next) {
+    if (from > to) {
+      return NIL;
+    }
+    int mid = (from + to) >>> 1;
+    keys[mid] = sorted[mid];
+    priorities[mid] = ranked[--next[0]]; // handed out in pre-order, parents first
+    left[mid] = buildBalanced(sorted, from, mid - 1, ranked, next);
+    right[mid] = buildBalanced(sorted, mid + 1, to, ranked, next);
+    sizes[mid] = to - from + 1;
+    return mid;
+  }
+
+  private int sizeOf(int node) {
+    return node == NIL ? 0 : sizes[node];
+  }
+
+  private void allocate(int capacity) {
+    keys = keys == null ? new long[capacity] : Arrays.copyOf(keys, capacity);
+    priorities = priorities == null ? new int[capacity] : Arrays.copyOf(priorities, capacity);
+    left = left == null ? new int[capacity] : Arrays.copyOf(left, capacity);
+    right = right == null ? new int[capacity] : Arrays.copyOf(right, capacity);
+    sizes = sizes == null ? new int[capacity] : Arrays.copyOf(sizes, capacity);
+  }
+}
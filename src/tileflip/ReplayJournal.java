@@ -0,0 +1,251 @@
+package tileflip;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+
+/*
+ * everything needed to play a game again: the seed and settings the board was
+ * dealt from, then every flip that reached the board, in order.
+ *
+ * layout: int magic "TFRJ" | byte version | byte generator | long seed
+ *   | varint differentTiles | varint identicalTilesToCancel | varint flip count
+ *   | per flip: varint tile index, varint nanoseconds since the previous flip
+ *     (the first one since the board became playable)
+ * varints are unsigned LEB128, a flip takes 3 to 6 bytes on most boards.
+ * flip-backs are not stored, a replay flips back before the next flip after
+ * a failed group just like the game does.
+ */
+final class ReplayJournal {
+  static final Path DIRECTORY = ProfileStore.withSystemSettings().directoryOf(ProfileStore.currentPlayer(), "replays");
+  private static final int MAGIC = 0x5446524A; // "TFRJ"
+  private static final int VERSION = 1;
+  /* how the board was dealt from the seed: TileBoard.reset, or BoardGenerator without and with Constraint.APART */
+  static final int GENERATOR_TILE_BOARD = 0;
+  static final int GENERATOR_PARALLEL = 1;
+  static final int GENERATOR_PARALLEL_APART = 2;
+  private static final int MAX_HEADER = 4 + 1 + 1 + 8 + 3 * 5;
+
+  private final int generator;
+  private final long seed;
+  private final int differentTiles;
+  private final int identicalTilesToCancel;
+  private byte[] flips = new byte[256];
+  private int length;
+  private int flipCount;
+  private long lastNanos;
+
+  ReplayJournal(int generator, long seed, int differentTiles, int identicalTilesToCancel) {
+    this.generator = generator;
+    this.seed = seed;
+    this.differentTiles = differentTiles;
+    this.identicalTilesToCancel = identicalTilesToCancel;
+  }
+
+  /* the moment the board became playable, the first flip is timed from here */
+  void start(long nanoTime) {
+    lastNanos = nanoTime;
+  }
+
+  void recordFlip(int index, long nanoTime) {
+    if (flips.length - length < 20) {
+      flips = Arrays.copyOf(flips, flips.length * 2);
+    }
+    length = putVarint(flips, length, index);
+    length = putVarint(flips, length, Math.max(0, nanoTime - lastNanos));
+    lastNanos = nanoTime;
+    flipCount++;
+  }
+
+  int generator() {
+    return generator;
+  }
+
+  long seed() {
+    return seed;
+  }
+
+  int differentTiles() {
+    return differentTiles;
+  }
+
+  int identicalTilesToCancel() {
+    return identicalTilesToCancel;
+  }
+
+  int flipCount() {
+    return flipCount;
+  }
+
+  /* a board dealt the way the recorded one was, null for an unknown generator */
+  TileBoard newBoard() {
+    return deal(generator, differentTiles, identicalTilesToCancel, seed);
+  }
+
+  static boolean isKnownGenerator(int generator) {
+    return generator == GENERATOR_TILE_BOARD || generator == GENERATOR_PARALLEL
+        || generator == GENERATOR_PARALLEL_APART;
+  }
+
+  static TileBoard deal(int generator, int differentTiles, int identicalTilesToCancel, long seed) {
+    return switch (generator) {
+      case GENERATOR_TILE_BOARD -> new TileBoard(differentTiles, identicalTilesToCancel, seed);
+      case GENERATOR_PARALLEL -> BoardGenerator.newBoard(differentTiles, identicalTilesToCancel, seed,
+          BoardGenerator.Constraint.NONE);
+      case GENERATOR_PARALLEL_APART -> BoardGenerator.newBoard(differentTiles, identicalTilesToCancel, seed,
+          BoardGenerator.Constraint.APART);
+      default -> null;
+    };
+  }
+
+  /* walks the flips without allocating per flip */
+  final class Reader {
+    private int position;
+    private int read;
+    private int index;
+    private long deltaNanos;
+
+    boolean next() {
+      if (read == flipCount) {
+        return false;
+      }
+      index = (int) nextVarint();
+      deltaNanos = nextVarint();
+      read++;
+      return true;
+    }
+
+    /* the journal was checked when it was read, every varint is complete */
+    private long nextVarint() {
+      long value = 0;
+      int shift = 0;
+      byte b;
+      do {
+        b = flips[position++];
+        value |= (long) (b & 0x7F) << shift;
+        shift += 7;
+      } while (b < 0);
+      return value;
+    }
+
+    int index() {
+      return index;
+    }
+
+    long deltaNanos() {
+      return deltaNanos;
+    }
+  }
+
+  Reader reader() {
+    return new Reader();
+  }
+
+  byte[] toBytes() {
+    byte[] header = new byte[MAX_HEADER];
+    int at = 0;
+    header[at++] = (byte) (MAGIC >>> 24);
+    header[at++] = (byte) (MAGIC >>> 16);
+    header[at++] = (byte) (MAGIC >>> 8);
+    header[at++] = (byte) MAGIC;
+    header[at++] = VERSION;
+    header[at++] = (byte) generator;
+    for (int shift = 56; shift >= 0; shift -= 8) {
+      header[at++] = (byte) (seed >>> shift);
+    }
+    at = putVarint(header, at, differentTiles);
+    at = putVarint(header, at, identicalTilesToCancel);
+    at = putVarint(header, at, flipCount);
+    ByteArrayOutputStream out = new ByteArrayOutputStream(at + length);
+    out.write(header, 0, at);
+    out.write(flips, 0, length);
+    return out.toByteArray();
+  }
+
+  static ReplayJournal fromBytes(byte[] bytes) throws IOException {
+    try {
+      int at = 0;
+      int magic = (bytes[at++] & 0xFF) << 24 | (bytes[at++] & 0xFF) << 16 | (bytes[at++] & 0xFF) << 8
+          | bytes[at++] & 0xFF;
+      if (magic != MAGIC || bytes[at++] != VERSION) {
+        throw new IOException("not a replay journal of this version");
+      }
+      int generator = bytes[at++] & 0xFF;
+      if (!isKnownGenerator(generator)) {
+        throw new IOException("replay journal of a board generator this version does not know: " + generator);
+      }
+      long seed = 0;
+      for (int i = 0; i < 8; i++) {
+        seed = seed << 8 | bytes[at++] & 0xFF;
+      }
+      long[] value = new long[1];
+      at = getVarint(bytes, at, value);
+      int differentTiles = (int) value[0];
+      at = getVarint(bytes, at, value);
+      int identical = (int) value[0];
+      at = getVarint(bytes, at, value);
+      int flipCount = (int) value[0];
+      ReplayJournal journal = new ReplayJournal(generator, seed, differentTiles, identical);
+      journal.flips = Arrays.copyOfRange(bytes, at, bytes.length);
+      journal.length = journal.flips.length;
+      journal.flipCount = flipCount;
+      /* every flip must be complete, a torn file is rejected as a whole */
+      int end = at;
+      for (int i = 0; i < 2 * flipCount; i++) {
+        end = getVarint(bytes, end, value);
+      }
+      if (end != bytes.length) {
+        throw new IOException("replay journal has " + (bytes.length - end) + " bytes too many");
+      }
+      return journal;
+    } catch (ArrayIndexOutOfBoundsException e) {
+      throw new IOException("replay journal is cut off", e);
+    }
+  }
+
+  static ReplayJournal read(Path path) throws IOException {
+    return fromBytes(Files.readAllBytes(path));
+  }
+
+  /* written next to the target and moved over it, so a crash leaves no half journal */
+  void save(Path path) throws IOException {
+    Files.createDirectories(path.toAbsolutePath().getParent());
+    Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+    Files.write(temporary, toBytes());
+    Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  /* file name for a game finished at the given time */
+  Path defaultPath(long finishedMillis) {
+    return DIRECTORY.resolve(finishedMillis + "-" + differentTiles + "x" + identicalTilesToCancel + ".tfr");
+  }
+
+  private static int putVarint(byte[] dest, int at, long value) {
+    while ((value & ~0x7FL) != 0) {
+      dest[at++] = (byte) (value & 0x7F | 0x80);
+      value >>>= 7;
+    }
+    dest[at++] = (byte) value;
+    return at;
+  }
+
+  /* reads one varint into value[0], returns the position after it */
+  private static int getVarint(byte[] bytes, int at, long[] value) throws IOException {
+    long result = 0;
+    int shift = 0;
+    byte b;
+    do {
+      if (shift > 63) {
+        throw new IOException("varint too long");
+      }
+      b = bytes[at++];
+      result |= (long) (b & 0x7F) << shift;
+      shift += 7;
+    } while (b < 0);
+    value[0] = result;
+    return at;
+  }
+}
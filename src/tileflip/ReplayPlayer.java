@@ -0,0 +1,108 @@
+package tileflip;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/*
+ * plays replay journals again as fast as possible, without a window.
+ * usage: java tileflip.ReplayPlayer [journal files or directories]   (default: the replays of the player)
+ *
+ * every flip of a journal must be accepted by a board dealt from the same
+ * seed, and the last one must complete it, otherwise the journal does not
+ * belong to a real game. journals are independent, so a batch is spread over
+ * all cores. java tileflip.Main --replay <file> [speed] shows one in the window.
+ */
+public class ReplayPlayer {
+
+  record Result(Path file, boolean valid, int flips, long recordedNanos, String problem) {
+  }
+
+  /* re-executes the journal on a fresh board, the flips are not timed */
+  static Result verify(Path file, ReplayJournal journal) {
+    TileBoard board;
+    try {
+      board = journal.newBoard();
+    } catch (IllegalArgumentException e) {
+      return new Result(file, false, 0, 0, "bad settings: " + e.getMessage());
+    }
+    if (board == null) {
+      return new Result(file, false, 0, 0, "unknown board generator " + journal.generator());
+    }
+    ReplayJournal.Reader flips = journal.reader();
+    long recordedNanos = 0;
+    int played = 0;
+    while (flips.next()) {
+      recordedNanos += flips.deltaNanos();
+      if (board.isAwaitingFlipBack()) {
+        board.flipBack(); // the game did this when the reveal ended
+      }
+      int index = flips.index();
+      if (index < 0 || index >= board.tileCount() || board.flip(index) == TileBoard.Outcome.IGNORED) {
+        return new Result(file, false, played, recordedNanos, "flip " + (played + 1) + " on tile " + index
+            + " was not possible");
+      }
+      played++;
+    }
+    if (!board.isCompleted()) {
+      return new Result(file, false, played, recordedNanos, "the board was not completed");
+    }
+    return new Result(file, true, played, recordedNanos, "");
+  }
+
+  static Result verify(Path file) {
+    try {
+      return verify(file, ReplayJournal.read(file));
+    } catch (IOException e) {
+      return new Result(file, false, 0, 0, e.getMessage());
+    }
+  }
+
+  /* every journal in parallel on the common fork/join pool, results in the order of the files */
+  static List<Result> verifyAll(List<Path> files) {
+    return files.parallelStream().map(ReplayPlayer::verify).toList();
+  }
+
+  private static List<Path> journals(String[] args) throws IOException {
+    List<Path> files = new ArrayList<>();
+    String[] roots = args.length > 0 ? args : new String[] {ReplayJournal.DIRECTORY.toString()};
+    for (String root : roots) {
+      Path path = Paths.get(root);
+      if (Files.isDirectory(path)) {
+        try (Stream<Path> walk = Files.walk(path)) {
+          walk.filter(p -> p.toString().endsWith(".tfr")).sorted().forEach(files::add);
+        }
+      } else {
+        files.add(path);
+      }
+    }
+    return files;
+  }
+
+  public static void main(String[] args) throws IOException {
+    System.setProperty("java.awt.headless", "true");
+    List<Path> files = journals(args);
+    long start = System.nanoTime();
+    List<Result> results = verifyAll(files);
+    double seconds = (System.nanoTime() - start) / 1e9;
+
+    long flips = 0;
+    int invalid = 0;
+    for (Result result : results) {
+      flips += result.flips();
+      if (!result.valid()) {
+        invalid++;
+        System.out.println(result.file() + ": " + result.problem());
+      }
+    }
+    System.out.printf("%d journals replayed, %d invalid, %d flips in %.3f s (%.0f flips/s)%n",
+        results.size(), invalid, flips, seconds, flips / seconds);
+    if (invalid > 0) {
+      System.exit(1);
+    }
+  }
+}
@@ -0,0 +1,250 @@
+package tileflip;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/*
+ * append-only binary file of finished games.
+ *
+ * layout: an 8 byte header (magic "TFSL", version) followed by records of
+ *   int length | payload (length bytes) | int crc32 of the payload
+ * a record that is cut off or fails its checksum can only be the tail left by
+ * a crash or power loss, the next append zeroes everything from there to the
+ * end of the file before writing over it. records are all the same size, so
+ * without that an intact old record behind the torn one would come back.
+ * reading maps the file into memory instead of parsing text line by line.
+ *
+ * several processes may append to the same log: every append holds an
+ * exclusive FileChannel lock, finds the end of the records (another process
+ * may have appended since) and writes there. readers take no lock at all, a
+ * record that is being written fails its checksum and ends their snapshot.
+ * the file is never truncated (the tail is zeroed instead), so a reader's map
+ * never loses its ground.
+ * file locks belong to the process, so one process opens a log only once.
+ */
+class ScoreLog implements Closeable {
+  private static final int MAGIC = 0x5446534C; // "TFSL"
+  private static final int VERSION = 1;
+  static final int HEADER_SIZE = 8;
+  private static final int PAYLOAD_SIZE = 8 + 8 + 4 + 4 + 4;
+  private static final int RECORD_SIZE = 4 + PAYLOAD_SIZE + 4;
+  private static final int MAX_PAYLOAD = 1 << 16;
+
+  private final Path path;
+  private final FileChannel channel;
+  private final ByteBuffer writeBuffer = ByteBuffer.allocate(RECORD_SIZE);
+  private final CRC32 crc = new CRC32();
+  /* end of the valid records when this process last held the lock */
+  private long end;
+
+  private ScoreLog(Path path, FileChannel channel, long end) {
+    this.path = path;
+    this.channel = channel;
+    this.end = end;
+  }
+
+  /* opens (or creates) the log for appending, a torn tail is zeroed and overwritten by the next append */
+  public static ScoreLog open(Path path) throws IOException {
+    FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+        StandardOpenOption.WRITE);
+    try {
+      FileLock lock = channel.lock();
+      try {
+        if (channel.size() < HEADER_SIZE) {
+          /* new file, or the crash happened before the header was complete */
+          ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(VERSION).flip();
+          channel.truncate(0);
+          while (header.hasRemaining()) {
+            channel.write(header, header.position());
+          }
+          channel.force(true);
+        }
+        return new ScoreLog(path, channel, scan(channel, HEADER_SIZE, null));
+      } finally {
+        lock.release();
+      }
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  /* every record that made it to the file, read through a memory map, never modifies the file */
+  public static List<ScoreRecord> read(Path path) throws IOException {
+    List<ScoreRecord> records = new ArrayList<>();
+    if (!Files.exists(path)) {
+      return records;
+    }
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      if (channel.size() >= HEADER_SIZE) {
+        scan(channel, HEADER_SIZE, records);
+      }
+    }
+    return records;
+  }
+
+  public synchronized void append(ScoreRecord record) throws IOException {
+    writeBuffer.clear();
+    encode(record, writeBuffer);
+    write(writeBuffer.flip());
+  }
+
+  public synchronized void appendAll(Collection<ScoreRecord> records) throws IOException {
+    ByteBuffer batch = ByteBuffer.allocate(records.size() * RECORD_SIZE);
+    for (ScoreRecord record : records) {
+      encode(record, batch);
+    }
+    write(batch.flip());
+  }
+
+  /* one locked write at the end of the records, whoever wrote them */
+  private void write(ByteBuffer records) throws IOException {
+    if (!records.hasRemaining()) {
+      return;
+    }
+    FileLock lock = channel.lock();
+    try {
+      long size = channel.size();
+      if (size != end) {
+        /* other processes appended (or an old version truncated), find the end again */
+        end = scan(channel, size < end ? HEADER_SIZE : end, null);
+      }
+      if (end + records.remaining() < size) {
+        zero(end + records.remaining(), size);
+      }
+      long at = end;
+      while (records.hasRemaining()) {
+        at += channel.write(records, at);
+      }
+      end = at;
+    } finally {
+      lock.release();
+    }
+  }
+
+  /*
+   * clears what is left of a torn tail behind the records about to be written,
+   * and makes the zeroes durable first so a power loss cannot keep the new
+   * records but bring back the old ones behind them.
+   */
+  private void zero(long from, long to) throws IOException {
+    ByteBuffer zeroes = ByteBuffer.allocate(RECORD_SIZE);
+    for (long at = from; at < to; ) {
+      zeroes.clear().limit((int) Math.min(RECORD_SIZE, to - at));
+      while (zeroes.hasRemaining()) {
+        at += channel.write(zeroes, at);
+      }
+    }
+    channel.force(false);
+  }
+
+  /* make everything appended so far survive a power loss */
+  public synchronized void sync() throws IOException {
+    channel.force(false);
+  }
+
+  public List<ScoreRecord> readAll() throws IOException {
+    return read(path);
+  }
+
+  public Path path() {
+    return path;
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    channel.close();
+  }
+
+  /*
+   * one-shot import of the old player_data.txt, one set number per line.
+   * lines that do not parse (a torn last line) are skipped, and the text file
+   * is renamed to *.imported so it is not imported twice.
+   * returns the number of imported scores.
+   */
+  public int importText(Path textFile) throws IOException {
+    List<ScoreRecord> records = new ArrayList<>();
+    try (BufferedReader in = Files.newBufferedReader(textFile, StandardCharsets.UTF_8)) {
+      String line;
+      while ((line = in.readLine()) != null) {
+        try {
+          records.add(new ScoreRecord(0, -1, -1, 0, Integer.parseInt(line.trim())));
+        } catch (NumberFormatException e) {
+          // not a score, ignore it
+        }
+      }
+    }
+    appendAll(records);
+    sync();
+    Files.move(textFile, textFile.resolveSibling(textFile.getFileName() + ".imported"),
+        StandardCopyOption.REPLACE_EXISTING);
+    return records.size();
+  }
+
+  private void encode(ScoreRecord record, ByteBuffer out) {
+    int start = out.position();
+    out.putInt(PAYLOAD_SIZE);
+    out.putLong(record.timestamp());
+    out.putLong(record.elapsedMillis());
+    out.putInt(record.flips());
+    out.putInt(record.setSize());
+    out.putInt(record.setNumber());
+    crc.reset();
+    crc.update(out.array(), out.arrayOffset() + start + 4, PAYLOAD_SIZE);
+    out.putInt((int) crc.getValue());
+  }
+
+  /*
+   * walks the records of the file from the record at `from` on through a
+   * memory map, collecting them into records when it is not null. returns the
+   * end of the last valid record.
+   */
+  private static long scan(FileChannel channel, long from, List<ScoreRecord> records) throws IOException {
+    long size = channel.size();
+    MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+    if (map.getInt(0) != MAGIC) {
+      throw new IOException("not a score log");
+    }
+    if (map.getInt(4) != VERSION) {
+      throw new IOException("unknown score log version " + map.getInt(4));
+    }
+    CRC32 crc = new CRC32();
+    int position = (int) from;
+    while (position + 4 <= size) {
+      int length = map.getInt(position);
+      if (length < PAYLOAD_SIZE || length > MAX_PAYLOAD || position + 4L + length + 4 > size) {
+        break; // torn tail
+      }
+      ByteBuffer payload = map.slice(position + 4, length);
+      crc.reset();
+      crc.update(payload);
+      if ((int) crc.getValue() != map.getInt(position + 4 + length)) {
+        break; // half written record
+      }
+      if (records != null) {
+        records.add(decode(map, position + 4));
+      }
+      position += 4 + length + 4;
+    }
+    return position;
+  }
+
+  private static ScoreRecord decode(ByteBuffer map, int offset) {
+    return new ScoreRecord(map.getLong(offset), map.getLong(offset + 8), map.getInt(offset + 16),
+        map.getInt(offset + 20), map.getInt(offset + 24));
+  }
+}
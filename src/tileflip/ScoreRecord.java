@@ -0,0 +1,19 @@
+package tileflip;
+
+/*
+ * everything known about one finished game.
+ * timestamp is the wall clock time the game ended (epoch millis), 0 when it is
+ * unknown, elapsedMillis and flips are -1 for scores imported from the old
+ * text file, which only stored the number of sets.
+ */
+record ScoreRecord(long timestamp, long elapsedMillis, int flips, int setSize, int setNumber) {
+
+  /* "12x4" style name of the difficulty the game was played at */
+  public String difficulty() {
+    return setNumber + "x" + setSize;
+  }
+
+  public int totalTiles() {
+    return setNumber * setSize;
+  }
+}
@@ -0,0 +1,171 @@
+package tileflip;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * writes scores to a ScoreLog on its own thread (write-behind).
+ * the event dispatch thread only puts a record into a queue and goes on, the
+ * writer takes whatever has piled up, appends it in one write and fsyncs the
+ * whole batch at once (group commit) according to the fsync policy.
+ * a shutdown hook drains the queue, so System.exit(0) does not lose scores.
+ */
+class ScoreWriter implements AutoCloseable {
+  /* when the appended records are forced to the disk */
+  enum FsyncPolicy {
+    EVERY_BATCH, // after every batch, nothing acknowledged is lost on power loss
+    INTERVAL, // at most once per interval, cheaper on slow SD cards
+    NEVER // leave it to the operating system
+  }
+
+  private static final int MAX_BATCH = 512;
+  private static final ScoreRecord STOP = new ScoreRecord(0, 0, 0, 0, 0);
+
+  private final ScoreLog log;
+  private final FsyncPolicy policy;
+  private final long intervalNanos;
+  private final LinkedBlockingQueue<ScoreRecord> queue = new LinkedBlockingQueue<>();
+  private final Thread writer;
+  private final Thread shutdownHook;
+  private volatile boolean closed;
+  private long lastSync;
+  private boolean unsynced;
+
+  public ScoreWriter(ScoreLog log, FsyncPolicy policy, long intervalMillis) {
+    this.log = log;
+    this.policy = policy;
+    this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(intervalMillis);
+    this.lastSync = System.nanoTime();
+    this.writer = new Thread(this::run, "score-writer");
+    this.writer.setDaemon(true);
+    this.shutdownHook = new Thread(this::drainOnExit, "score-writer-shutdown");
+    Runtime.getRuntime().addShutdownHook(shutdownHook);
+    this.writer.start();
+  }
+
+  /* policy from -Dtileflip.fsync=every_batch|interval|never and -Dtileflip.fsyncInterval=millis */
+  public static ScoreWriter withSystemSettings(ScoreLog log) {
+    String name = System.getProperty("tileflip.fsync", FsyncPolicy.EVERY_BATCH.name());
+    FsyncPolicy policy = FsyncPolicy.valueOf(name.toUpperCase(Locale.ROOT));
+    return new ScoreWriter(log, policy, Long.getLong("tileflip.fsyncInterval", 1000));
+  }
+
+  /* never blocks, the record is written later by the writer thread */
+  public void enqueue(ScoreRecord record) {
+    if (closed) {
+      throw new IllegalStateException("score writer is closed");
+    }
+    queue.offer(record);
+  }
+
+  /* number of records waiting to be written */
+  public int pending() {
+    return queue.size();
+  }
+
+  /* stops accepting records, writes and syncs what is queued, closes the log */
+  @Override
+  public void close() throws InterruptedException {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    queue.offer(STOP);
+    writer.join();
+    try {
+      Runtime.getRuntime().removeShutdownHook(shutdownHook);
+    } catch (IllegalStateException e) {
+      // already shutting down
+    }
+  }
+
+  private void drainOnExit() {
+    try {
+      close();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void run() {
+    List<ScoreRecord> batch = new ArrayList<>(MAX_BATCH);
+    boolean stopping = false;
+    try {
+      while (!stopping) {
+        ScoreRecord first = policy == FsyncPolicy.INTERVAL && unsynced
+            ? queue.poll(intervalNanos, TimeUnit.NANOSECONDS)
+            : queue.take();
+        if (first != null) {
+          batch.add(first);
+          queue.drainTo(batch, MAX_BATCH - 1);
+        }
+        stopping = removeStop(batch);
+        if (stopping) {
+          queue.drainTo(batch); // anything that raced with close()
+        }
+        write(batch, stopping);
+        batch.clear();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      try {
+        log.close();
+      } catch (IOException e) {
+        e.printStackTrace();
+      }
+    }
+  }
+
+  /* STOP is compared by identity, a real record may have the same values */
+  private static boolean removeStop(List<ScoreRecord> batch) {
+    for (int i = 0; i < batch.size(); i++) {
+      if (batch.get(i) == STOP) {
+        batch.remove(i);
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private void write(List<ScoreRecord> batch, boolean stopping) {
+    long started = System.nanoTime();
+    GameEvents.PersistenceWrite event = new GameEvents.PersistenceWrite();
+    event.begin();
+    try {
+      if (!batch.isEmpty()) {
+        log.appendAll(batch);
+        unsynced = true;
+      }
+      boolean due = switch (policy) {
+        case EVERY_BATCH -> true;
+        case INTERVAL -> stopping || System.nanoTime() - lastSync >= intervalNanos;
+        case NEVER -> false;
+      };
+      boolean synced = unsynced && due;
+      if (synced) {
+        log.sync();
+        lastSync = System.nanoTime();
+        unsynced = false;
+      }
+      event.end();
+      if (!batch.isEmpty()) {
+        GameMetrics.shared().save.record(System.nanoTime() - started);
+      }
+      if (!batch.isEmpty() && event.shouldCommit()) {
+        ScoreRecord last = batch.get(batch.size() - 1);
+        event.tiles = last.totalTiles();
+        event.setSize = last.setSize();
+        event.records = batch.size();
+        event.synced = synced;
+        event.commit();
+      }
+    } catch (IOException e) {
+      e.printStackTrace();
+    }
+  }
+}
@@ -0,0 +1,137 @@
+package tileflip;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.SplittableRandom;
+
+/*
+ * opens many game sessions against a GameServer and flips random tiles in all
+ * of them, then prints the flip-to-response latency percentiles.
+ * usage: java ServerLoadClient [port] [sessions] [seconds] [differentTiles] [identical]
+ */
+public class ServerLoadClient {
+  /* latency histogram in microseconds, the last bucket collects everything slower */
+  private static final int BUCKETS = 1_000_000;
+  private final long[] histogram = new long[BUCKETS + 1];
+  private long responses;
+
+  private class Client {
+    private final SocketChannel channel;
+    private final ByteBuffer in = ByteBuffer.allocate(4096);
+    private final String newGame;
+    private final int tiles;
+    private long sentAt;
+    private boolean waitingForHidden;
+
+    Client(SocketChannel channel, int differentTiles, int identical) {
+      this.channel = channel;
+      this.newGame = "NEW " + differentTiles + " " + identical;
+      this.tiles = differentTiles * identical;
+    }
+
+    void send(String line) throws IOException {
+      ByteBuffer out = ByteBuffer.wrap((line + "\n").getBytes(StandardCharsets.US_ASCII));
+      while (out.hasRemaining()) {
+        channel.write(out);
+      }
+    }
+
+    void flipRandom(SplittableRandom random) throws IOException {
+      sentAt = System.nanoTime();
+      send("FLIP " + random.nextInt(tiles));
+    }
+
+    /* handles every complete line received so far */
+    void read(SplittableRandom random) throws IOException {
+      if (channel.read(in) < 0) {
+        throw new IOException("server closed the connection");
+      }
+      in.flip();
+      int lineStart = 0;
+      for (int i = 0; i < in.limit(); i++) {
+        if (in.get(i) == '\n') {
+          line(new String(in.array(), lineStart, i - lineStart, StandardCharsets.US_ASCII), random);
+          lineStart = i + 1;
+        }
+      }
+      in.position(lineStart);
+      in.compact();
+    }
+
+    private void line(String line, SplittableRandom random) throws IOException {
+      if (line.startsWith("OK")) {
+        flipRandom(random);
+      } else if (line.startsWith("HIDDEN")) {
+        waitingForHidden = false;
+        flipRandom(random);
+      } else {
+        long micros = (System.nanoTime() - sentAt) / 1000;
+        histogram[(int) Math.min(BUCKETS, micros)]++;
+        responses++;
+        if (line.startsWith("MISMATCHED")) {
+          waitingForHidden = true; // the server ignores flips until the group is hidden again
+        } else if (line.startsWith("COMPLETED")) {
+          send(newGame);
+        } else if (!waitingForHidden) {
+          flipRandom(random);
+        }
+      }
+    }
+  }
+
+  private long percentile(double percent) {
+    long target = (long) Math.ceil(responses * percent / 100);
+    long seen = 0;
+    for (int i = 0; i <= BUCKETS; i++) {
+      seen += histogram[i];
+      if (seen >= target) {
+        return i;
+      }
+    }
+    return BUCKETS;
+  }
+
+  public static void main(String[] args) throws IOException {
+    int port = args.length > 0 ? Integer.parseInt(args[0]) : GameServer.DEFAULT_PORT;
+    int sessions = args.length > 1 ? Integer.parseInt(args[1]) : 10_000;
+    int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+    int differentTiles = args.length > 3 ? Integer.parseInt(args[3]) : 12;
+    int identical = args.length > 4 ? Integer.parseInt(args[4]) : 4;
+
+    ServerLoadClient load = new ServerLoadClient();
+    SplittableRandom random = new SplittableRandom(1);
+    Selector selector = Selector.open();
+    InetSocketAddress address = new InetSocketAddress("127.0.0.1", port);
+    for (int i = 0; i < sessions; i++) {
+      SocketChannel channel = SocketChannel.open(address);
+      channel.socket().setTcpNoDelay(true);
+      channel.configureBlocking(false);
+      Client client = load.new Client(channel, differentTiles, identical);
+      channel.register(selector, SelectionKey.OP_READ, client);
+      client.send(client.newGame + " " + i);
+    }
+    System.out.println(sessions + " sessions connected");
+
+    long end = System.nanoTime() + seconds * 1_000_000_000L;
+    long start = System.nanoTime();
+    while (System.nanoTime() < end) {
+      selector.select(100);
+      Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+      while (keys.hasNext()) {
+        SelectionKey key = keys.next();
+        keys.remove();
+        ((Client) key.attachment()).read(random);
+      }
+    }
+    double elapsed = (System.nanoTime() - start) / 1e9;
+    System.out.printf("%d flips in %.1f s (%.0f flips/s), latency p50 %d us, p99 %d us, p99.9 %d us%n",
+        load.responses, elapsed, load.responses / elapsed, load.percentile(50), load.percentile(99),
+        load.percentile(99.9));
+  }
+}
@@ -0,0 +1,284 @@
+package tileflip;
+
+import java.util.Objects;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/*
+ * one very large board played by many players at the same time.
+ *
+ * every tile is one int in an AtomicIntegerArray: HIDDEN, CLEARED, or the id
+ * of the player whose selection holds it. a player takes a tile with a single
+ * compareAndSet, so two players can never hold the same tile, and no flip
+ * takes a lock of the whole board. each player has its own selection (Player).
+ *
+ * cleared groups are published in an append-only log: a group's positions are
+ * written first, then its symbol id, so a reader that sees the symbol of
+ * group n also sees its positions. every participant keeps its own cursor.
+ * a group counts as cleared (clearedGroups, isCompleted) only once its symbol
+ * is published.
+ *
+ * the symbols that are not cleared yet are kept in a live set, so a random
+ * hidden tile is a few random picks instead of a scan of the board. the set
+ * is striped by symbol: clearing a group locks the one stripe of its symbol,
+ * picking reads the stripes without any lock.
+ */
+class SharedBoard {
+  static final int HIDDEN = 0;
+  static final int CLEARED = -1;
+  private static final int UNPUBLISHED = -1;
+  private static final int RANDOM_PICKS = 64;
+  private static final int STRIPES = 64;
+
+  private final int differentTiles;
+  private final int identicalTilesToCancel;
+  private final int rows;
+  private final int cols;
+  private final int[] symbols;
+  private final AtomicIntegerArray states;
+
+  /* log of cleared groups, in the order they were cleared. a slot is taken first, counted once published */
+  private final AtomicInteger nextGroup = new AtomicInteger();
+  private final AtomicInteger publishedGroups = new AtomicInteger();
+  private final AtomicIntegerArray groupSymbols;
+  private final int[] groupPositions;
+
+  /* the k tiles of every symbol, symbol by symbol */
+  private final int[] tilesBySymbol;
+  /* symbols not cleared yet, symbol s in stripe s % STRIPES */
+  private final Stripe[] live = new Stripe[STRIPES];
+
+  private final AtomicInteger nextPlayerId = new AtomicInteger(1);
+
+  public SharedBoard(int differentTiles, int identicalTilesToCancel, long seed) {
+    TileBoard layout = new TileBoard(differentTiles, identicalTilesToCancel, seed); // same deal as a single game
+    this.differentTiles = differentTiles;
+    this.identicalTilesToCancel = identicalTilesToCancel;
+    this.rows = layout.rows();
+    this.cols = layout.cols();
+    this.symbols = new int[layout.tileCount()];
+    for (int i = 0; i < symbols.length; i++) {
+      symbols[i] = layout.symbolAt(i);
+    }
+    this.states = new AtomicIntegerArray(symbols.length);
+    this.groupSymbols = new AtomicIntegerArray(differentTiles);
+    for (int i = 0; i < differentTiles; i++) {
+      groupSymbols.set(i, UNPUBLISHED);
+    }
+    this.groupPositions = new int[symbols.length];
+    this.tilesBySymbol = new int[symbols.length];
+    int[] filled = new int[differentTiles];
+    for (int i = 0; i < symbols.length; i++) {
+      tilesBySymbol[symbols[i] * identicalTilesToCancel + filled[symbols[i]]++] = i;
+    }
+    for (int stripe = 0; stripe < STRIPES; stripe++) {
+      live[stripe] = new Stripe(stripe, differentTiles);
+    }
+  }
+
+  /* the live symbols of one stripe, the first count entries. changed under the stripe's lock, read without it */
+  private static final class Stripe {
+    private final AtomicIntegerArray symbols;
+    private final int[] slot; // where symbol s sits, at slot[s / STRIPES]
+    private volatile int count;
+
+    private Stripe(int first, int differentTiles) {
+      int size = (differentTiles - first + STRIPES - 1) / STRIPES;
+      symbols = new AtomicIntegerArray(size);
+      slot = new int[size];
+      for (int i = 0; i < size; i++) {
+        symbols.set(i, first + i * STRIPES);
+        slot[i] = i;
+      }
+      count = size;
+    }
+
+    /* swaps the cleared symbol with the last live one of the stripe, once per cleared group */
+    private synchronized void remove(int symbol) {
+      int at = slot[symbol / STRIPES];
+      int last = symbols.get(count - 1);
+      symbols.set(at, last);
+      slot[last / STRIPES] = at;
+      count--;
+    }
+  }
+
+  /* a new participant with its own selection */
+  public Player join() {
+    return new Player(nextPlayerId.getAndIncrement());
+  }
+
+  /* a player's in-flight selection, used by one thread only */
+  class Player {
+    private final int id;
+    private final int[] selected = new int[identicalTilesToCancel];
+    private int selectedCount;
+    private boolean awaitingFlipBack;
+    private int flips;
+    private int groupCursor; // cleared groups this player has already seen
+
+    private Player(int id) {
+      this.id = id;
+    }
+
+    public int id() {
+      return id;
+    }
+
+    /*
+     * takes a hidden tile into this player's selection. the same rules as
+     * TileBoard: a different symbol fails the group at once, a full group of
+     * identical symbols is cleared and published.
+     */
+    public TileBoard.Outcome flip(int index) {
+      Objects.checkIndex(index, symbols.length);
+      if (awaitingFlipBack || !states.compareAndSet(index, HIDDEN, id)) {
+        return TileBoard.Outcome.IGNORED; // someone holds it already, or it is cleared
+      }
+      selected[selectedCount++] = index;
+      flips++;
+
+      if (symbols[index] != symbols[selected[0]]) {
+        awaitingFlipBack = true;
+        return TileBoard.Outcome.MISMATCHED;
+      }
+      if (selectedCount < identicalTilesToCancel) {
+        return TileBoard.Outcome.SELECTED;
+      }
+      return publish();
+    }
+
+    /* gives the selected tiles back to everyone, after a failed group or when giving up */
+    public void flipBack() {
+      for (int i = 0; i < selectedCount; i++) {
+        states.set(selected[i], HIDDEN);
+      }
+      selectedCount = 0;
+      awaitingFlipBack = false;
+    }
+
+    private TileBoard.Outcome publish() {
+      int group = nextGroup.getAndIncrement();
+      int base = group * identicalTilesToCancel;
+      int symbol = symbols[selected[0]];
+      for (int i = 0; i < selectedCount; i++) {
+        states.set(selected[i], CLEARED);
+        groupPositions[base + i] = selected[i];
+      }
+      groupSymbols.set(group, symbol); // publishes the positions written above
+      live[symbol % STRIPES].remove(symbol);
+      selectedCount = 0;
+      /* whoever publishes the last group completes the board, not whoever took the last slot */
+      return publishedGroups.incrementAndGet() == differentTiles ? TileBoard.Outcome.COMPLETED
+          : TileBoard.Outcome.MATCHED;
+    }
+
+    /* next cleared group this player has not seen yet, -1 when there is none */
+    public int nextClearedGroup() {
+      if (groupCursor < differentTiles && groupSymbols.get(groupCursor) != UNPUBLISHED) {
+        return groupCursor++;
+      }
+      return -1;
+    }
+
+    public int selectedCount() {
+      return selectedCount;
+    }
+
+    public int selectedAt(int i) {
+      return selected[i];
+    }
+
+    public boolean isAwaitingFlipBack() {
+      return awaitingFlipBack;
+    }
+
+    public int flips() {
+      return flips;
+    }
+  }
+
+  /* symbol of a cleared group, only valid for groups returned by nextClearedGroup() */
+  public int groupSymbol(int group) {
+    return groupSymbols.get(group);
+  }
+
+  public int groupPosition(int group, int i) {
+    return groupPositions[group * identicalTilesToCancel + i];
+  }
+
+  /* HIDDEN, CLEARED or the id of the player holding the tile */
+  public int stateAt(int index) {
+    return states.get(index);
+  }
+
+  /* symbols are public knowledge once a tile is face up, bots may peek through here */
+  public int symbolAt(int index) {
+    return symbols[index];
+  }
+
+  public boolean isCompleted() {
+    return publishedGroups.get() == differentTiles;
+  }
+
+  public int clearedGroups() {
+    return publishedGroups.get();
+  }
+
+  public int tileCount() {
+    return symbols.length;
+  }
+
+  public int rows() {
+    return rows;
+  }
+
+  public int cols() {
+    return cols;
+  }
+
+  public int differentTiles() {
+    return differentTiles;
+  }
+
+  public int identicalTilesToCancel() {
+    return identicalTilesToCancel;
+  }
+
+  /*
+   * random hidden tile: a random tile of a random symbol that is not cleared,
+   * at most RANDOM_PICKS times. -1 when every pick was held by a player (or
+   * the board is done), the caller tries again later.
+   */
+  int randomHidden(SplittableRandom random) {
+    for (int pick = 0; pick < RANDOM_PICKS; pick++) {
+      int symbol = randomLiveSymbol(random);
+      if (symbol < 0) {
+        return -1;
+      }
+      int index = tilesBySymbol[symbol * identicalTilesToCancel + random.nextInt(identicalTilesToCancel)];
+      if (states.get(index) == HIDDEN) {
+        return index;
+      }
+    }
+    return -1;
+  }
+
+  /*
+   * a random symbol of the first stripe with live symbols from a random one
+   * on, -1 when every stripe is empty. a stale entry read during a removal
+   * is still a symbol, the state check of the caller sorts it out.
+   */
+  private int randomLiveSymbol(SplittableRandom random) {
+    int first = random.nextInt(STRIPES);
+    for (int i = 0; i < STRIPES; i++) {
+      Stripe stripe = live[(first + i) % STRIPES];
+      int count = stripe.count;
+      if (count > 0) {
+        return stripe.symbols.get(random.nextInt(count));
+      }
+    }
+    return -1;
+  }
+}
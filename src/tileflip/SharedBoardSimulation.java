@@ -0,0 +1,100 @@
+package tileflip;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * many simulated players clearing one SharedBoard at the same time.
+ * usage: java SharedBoardSimulation [players] [differentTiles] [identical] [mistake rate]
+ *
+ * the players know where every symbol is (they stand for players with a good
+ * memory), but with the given probability they flip a wrong tile instead.
+ * they race for the same tiles all the time, which is what this measures.
+ * the run is repeated with 1, 2, 4, ... players up to the given count.
+ */
+public class SharedBoardSimulation {
+
+  /* returns the total flips of all players until the board was cleared */
+  public static long run(SharedBoard board, int players, double mistakeRate) throws InterruptedException {
+    int[] positions = positionsBySymbol(board);
+    LongAdder flips = new LongAdder();
+    CountDownLatch done = new CountDownLatch(players);
+    for (int p = 0; p < players; p++) {
+      long seed = p;
+      Thread thread = new Thread(() -> {
+        SharedBoard.Player player = board.join();
+        play(board, player, positions, new SplittableRandom(seed), mistakeRate);
+        flips.add(player.flips());
+        done.countDown();
+      }, "player-" + p);
+      thread.start();
+    }
+    done.await();
+    return flips.sum();
+  }
+
+  private static void play(SharedBoard board, SharedBoard.Player player, int[] positions, SplittableRandom random,
+      double mistakeRate) {
+    int k = board.identicalTilesToCancel();
+    while (!board.isCompleted()) {
+      int first = board.randomHidden(random);
+      if (first < 0 || player.flip(first) == TileBoard.Outcome.IGNORED) {
+        Thread.onSpinWait(); // every tile is held by someone right now, or we lost the race
+        continue;
+      }
+      TileBoard.Outcome outcome = TileBoard.Outcome.SELECTED;
+      int base = board.symbolAt(first) * k;
+      for (int i = 0; i < k && outcome == TileBoard.Outcome.SELECTED; i++) {
+        int next = random.nextDouble() < mistakeRate ? board.randomHidden(random) : positions[base + i];
+        if (next < 0 || next == first) {
+          continue;
+        }
+        outcome = player.flip(next);
+        if (outcome == TileBoard.Outcome.IGNORED) {
+          break; // another player holds a tile of this group, give up
+        }
+      }
+      if (outcome != TileBoard.Outcome.MATCHED && outcome != TileBoard.Outcome.COMPLETED) {
+        player.flipBack();
+        if (outcome == TileBoard.Outcome.IGNORED) {
+          Thread.yield(); // let the player holding the group finish it instead of racing it again
+        }
+      }
+      /* read what the others cleared meanwhile, like a client updating its view */
+      while (player.nextClearedGroup() >= 0) {
+        // nothing to draw in a simulation
+      }
+    }
+  }
+
+  /* the k positions of every symbol, symbol by symbol */
+  private static int[] positionsBySymbol(SharedBoard board) {
+    int k = board.identicalTilesToCancel();
+    int[] positions = new int[board.tileCount()];
+    int[] filled = new int[board.differentTiles()];
+    for (int i = 0; i < board.tileCount(); i++) {
+      int symbol = board.symbolAt(i);
+      positions[symbol * k + filled[symbol]++] = i;
+    }
+    return positions;
+  }
+
+  public static void main(String[] args) throws InterruptedException {
+    System.setProperty("java.awt.headless", "true");
+    int maxPlayers = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+    int differentTiles = args.length > 1 ? Integer.parseInt(args[1]) : 25_000;
+    int identical = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+    double mistakeRate = args.length > 3 ? Double.parseDouble(args[3]) : 0.2;
+
+    for (int players = 1; players <= maxPlayers; players = players < maxPlayers ? Math.min(maxPlayers, players * 2)
+        : maxPlayers + 1) {
+      SharedBoard board = new SharedBoard(differentTiles, identical, players);
+      long start = System.nanoTime();
+      long flips = run(board, players, mistakeRate);
+      double seconds = (System.nanoTime() - start) / 1e9;
+      System.out.printf("%d players cleared %d tiles: %d flips in %.3f s (%.0f flips/s)%n",
+          players, board.tileCount(), flips, seconds, flips / seconds);
+    }
+  }
+}
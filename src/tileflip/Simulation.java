@@ -0,0 +1,41 @@
+package tileflip;
+
+/*
+ * headless regression / bot run of the game rules.
+ * usage: java Simulation [differentTiles] [identicalTilesToCancel] [games] [seed]
+ * no window is created, the board engine is driven directly by a BotPlayer.
+ */
+public class Simulation {
+
+  /*
+   * plays the given number of games on one reused board.
+   * returns the total number of flips used by the bot.
+   */
+  public static long run(int differentTiles, int identicalTilesToCancel, int games, long seed) {
+    TileBoard board = new TileBoard(differentTiles, identicalTilesToCancel, seed);
+    BotPlayer bot = new BotPlayer(differentTiles, identicalTilesToCancel);
+    long totalFlips = 0;
+    for (int game = 0; game < games; game++) {
+      if (game > 0) {
+        board.reset(seed + game);
+      }
+      totalFlips += bot.playGame(board);
+    }
+    return totalFlips;
+  }
+
+  public static void main(String[] args) {
+    System.setProperty("java.awt.headless", "true");
+    int differentTiles = args.length > 0 ? Integer.parseInt(args[0]) : 12;
+    int identical = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+    int games = args.length > 2 ? Integer.parseInt(args[2]) : 100_000;
+    long seed = args.length > 3 ? Long.parseLong(args[3]) : System.nanoTime();
+
+    long start = System.nanoTime();
+    long flips = run(differentTiles, identical, games, seed);
+    double seconds = (System.nanoTime() - start) / 1e9;
+
+    System.out.printf("%d games of %d x %d: %d flips in %.3f s (%.0f flips/s, %.2f flips per game)%n",
+        games, differentTiles, identical, flips, seconds, flips / seconds, (double) flips / games);
+  }
+}
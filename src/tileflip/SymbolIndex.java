@@ -0,0 +1,110 @@
+package tileflip;
+
+/*
+ * inverted index of a board: for every symbol the tiles that are not cleared
+ * yet, so hints and remaining counts never scan the board.
+ *
+ * the tiles are stored grouped by symbol in one array (compressed rows, like
+ * a sparse matrix): the tiles of symbol s sit in positions[start[s]] up to
+ * positions[start[s + 1]], the remaining ones first. clearing a tile swaps it
+ * with the last remaining tile of its symbol, which is O(1) because slot[]
+ * knows where every tile is. the symbols that still have tiles are kept the
+ * same way in live[], so a random remaining group is O(1) too.
+ */
+final class SymbolIndex {
+  private final int[] start;
+  private final int[] positions;
+  private final int[] slot;
+  private final int[] remaining;
+  private final int[] live;
+  private final int[] liveSlot;
+  private int liveCount;
+  private int remainingTiles;
+
+  /* counting sort of the tiles by symbol, then the cleared ones are taken out. O(tiles) */
+  SymbolIndex(TileBoard board) {
+    int symbols = board.differentTiles();
+    int tiles = board.tileCount();
+    start = new int[symbols + 1];
+    positions = new int[tiles];
+    slot = new int[tiles];
+    remaining = new int[symbols];
+    live = new int[symbols];
+    liveSlot = new int[symbols];
+    for (int i = 0; i < tiles; i++) {
+      start[board.symbolAt(i) + 1]++;
+    }
+    for (int s = 0; s < symbols; s++) {
+      start[s + 1] += start[s];
+    }
+    for (int i = 0; i < tiles; i++) {
+      int symbol = board.symbolAt(i);
+      int at = start[symbol] + remaining[symbol]++;
+      positions[at] = i;
+      slot[i] = at;
+    }
+    for (int s = 0; s < symbols; s++) {
+      live[s] = s;
+      liveSlot[s] = s;
+    }
+    liveCount = symbols;
+    remainingTiles = tiles;
+    for (int i = 0; i < tiles; i++) {
+      if (board.isCleared(i)) {
+        remove(i, board.symbolAt(i));
+      }
+    }
+  }
+
+  /* a tile got cleared */
+  void remove(int tile, int symbol) {
+    int at = slot[tile];
+    int last = start[symbol] + --remaining[symbol];
+    if (at > last) {
+      remaining[symbol]++; // already removed
+      return;
+    }
+    int moved = positions[last];
+    positions[last] = tile;
+    slot[tile] = last;
+    positions[at] = moved;
+    slot[moved] = at;
+    remainingTiles--;
+    if (remaining[symbol] == 0) {
+      int other = live[--liveCount];
+      int freed = liveSlot[symbol];
+      live[freed] = other;
+      liveSlot[other] = freed;
+      live[liveCount] = symbol;
+      liveSlot[symbol] = liveCount;
+    }
+  }
+
+  /* tiles of the symbol that are not cleared */
+  int remaining(int symbol) {
+    return remaining[symbol];
+  }
+
+  /* the i-th tile of the symbol that is not cleared, i < remaining(symbol), in no particular order */
+  int remainingAt(int symbol, int i) {
+    return positions[start[symbol] + i];
+  }
+
+  int remainingTiles() {
+    return remainingTiles;
+  }
+
+  /* symbols with tiles left, a group is cleared all at once so these are the groups left */
+  int remainingGroups() {
+    return liveCount;
+  }
+
+  /* the i-th symbol with tiles left, i < remainingGroups(), in no particular order */
+  int remainingGroup(int i) {
+    return live[i];
+  }
+
+  boolean isEmpty() {
+    return liveCount == 0;
+  }
+}
@@ -0,0 +1,67 @@
+package tileflip;
+
+/*
+ * text shown on a tile for a symbol id.
+ * order of symbols: A-Z, then AA-ZZ, then AAA-ZZZ... (bijective base 26).
+ * boards only carry int ids, a label is produced when a tile is drawn.
+ */
+class SymbolLabels {
+  /* FIRST_ID[n] = id of the first label with n + 1 letters: A, AA, AAA, ... */
+  private static final long[] FIRST_ID = new long[8];
+  /* labels already asked for, the small ids are the ones drawn most */
+  private static final String[] MEMO = new String[1 << 16];
+
+  static {
+    long first = 0;
+    long count = 26;
+    for (int n = 0; n < FIRST_ID.length; n++) {
+      FIRST_ID[n] = first;
+      first += count;
+      count *= 26;
+    }
+  }
+
+  private SymbolLabels() {
+  }
+
+  /* number of letters in the label of the id */
+  public static int length(int id) {
+    int length = 1;
+    while (length < FIRST_ID.length && id >= FIRST_ID[length]) {
+      length++;
+    }
+    return length;
+  }
+
+  /*
+   * writes the label of the id into dest starting at offset, without
+   * allocating. returns the number of chars written.
+   */
+  public static int write(int id, char[] dest, int offset) {
+    int length = length(id);
+    long value = id - FIRST_ID[length - 1]; // plain base 26 with exactly length digits
+    for (int i = offset + length - 1; i >= offset; i--) {
+      dest[i] = (char) ('A' + value % 26);
+      value /= 26;
+    }
+    return length;
+  }
+
+  public static String label(int id) {
+    if (id < MEMO.length) {
+      String label = MEMO[id];
+      if (label == null) {
+        label = build(id);
+        MEMO[id] = label;
+      }
+      return label;
+    }
+    return build(id);
+  }
+
+  private static String build(int id) {
+    char[] chars = new char[length(id)];
+    write(id, chars, 0);
+    return new String(chars);
+  }
+}
@@ -0,0 +1,307 @@
+package tileflip;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/*
+ * the game in a terminal, for boxes that are only reachable over SSH.
+ * usage: java tileflip.Main --terminal <differentTiles> <identical> [seed]
+ * a tile is flipped by typing "<row> <column>", "h" shows a hint, "q" quits.
+ *
+ * the screen is drawn once, afterwards a frame only rewrites the cells that
+ * changed, each reached with an ANSI cursor position (skipped when the cell
+ * follows the one written before it). a frame is built in memory and goes
+ * out in one write and one flush, so a move costs a few dozen bytes on the
+ * link whatever the size of the board. matching is TileBoard's, which checks
+ * a flip against the selection only and never scans the board.
+ */
+final class TerminalGame {
+  private static final String ESC = "\u001b[";
+  private static final int FACE_DOWN = 0;
+  private static final int FACE_UP = 1;
+  private static final int CLEARED = 2;
+  private static final int HINTED = 3;
+  /* screen lines, 1 based: status, column numbers, the board, then message and prompt */
+  private static final int BOARD_TOP = 3;
+
+  private final TileBoard board;
+  private final Writer out;
+  private final int cellWidth;
+  private final int rowLabelWidth;
+  private final int revealDelay = TurnScheduler.DEFAULT_REVEAL_DELAY;
+  private final SplittableRandom random = new SplittableRandom();
+
+  /* what each tile shows on the screen now, -1 before the first frame */
+  private final int[] shown;
+  /* tiles to look at in the next frame, without duplicates */
+  private int[] dirty = new int[64];
+  private int dirtyCount;
+  private final boolean[] isDirty;
+  private final StringBuilder frame = new StringBuilder(4096);
+  private char[] frameChars = new char[4096];
+  private final char[] label = new char[16];
+  private String message = "";
+  private String shownStatus;
+  private String shownMessage;
+  private int hintedTile = -1;
+  private long startTime;
+
+  TerminalGame(TileBoard board, Writer out) {
+    this.board = board;
+    this.out = out;
+    this.cellWidth = Math.max(SymbolLabels.length(board.differentTiles() - 1), digits(board.cols()));
+    this.rowLabelWidth = digits(board.rows());
+    this.shown = new int[board.tileCount()];
+    this.isDirty = new boolean[board.tileCount()];
+    Arrays.fill(shown, -1);
+  }
+
+  /* reads moves until the board is complete or the player quits, true when it was completed */
+  boolean play(BufferedReader in) throws IOException {
+    startTime = System.nanoTime();
+    drawAll();
+    String line;
+    while (!board.isCompleted() && (line = in.readLine()) != null) {
+      line = line.trim();
+      if (line.equals("q")) {
+        break;
+      }
+      if (hintedTile >= 0) {
+        markDirty(hintedTile);
+        hintedTile = -1;
+      }
+      if (line.equals("h")) {
+        hintedTile = board.hint(random);
+        message = hintedTile < 0 ? "no hint right now" : "try the marked tile";
+        if (hintedTile >= 0) {
+          markDirty(hintedTile);
+        }
+      } else {
+        int tile = parse(line);
+        message = tile < 0 ? "type <row> <column>, h for a hint or q to quit" : "";
+        if (tile >= 0) {
+          flip(tile);
+        }
+      }
+      render();
+    }
+    return board.isCompleted();
+  }
+
+  private void flip(int tile) throws IOException {
+    TileBoard.Outcome outcome = board.flip(tile);
+    switch (outcome) {
+      case IGNORED -> message = "that tile is already face up";
+      case SELECTED -> markDirty(tile);
+      case MATCHED, COMPLETED -> {
+        markResolved();
+        message = outcome == TileBoard.Outcome.MATCHED ? "a set is cleared" : "";
+      }
+      case MISMATCHED -> {
+        /* shown for the reveal delay, moves typed meanwhile wait in the terminal */
+        markResolved();
+        message = "no match";
+        render();
+        try {
+          Thread.sleep(revealDelay);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        board.flipBack();
+        markResolved();
+        message = "";
+      }
+    }
+  }
+
+  private void markResolved() {
+    for (int i = 0; i < board.resolvedCount(); i++) {
+      markDirty(board.resolvedAt(i));
+    }
+  }
+
+  private void markDirty(int tile) {
+    if (!isDirty[tile]) {
+      isDirty[tile] = true;
+      if (dirtyCount == dirty.length) {
+        dirty = Arrays.copyOf(dirty, dirtyCount * 2);
+      }
+      dirty[dirtyCount++] = tile;
+    }
+  }
+
+  /* "<row> <column>", 1 based, -1 when it is not a tile */
+  private int parse(String line) {
+    String[] parts = line.split("[\\s,]+");
+    if (parts.length != 2) {
+      return -1;
+    }
+    try {
+      int row = Integer.parseInt(parts[0]) - 1;
+      int col = Integer.parseInt(parts[1]) - 1;
+      if (row < 0 || row >= board.rows() || col < 0 || col >= board.cols()) {
+        return -1;
+      }
+      return row * board.cols() + col;
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+
+  /* the first frame: clears the screen and writes every line */
+  private void drawAll() throws IOException {
+    frame.setLength(0);
+    frame.append(ESC).append("2J").append(ESC).append("H");
+    moveTo(2, rowLabelWidth + 2);
+    for (int col = 0; col < board.cols(); col++) {
+      pad(Integer.toString(col + 1), cellWidth + 1);
+    }
+    for (int row = 0; row < board.rows(); row++) {
+      moveTo(BOARD_TOP + row, 1);
+      pad(Integer.toString(row + 1), rowLabelWidth + 1);
+    }
+    for (int tile = 0; tile < board.tileCount(); tile++) {
+      markDirty(tile);
+    }
+    render();
+  }
+
+  /* appends the changed cells in screen order, then status, message and prompt. one write, one flush */
+  private void render() throws IOException {
+    Arrays.sort(dirty, 0, dirtyCount);
+    int cursorTile = -2; // the tile the cursor stands in front of
+    for (int i = 0; i < dirtyCount; i++) {
+      int tile = dirty[i];
+      isDirty[tile] = false;
+      int state = stateOf(tile);
+      if (shown[tile] == state) {
+        continue;
+      }
+      shown[tile] = state;
+      if (tile != cursorTile || tile % board.cols() == 0) {
+        moveTo(BOARD_TOP + tile / board.cols(), rowLabelWidth + 2 + (tile % board.cols()) * (cellWidth + 1));
+      }
+      cell(tile, state);
+      cursorTile = tile + 1;
+    }
+    dirtyCount = 0;
+    /* the lines around the board only when they say something new, the prompt line always (it holds the echo) */
+    String status = String.format("%dx%d  cleared %d of %d sets  flips %d  %ds", board.differentTiles(),
+        board.identicalTilesToCancel(), board.clearedGroups(), board.differentTiles(), board.flipCount(),
+        (System.nanoTime() - startTime) / 1_000_000_000);
+    if (!status.equals(shownStatus)) {
+      moveTo(1, 1);
+      frame.append(ESC).append("K").append(status);
+      shownStatus = status;
+    }
+    int below = BOARD_TOP + board.rows() + 1;
+    if (!message.equals(shownMessage)) {
+      moveTo(below, 1);
+      frame.append(ESC).append("K").append(message);
+      shownMessage = message;
+    }
+    moveTo(below + 1, 1);
+    frame.append(ESC).append("K").append("> ");
+    flush();
+  }
+
+  private int stateOf(int tile) {
+    if (board.isCleared(tile)) {
+      return CLEARED;
+    }
+    if (board.isFlipped(tile)) {
+      return FACE_UP;
+    }
+    return tile == hintedTile ? HINTED : FACE_DOWN;
+  }
+
+  /* the cell text and the space after it, the attributes are reset after every cell */
+  private void cell(int tile, int state) {
+    switch (state) {
+      case FACE_UP -> frame.append(ESC).append("1;33m");
+      case CLEARED -> frame.append(ESC).append("2m");
+      case HINTED -> frame.append(ESC).append("7m");
+      default -> {
+      }
+    }
+    int start = frame.length();
+    if (state == FACE_UP || state == CLEARED) {
+      frame.append(label, 0, SymbolLabels.write(board.symbolAt(tile), label, 0));
+    }
+    while (frame.length() - start < cellWidth) {
+      frame.append(state == FACE_UP || state == CLEARED ? ' ' : '.');
+    }
+    if (state != FACE_DOWN) {
+      frame.append(ESC).append("0m");
+    }
+    frame.append(' ');
+  }
+
+  private void moveTo(int line, int column) {
+    frame.append(ESC).append(line).append(';').append(column).append('H');
+  }
+
+  private void pad(String text, int width) {
+    frame.append(text);
+    for (int i = text.length(); i < width; i++) {
+      frame.append(' ');
+    }
+  }
+
+  private void flush() throws IOException {
+    int length = frame.length();
+    if (frameChars.length < length) {
+      frameChars = new char[Math.max(length, frameChars.length * 2)];
+    }
+    frame.getChars(0, length, frameChars, 0);
+    out.write(frameChars, 0, length);
+    out.flush();
+    frame.setLength(0);
+  }
+
+  private static int digits(int value) {
+    return Integer.toString(value).length();
+  }
+
+  /* the board the arguments ask for: <differentTiles> <identical> [seed], IllegalArgumentException when they do not fit */
+  static TileBoard newBoard(String[] args) {
+    int differentTiles = Integer.parseInt(args[0]);
+    int identical = Integer.parseInt(args[1]);
+    long seed = args.length > 2 ? Long.parseLong(args[2]) : new SplittableRandom().nextLong();
+    return BoardGenerator.newBoard(differentTiles, identical, seed, BoardGenerator.Constraint.NONE);
+  }
+
+  /* plays the board on stdin and stdout, a won game is stored as a score of the player */
+  static void run(TileBoard board) throws IOException {
+    Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 1 << 16);
+    BufferedReader in = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+    TerminalGame game = new TerminalGame(board, out);
+    boolean completed = game.play(in);
+    long millis = (System.nanoTime() - game.startTime) / 1_000_000;
+    out.write(ESC + (BOARD_TOP + board.rows() + 2) + ";1H\n");
+    if (completed) {
+      out.write(String.format("All sets cleared in %.3f seconds with %d flips.%n", millis / 1000.0,
+          board.flipCount()));
+      /*
+       * no leaderboard to rank in, the score only goes to the store. the join
+       * waits until the score-store thread has opened the profile and handed
+       * the score to its ScoreWriter, whose shutdown hook writes what is
+       * still queued when the process exits.
+       */
+      PlayerData.store(new ScoreRecord(System.currentTimeMillis(), millis, board.flipCount(),
+          board.identicalTilesToCancel(), board.differentTiles())).join();
+    }
+    out.flush();
+  }
+
+  public static void main(String[] args) throws IOException {
+    run(newBoard(args));
+  }
+}
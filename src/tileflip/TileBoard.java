@@ -0,0 +1,373 @@
+package tileflip;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Random;
+import java.util.random.RandomGenerator;
+
+/*
+ * headless model of a single game board.
+ * symbols are int ids (0 = "A", 1 = "B", ...), flipped and cleared state are
+ * kept in bitsets of long words, so the rules never touch a Swing component
+ * and can run with java.awt.headless=true.
+ */
+class TileBoard {
+
+  /* what happened after a tile got flipped */
+  enum Outcome {
+    IGNORED, // tile already flipped / cleared, or a mismatch is still shown
+    SELECTED, // tile added to the current selection
+    MATCHED, // selection completed and all symbols were identical
+    MISMATCHED, // tile differs from the selection, call flipBack()
+    COMPLETED // last group matched, the game is over
+  }
+
+  private final int differentTiles;
+  private final int identicalTilesToCancel;
+  private final int rows;
+  private final int cols;
+  private final int[] symbols;
+  private final long[] flipped;
+  private final long[] cleared;
+
+  /* tiles of the current selection, or of the group resolved last */
+  private final int[] selected;
+  private int selectedCount;
+  private int resolvedCount;
+  private boolean awaitingFlipBack;
+
+  private int clearedGroups;
+  private int flipCount;
+  /* built on the first hint or count query, then kept up to date by flip() */
+  private SymbolIndex symbolIndex;
+
+  public TileBoard(int differentTiles, int identicalTilesToCancel, long seed) {
+    this(differentTiles, identicalTilesToCancel, new int[checkedTileCount(differentTiles, identicalTilesToCancel)],
+        new long[wordsFor(differentTiles * identicalTilesToCancel)],
+        new long[wordsFor(differentTiles * identicalTilesToCancel)]);
+    reset(seed);
+  }
+
+  private TileBoard(int differentTiles, int identicalTilesToCancel, int[] symbols, long[] flipped, long[] cleared) {
+    this.differentTiles = differentTiles;
+    this.identicalTilesToCancel = identicalTilesToCancel;
+    this.rows = calculateRows(symbols.length);
+    this.cols = symbols.length / rows;
+    this.symbols = symbols;
+    this.flipped = flipped;
+    this.cleared = cleared;
+    this.selected = new int[identicalTilesToCancel];
+  }
+
+  /* a board on symbols dealt elsewhere (BoardGenerator), the array is taken over */
+  static TileBoard dealt(int differentTiles, int identicalTilesToCancel, int[] symbols) {
+    int tiles = checkedTileCount(differentTiles, identicalTilesToCancel);
+    if (symbols.length != tiles) {
+      throw new IllegalArgumentException("dealt " + symbols.length + " symbols for " + tiles + " tiles");
+    }
+    return new TileBoard(differentTiles, identicalTilesToCancel, symbols, new long[wordsFor(tiles)],
+        new long[wordsFor(tiles)]);
+  }
+
+  private static int checkedTileCount(int differentTiles, int identicalTilesToCancel) {
+    if (differentTiles <= 0 || identicalTilesToCancel <= 0) {
+      throw new IllegalArgumentException("Values must be positive integers.");
+    }
+    long totalTiles = (long) differentTiles * identicalTilesToCancel;
+    if (totalTiles > Integer.MAX_VALUE - 8) {
+      throw new IllegalArgumentException("too many tiles: " + totalTiles);
+    }
+    return (int) totalTiles;
+  }
+
+  /*
+   * a board in a saved state (see BoardSnapshot), the arrays are taken over.
+   * the deal must be complete, every symbol id identicalTilesToCancel times.
+   * the rest is repaired rather than trusted, since a save can be torn between
+   * pages: a group that is only partly cleared is turned face down again, and
+   * so are the face up tiles when they do not form a selection that flip()
+   * could have left. a failed group that was still shown is flipped back.
+   */
+  static TileBoard restore(int differentTiles, int identicalTilesToCancel, int[] symbols, long[] flipped,
+      long[] cleared, int[] selection, int selectionCount, int flipCount) {
+    int tiles = checkedTileCount(differentTiles, identicalTilesToCancel);
+    if (symbols.length != tiles || flipped.length != wordsFor(tiles) || cleared.length != wordsFor(tiles)) {
+      throw new IllegalArgumentException("saved board does not have " + tiles + " tiles");
+    }
+    TileBoard board = new TileBoard(differentTiles, identicalTilesToCancel, symbols, flipped, cleared);
+    int[] dealt = new int[differentTiles];
+    int[] clearedOfSymbol = new int[differentTiles];
+    for (int i = 0; i < tiles; i++) {
+      int symbol = symbols[i];
+      if (symbol < 0 || symbol >= differentTiles || ++dealt[symbol] > identicalTilesToCancel) {
+        throw new IllegalArgumentException("saved board has a broken deal at tile " + i);
+      }
+      if (get(cleared, i)) {
+        clearedOfSymbol[symbol]++;
+      }
+    }
+    for (int i = 0; i < tiles; i++) {
+      if (get(cleared, i) && clearedOfSymbol[symbols[i]] != identicalTilesToCancel) {
+        clear(cleared, i);
+        clear(flipped, i);
+      }
+    }
+    int faceUp = 0;
+    for (int w = 0; w < flipped.length; w++) {
+      flipped[w] |= cleared[w];
+      faceUp += Long.bitCount(flipped[w] & ~cleared[w]);
+    }
+    for (int symbol = 0; symbol < differentTiles; symbol++) {
+      if (clearedOfSymbol[symbol] == identicalTilesToCancel) {
+        board.clearedGroups++;
+      }
+    }
+    board.flipCount = Math.max(flipCount, 0);
+
+    boolean consistent = selectionCount == faceUp && selectionCount <= identicalTilesToCancel;
+    for (int i = 0; consistent && i < selectionCount; i++) {
+      int index = selection[i];
+      consistent = index >= 0 && index < tiles && board.isFlipped(index) && !board.isCleared(index)
+          && (i == selectionCount - 1 || symbols[index] == symbols[selection[0]]);
+      for (int j = 0; consistent && j < i; j++) {
+        consistent = selection[j] != index;
+      }
+    }
+    if (consistent && selectionCount > 0) {
+      System.arraycopy(selection, 0, board.selected, 0, selectionCount);
+      board.selectedCount = selectionCount;
+      boolean failed = symbols[selection[selectionCount - 1]] != symbols[selection[0]];
+      if (failed || selectionCount == identicalTilesToCancel) {
+        board.awaitingFlipBack = true; // a full group is never left selected, treat it as failed
+        board.flipBack();
+      }
+    } else if (!consistent) {
+      for (int w = 0; w < flipped.length; w++) {
+        flipped[w] = cleared[w];
+      }
+    }
+    return board;
+  }
+
+  /*
+   * arranging the number of rows based on the total number of tiles.
+   * algorithm: min(abs(rows-cols)), which means to make the rectangle as close
+   * to a square as possible. the first divisor below the square root is the
+   * closest one, so the search stops there.
+   */
+  static int calculateRows(int totalTiles) {
+    for (int r = (int) Math.sqrt(totalTiles); r > 1; r--) {
+      if (totalTiles % r == 0) {
+        return r;
+      }
+    }
+    return 1;
+  }
+
+  /*
+   * deals a new shuffled board with the same settings, without allocating.
+   * every symbol id appears identicalTilesToCancel times.
+   */
+  public void reset(long seed) {
+    for (int i = 0; i < symbols.length; i++) {
+      symbols[i] = i / identicalTilesToCancel;
+    }
+    /* Fisher-Yates shuffle, randomize tile symbol order */
+    Random random = new Random(seed);
+    for (int i = symbols.length - 1; i > 0; i--) {
+      int j = random.nextInt(i + 1);
+      int tmp = symbols[i];
+      symbols[i] = symbols[j];
+      symbols[j] = tmp;
+    }
+    Arrays.fill(flipped, 0L);
+    Arrays.fill(cleared, 0L);
+    selectedCount = 0;
+    resolvedCount = 0;
+    awaitingFlipBack = false;
+    clearedGroups = 0;
+    flipCount = 0;
+    symbolIndex = null;
+  }
+
+  /*
+   * flips a face-down tile and adds it to the selection.
+   * every flip is checked right away against the first tile of the selection:
+   * a different symbol fails the group at once (it stays face up until
+   * flipBack()), and identicalTilesToCancel equal symbols clear the group.
+   */
+  public Outcome flip(int index) {
+    Objects.checkIndex(index, symbols.length);
+    if (awaitingFlipBack || isFlipped(index) || isCleared(index)) {
+      return Outcome.IGNORED;
+    }
+    set(flipped, index);
+    selected[selectedCount++] = index;
+    flipCount++;
+
+    /* use the symbol on the first clicked tile as a tester */
+    if (symbols[index] != symbols[selected[0]]) {
+      awaitingFlipBack = true;
+      resolvedCount = selectedCount;
+      return Outcome.MISMATCHED;
+    }
+    if (selectedCount < identicalTilesToCancel) {
+      return Outcome.SELECTED;
+    }
+
+    for (int i = 0; i < selectedCount; i++) {
+      set(cleared, selected[i]); // freeze the canceled tiles
+      if (symbolIndex != null) {
+        symbolIndex.remove(selected[i], symbols[index]);
+      }
+    }
+    resolvedCount = selectedCount;
+    selectedCount = 0;
+    clearedGroups++;
+    return clearedGroups == differentTiles ? Outcome.COMPLETED : Outcome.MATCHED;
+  }
+
+  /* flip the tiles back after a mismatch */
+  public void flipBack() {
+    if (!awaitingFlipBack) {
+      return;
+    }
+    for (int i = 0; i < selectedCount; i++) {
+      clear(flipped, selected[i]);
+    }
+    selectedCount = 0;
+    awaitingFlipBack = false;
+  }
+
+  /*
+   * tiles of the group resolved by the last MATCHED, MISMATCHED or COMPLETED
+   * outcome. only valid until the next flip.
+   */
+  public int resolvedCount() {
+    return resolvedCount;
+  }
+
+  public int resolvedAt(int i) {
+    return selected[i];
+  }
+
+  public int selectedCount() {
+    return selectedCount;
+  }
+
+  public int selectedAt(int i) {
+    return selected[i];
+  }
+
+  public boolean isAwaitingFlipBack() {
+    return awaitingFlipBack;
+  }
+
+  public boolean isFlipped(int index) {
+    return get(flipped, index);
+  }
+
+  public boolean isCleared(int index) {
+    return get(cleared, index);
+  }
+
+  public boolean isCompleted() {
+    return clearedGroups == differentTiles;
+  }
+
+  SymbolIndex symbolIndex() {
+    if (symbolIndex == null) {
+      symbolIndex = new SymbolIndex(this);
+    }
+    return symbolIndex;
+  }
+
+  /* tiles of the symbol that are not cleared yet */
+  public int remainingOf(int symbol) {
+    return symbolIndex().remaining(symbol);
+  }
+
+  /*
+   * a face-down tile worth flipping: one that continues the current
+   * selection, otherwise a tile of a random group that is left. -1 while a
+   * failed group is shown or when the board is complete. O(identicalTilesToCancel)
+   */
+  public int hint(RandomGenerator random) {
+    if (awaitingFlipBack || isCompleted()) {
+      return -1;
+    }
+    SymbolIndex tilesLeft = symbolIndex();
+    int symbol = selectedCount > 0 ? symbols[selected[0]]
+        : tilesLeft.remainingGroup(random.nextInt(tilesLeft.remainingGroups()));
+    int count = tilesLeft.remaining(symbol);
+    int offset = random.nextInt(count);
+    for (int i = 0; i < count; i++) {
+      int tile = tilesLeft.remainingAt(symbol, (offset + i) % count);
+      if (!isFlipped(tile)) {
+        return tile;
+      }
+    }
+    return -1;
+  }
+
+  public int symbolAt(int index) {
+    return symbols[index];
+  }
+
+  public int rows() {
+    return rows;
+  }
+
+  public int cols() {
+    return cols;
+  }
+
+  public int tileCount() {
+    return symbols.length;
+  }
+
+  public int differentTiles() {
+    return differentTiles;
+  }
+
+  public int identicalTilesToCancel() {
+    return identicalTilesToCancel;
+  }
+
+  public int clearedGroups() {
+    return clearedGroups;
+  }
+
+  public int flipCount() {
+    return flipCount;
+  }
+
+  /* the flipped and cleared bitsets a word (64 tiles) at a time, for BoardSnapshot */
+  int bitsetWords() {
+    return flipped.length;
+  }
+
+  long flippedWord(int word) {
+    return flipped[word];
+  }
+
+  long clearedWord(int word) {
+    return cleared[word];
+  }
+
+  static int wordsFor(int bits) {
+    return (bits + 63) >>> 6;
+  }
+
+  private static boolean get(long[] words, int index) {
+    return (words[index >>> 6] & (1L << index)) != 0;
+  }
+
+  private static void set(long[] words, int index) {
+    words[index >>> 6] |= 1L << index;
+  }
+
+  private static void clear(long[] words, int index) {
+    words[index >>> 6] &= ~(1L << index);
+  }
+}
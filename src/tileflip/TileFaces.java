@@ -0,0 +1,152 @@
+package tileflip;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BooleanSupplier;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+/*
+ * pictures instead of letters on the tiles, from -Dtileflip.faces=<directory>.
+ * the image files of the directory in name order are the faces of symbol 0,
+ * 1, 2 ...; symbols past the last image keep their letters.
+ *
+ * nothing here runs on the EDT: the directory is listed and every face is
+ * decoded on a small daemon pool. a big image is subsampled while it is read
+ * (never decoded at full resolution), then scaled once to the tile size it
+ * is wanted for. GlyphCache keeps the results within its memory bound.
+ */
+final class TileFaces {
+  private static final String[] EXTENSIONS = {".png", ".jpg", ".jpeg", ".gif", ".bmp"};
+  private static final TileFaces SHARED = fromSystemSettings();
+
+  private final Path directory;
+  private final ExecutorService decoders;
+  private List<Path> files; // listed by the first decode
+
+  TileFaces(Path directory, int threads) {
+    this.directory = directory;
+    this.decoders = Executors.newFixedThreadPool(threads, r -> {
+      Thread thread = new Thread(r, "face-decoder");
+      thread.setDaemon(true);
+      thread.setPriority(Thread.NORM_PRIORITY - 1);
+      return thread;
+    });
+  }
+
+  /* null when no face directory is set, the tiles show letters then */
+  static TileFaces shared() {
+    return SHARED;
+  }
+
+  private static TileFaces fromSystemSettings() {
+    String directory = System.getProperty("tileflip.faces");
+    if (directory == null) {
+      return null;
+    }
+    int threads = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
+    return new TileFaces(Paths.get(directory), threads);
+  }
+
+  /*
+   * the face of the symbol as a pixels x pixels image, completed on the pool
+   * with null when the symbol has no face. skipped (null as well) when
+   * `wanted` says no by the time a decoder gets to it.
+   */
+  CompletableFuture<BufferedImage> decode(int symbol, int pixels, BooleanSupplier wanted) {
+    return CompletableFuture.supplyAsync(() -> {
+      if (!wanted.getAsBoolean()) {
+        return null;
+      }
+      List<Path> faces = files();
+      if (symbol >= faces.size()) {
+        return null;
+      }
+      try {
+        return read(faces.get(symbol), pixels);
+      } catch (IOException e) {
+        throw new IllegalStateException("cannot read tile face " + faces.get(symbol), e);
+      }
+    }, decoders);
+  }
+
+  private synchronized List<Path> files() {
+    if (files == null) {
+      List<Path> found = new ArrayList<>();
+      try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory, TileFaces::isImage)) {
+        entries.forEach(found::add);
+      } catch (IOException e) {
+        e.printStackTrace(); // no faces, letters it is
+      }
+      found.sort(null);
+      files = found;
+    }
+    return files;
+  }
+
+  private static boolean isImage(Path file) {
+    String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+    for (String extension : EXTENSIONS) {
+      if (name.endsWith(extension)) {
+        return Files.isRegularFile(file);
+      }
+    }
+    return false;
+  }
+
+  /*
+   * reads every step-th pixel of every step-th row, so that the image read is
+   * still at least twice the wanted size, then scales it smoothly to fit
+   * into pixels x pixels with its aspect ratio. transparent around it.
+   */
+  static BufferedImage read(Path file, int pixels) throws IOException {
+    try (ImageInputStream in = ImageIO.createImageInputStream(file.toFile())) {
+      Iterator<ImageReader> readers = in == null ? null : ImageIO.getImageReaders(in);
+      if (readers == null || !readers.hasNext()) {
+        throw new IOException("not an image");
+      }
+      ImageReader reader = readers.next();
+      try {
+        reader.setInput(in, true, true);
+        int longest = Math.max(reader.getWidth(0), reader.getHeight(0));
+        int step = Math.max(1, longest / (2 * pixels));
+        ImageReadParam param = reader.getDefaultReadParam();
+        param.setSourceSubsampling(step, step, 0, 0);
+        return fit(reader.read(0, param), pixels);
+      } finally {
+        reader.dispose();
+      }
+    }
+  }
+
+  private static BufferedImage fit(BufferedImage source, int pixels) {
+    double scale = (double) pixels / Math.max(source.getWidth(), source.getHeight());
+    int width = Math.max(1, (int) Math.round(source.getWidth() * scale));
+    int height = Math.max(1, (int) Math.round(source.getHeight() * scale));
+    BufferedImage face = new BufferedImage(pixels, pixels, BufferedImage.TYPE_INT_ARGB);
+    Graphics2D g = face.createGraphics();
+    try {
+      g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+      g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+      g.drawImage(source, (pixels - width) / 2, (pixels - height) / 2, width, height, null);
+    } finally {
+      g.dispose();
+    }
+    return face;
+  }
+}
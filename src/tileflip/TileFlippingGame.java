@@ -0,0 +1,883 @@
+/*
+ * @author  Idwel
+ * @purpose Grade11 Semester2 end java GUI program
+ */
+package tileflip;
+
+import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
+import java.awt.event.KeyEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+
+public class TileFlippingGame extends JFrame {
+  private int rows;
+  private int cols;
+  final private int size = 800;
+  private int identicalTilesToCancel;
+  private TileBoard board; // all the game rules live in the headless board
+  private TileButton[] tiles; // one button per tile on small boards
+  private BoardCanvas canvas; // one component painting the whole board on large boards
+  private TurnScheduler scheduler; // one reveal timer and click queue per game
+  private GameSession session; // the journal, the snapshot and the score of the running game
+  /* when the board was asked for, to measure how long it took to build */
+  private long buildStartTime;
+  private ReplayJournal replaying; // a recorded game being shown, null when a person plays
+  private double replaySpeed = 1;
+  /* a launch played only to record its classes for AppCDS, it leaves no saved game or journal behind */
+  private boolean training;
+  /* the view of the last game, used again when the next board has as many tiles */
+  private TileButton[] spareTiles;
+  private BoardCanvas spareCanvas;
+  private int lastDifferentTiles; // settings of the last game, filled into the settings dialog
+  private final FlipAnimator animator = new FlipAnimator(); // every tile animation of the window
+  /* the buttons as one view for the animator, coordinates of the content pane */
+  private final FlipAnimator.View buttonView = new FlipAnimator.View() {
+    @Override
+    public boolean tileBounds(int index, Rectangle into) {
+      tiles[index].getBounds(into);
+      return true;
+    }
+
+    @Override
+    public void repaint(int x, int y, int width, int height) {
+      getContentPane().repaint(x, y, width, height);
+    }
+  };
+  private int hintedTile = -1; // marked for HINT_MILLIS after H was pressed
+  private final Timer hintTimer = new Timer(HINT_MILLIS, e -> showHint(-1));
+  /* drops the glyphs of other tile sizes once a resize of the window has settled */
+  private final Timer glyphTrim = new Timer(BoardCanvas.GLYPH_TRIM_DELAY_MILLIS, e -> trimGlyphs());
+  private final Random hintRandom = new Random();
+
+  /* boards with more tiles than this are painted by a BoardCanvas */
+  private static final int BUTTON_MODE_LIMIT = 400;
+  /* buttons created per event while a board is being filled */
+  private static final int TILE_CHUNK = 50;
+  /* what still fits in memory, how hard a board may be is decided by the DifficultyTable */
+  private static final int MAX_TILES = 10_000_000;
+  private static final int HINT_MILLIS = 1500;
+  /* the symbol of a cleared tile is greyed out like disabled text, fading there step by step */
+  private static final float CLEARED_ALPHA = 0.4f;
+  private static final AlphaComposite[] FADING = new AlphaComposite[16];
+
+  static {
+    for (int i = 0; i < FADING.length; i++) {
+      FADING[i] = AlphaComposite.getInstance(AlphaComposite.SRC_OVER,
+          1 - (1 - CLEARED_ALPHA) * i / (FADING.length - 1));
+    }
+  }
+  /* -Dtileflip.keepApart=true: no two identical symbols are dealt next to each other */
+  private static final boolean KEEP_APART = Boolean.getBoolean("tileflip.keepApart");
+  /* bot simulations for the settings dialog, one at a time, never on the EDT */
+  private static final ExecutorService ESTIMATES = Executors.newSingleThreadExecutor(r -> {
+    Thread thread = new Thread(r, "difficulty-estimate");
+    thread.setDaemon(true);
+    return thread;
+  });
+  /* the estimate waits until the typing pauses */
+  private static final int ESTIMATE_DELAY_MILLIS = 300;
+  /* boards this small were always accepted, only bigger ones can be refused as hopeless */
+  private static final int ALWAYS_ACCEPTED_TILES = 2000;
+
+  public TileFlippingGame() {
+    hintTimer.setRepeats(false);
+    glyphTrim.setRepeats(false);
+    GlyphCache.shared().setFaceListener(() -> getContentPane().repaint()); // a decoded tile face arrived
+    getRootPane().getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(KeyStroke.getKeyStroke(KeyEvent.VK_H, 0), "hint");
+    getRootPane().getActionMap().put("hint", new AbstractAction() {
+      @Override
+      public void actionPerformed(ActionEvent e) {
+        hint();
+      }
+    });
+    addWindowListener(new WindowAdapter() {
+      @Override
+      public void windowClosing(WindowEvent e) {
+        if (session != null) {
+          session.close();
+        }
+      }
+    });
+    addComponentListener(new ComponentAdapter() {
+      @Override
+      public void componentResized(ComponentEvent e) {
+        if (tiles != null) {
+          glyphTrim.restart();
+        }
+      }
+    });
+  }
+
+  /* grid cells differ by at most one pixel, keep only glyphs of those sizes */
+  private void trimGlyphs() {
+    if (tiles == null) {
+      return; // the board is gone meanwhile
+    }
+    Container content = getContentPane();
+    int tileSize = Math.min(content.getWidth() / cols, content.getHeight() / rows);
+    GlyphCache.shared().retainSizes(tileSize, tileSize + 1);
+  }
+
+  /*
+   * arranging the number of rows and columns based on the input of different
+   * *Tiles and identical Tiles To Cancel*.
+   * total tiles = tile sets * identical tiles to cancel = rows * cols
+   *
+   * the window shows up at once, the board is dealt on another thread and the
+   * tiles are put in when it is ready.
+   */
+  public void initializeGame(int differentTiles, int identicalTilesToCancel) {
+    this.identicalTilesToCancel = identicalTilesToCancel;
+    this.buildStartTime = System.nanoTime();
+    int generator = generatorFor(differentTiles, identicalTilesToCancel);
+    /* a rematch takes the board the pool dealt while the last game was played */
+    BoardPool.Dealt pooled = BoardPool.shared().take(generator, differentTiles, identicalTilesToCancel);
+    if (pooled != null) {
+      showDealing(); // replaced within the same event
+      boardDealt(pooled);
+      return;
+    }
+    long seed = new Random().nextLong();
+    dealBoard(() -> BoardPool.deal(generator, differentTiles, identicalTilesToCancel, seed));
+  }
+
+  /* how boards of this size are dealt */
+  private static int generatorFor(int differentTiles, int identicalTilesToCancel) {
+    if (KEEP_APART) {
+      return ReplayJournal.GENERATOR_PARALLEL_APART;
+    }
+    if ((long) differentTiles * identicalTilesToCancel > BUTTON_MODE_LIMIT) {
+      return ReplayJournal.GENERATOR_PARALLEL; // canvas boards are dealt on all cores
+    }
+    return ReplayJournal.GENERATOR_TILE_BOARD;
+  }
+
+  private void dealBoard(Supplier<BoardPool.Dealt> deal) {
+    showDealing();
+    Thread dealer = new Thread(() -> {
+      GameEvents.BoardBuild event = new GameEvents.BoardBuild();
+      event.begin();
+      BoardPool.Dealt dealt = deal.get();
+      event.board(dealt.board());
+      event.stage = "deal";
+      event.commit();
+      SwingUtilities.invokeLater(() -> boardDealt(dealt));
+    }, "board-dealer");
+    dealer.setDaemon(true);
+    dealer.start();
+  }
+
+  private void boardDealt(BoardPool.Dealt dealt) {
+    boardReady(replaying == null && !training ? GameSession.dealt(dealt) : GameSession.unrecorded(dealt.board()));
+  }
+
+  /*
+   * carries on with the saved game, the board is mapped back in on another
+   * thread. when the save cannot be read the player is asked for a new board
+   * instead.
+   */
+  public void resumeGame() {
+    this.buildStartTime = System.nanoTime();
+    showDealing();
+    Thread loader = new Thread(() -> {
+      GameEvents.BoardBuild event = new GameEvents.BoardBuild();
+      event.begin();
+      BoardSnapshot saved;
+      try {
+        saved = BoardSnapshot.open(BoardSnapshot.FILE);
+      } catch (IOException e) {
+        System.err.println("the saved game cannot be resumed: " + e.getMessage());
+        SwingUtilities.invokeLater(() -> {
+          resetGame();
+          showDifficultySettings();
+        });
+        return;
+      }
+      event.board(saved.board());
+      event.stage = "resume";
+      event.commit();
+      SwingUtilities.invokeLater(() -> {
+        this.identicalTilesToCancel = saved.board().identicalTilesToCancel();
+        boardReady(GameSession.resumed(saved));
+      });
+    }, "board-loader");
+    loader.setDaemon(true);
+    loader.start();
+  }
+
+  /* the window with a placeholder, so there is a first frame before the board exists */
+  private void showDealing() {
+    setTitle("Tile Flipping Game");
+    setSize(size, size);
+    setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+    setLayout(new BorderLayout());
+    add(new JLabel("Dealing tiles...", SwingConstants.CENTER) {
+      @Override
+      protected void paintComponent(Graphics g) {
+        super.paintComponent(g);
+        LaunchTimer.firstFrame();
+      }
+    }, BorderLayout.CENTER);
+    getContentPane().revalidate(); // the frame is already visible on a replay
+    setVisible(true);
+  }
+
+  private void boardReady(GameSession ready) {
+    this.session = ready;
+    this.board = ready.board();
+    this.rows = board.rows();
+    this.cols = board.cols();
+    this.lastDifferentTiles = board.differentTiles();
+    if (scheduler != null) {
+      scheduler.setBoard(board); // the timer and queue of the last game
+    } else {
+      this.scheduler = new TurnScheduler(board, TurnScheduler.DEFAULT_REVEAL_DELAY, new TurnListener());
+    }
+
+    getContentPane().removeAll(); // the placeholder
+    if (board.tileCount() > BUTTON_MODE_LIMIT) {
+      initializeCanvas();
+    } else if (spareTiles != null && spareTiles.length == board.tileCount()) {
+      reuseTiles();
+    } else {
+      this.tiles = new TileButton[board.tileCount()];
+      initializeGUI();
+    }
+    spareTiles = null;
+    spareCanvas = null;
+  }
+
+  /* every tile is in place: the clock starts and the background work may begin */
+  private void gameReady() {
+    session.start(buildStartTime);
+    LaunchTimer.interactive();
+    if (replaying != null) {
+      startPlayback();
+    } else {
+      /* the next board of these settings is dealt while this one is played */
+      BoardPool.shared().prepare(generatorFor(board.differentTiles(), identicalTilesToCancel), board.differentTiles(),
+          identicalTilesToCancel);
+    }
+    GameSession.startBackgroundLoaders();
+    if (training) {
+      System.exit(0); // every class of the launch is loaded now
+    }
+  }
+
+  /*
+   * large boards: a single component paints every tile, a click is mapped to
+   * a tile by coordinates. wheel to zoom, drag to move around.
+   */
+  private void initializeCanvas() {
+    GameEvents.BoardBuild event = new GameEvents.BoardBuild();
+    event.begin();
+    if (spareCanvas != null) {
+      canvas = spareCanvas;
+      canvas.setBoard(board);
+    } else {
+      canvas = new BoardCanvas(board, this::tileClicked);
+      canvas.setAnimator(animator);
+    }
+    animator.setView(canvas);
+    setLayout(new BorderLayout());
+    add(canvas, BorderLayout.CENTER);
+    getContentPane().revalidate();
+    getContentPane().repaint();
+    event.board(board);
+    event.stage = "view";
+    event.commit();
+    SwingUtilities.invokeLater(this::gameReady);
+  }
+
+  private void initializeGUI() {
+    animator.setView(buttonView);
+    /* use a rectangular grid to place all tiles */
+    setLayout(new GridLayout(rows, cols));
+    addTiles(0, new TileButtonListener()); // one listener serves every tile
+  }
+
+  /*
+   * Place the buttons on the grid a chunk at a time, each chunk is its own
+   * event so the window paints the first rows while the rest are created
+   */
+  private void addTiles(int from, TileButtonListener listener) {
+    GameEvents.BoardBuild event = new GameEvents.BoardBuild();
+    event.begin();
+    int to = Math.min(tiles.length, from + TILE_CHUNK);
+    for (int index = from; index < to; index++) {
+      tiles[index] = new TileButton(index);
+      tiles[index].addActionListener(listener); // make the tile clickable
+      add(tiles[index]);
+    }
+    getContentPane().revalidate();
+    getContentPane().repaint();
+    event.board(board);
+    event.stage = "view";
+    event.commit();
+    if (to < tiles.length) {
+      SwingUtilities.invokeLater(() -> addTiles(to, listener));
+    } else {
+      SwingUtilities.invokeLater(this::gameReady);
+    }
+  }
+
+  /*
+   * the buttons of the last game on a board with as many tiles: a button only
+   * knows its index and reads everything else from the board, so it just needs
+   * to show the new board. all go in at once, there is nothing to create.
+   */
+  private void reuseTiles() {
+    GameEvents.BoardBuild event = new GameEvents.BoardBuild();
+    event.begin();
+    tiles = spareTiles;
+    animator.setView(buttonView);
+    setLayout(new GridLayout(rows, cols));
+    for (TileButton tile : tiles) {
+      add(tile);
+      tile.refresh();
+    }
+    getContentPane().revalidate();
+    getContentPane().repaint();
+    event.board(board);
+    event.stage = "view";
+    event.commit();
+    SwingUtilities.invokeLater(this::gameReady);
+  }
+
+  /* what the scheduler reports goes to the view and the session */
+  private class TurnListener implements TurnScheduler.Listener {
+    @Override
+    public void tileChanged(int index) {
+      session.tileChanged(index);
+      refreshTile(index);
+    }
+
+    @Override
+    public void flipped(int index, TileBoard.Outcome outcome) {
+      animator.start(index, FlipAnimator.FLIP_UP);
+      session.flipped(index);
+    }
+
+    @Override
+    public void turnEnded(TileBoard.Outcome outcome) {
+      session.turnEnded(outcome);
+      if (outcome != TileBoard.Outcome.SELECTED) {
+        int kind = outcome == TileBoard.Outcome.MISMATCHED ? FlipAnimator.FLIP_DOWN : FlipAnimator.FADE;
+        for (int i = 0; i < board.resolvedCount(); i++) {
+          animator.start(board.resolvedAt(i), kind);
+        }
+      }
+      if (outcome == TileBoard.Outcome.COMPLETED) {
+        SwingUtilities.invokeLater(TileFlippingGame.this::gameOver); // after the last tiles are painted
+      }
+    }
+  }
+
+  /*
+   * class of single tile unit, only a view of one board position
+   * the symbol is placed at the center of the tile body
+   */
+  private class TileButton extends JButton {
+    private final int index;
+
+    public TileButton(int index) {
+      this.index = index;
+      setText("");
+    }
+
+    /* the symbol comes from the shared glyph cache instead of a font per tile */
+    @Override
+    protected void paintComponent(Graphics g) {
+      super.paintComponent(g);
+      int kind = animator.kindOf(index);
+      float progress = animator.progressOf(index);
+      /* halfway through a flip the tile turns over, it is squeezed to a line there */
+      boolean faceUp = kind == FlipAnimator.FLIP_UP ? progress >= 0.5f
+          : kind == FlipAnimator.FLIP_DOWN ? progress < 0.5f : board.isFlipped(index);
+      if (faceUp) {
+        Graphics2D g2 = (Graphics2D) g.create();
+        if (kind == FlipAnimator.FADE) {
+          g2.setComposite(FADING[Math.round(progress * (FADING.length - 1))]);
+        } else if (board.isCleared(index)) {
+          g2.setComposite(FADING[FADING.length - 1]);
+        }
+        if (kind == FlipAnimator.FLIP_UP || kind == FlipAnimator.FLIP_DOWN) {
+          g2.translate(getWidth() / 2.0, 0);
+          g2.scale(Math.max(0.01, Math.abs(1 - 2 * progress)), 1);
+          g2.translate(-getWidth() / 2.0, 0);
+        }
+        GlyphCache.shared().drawCentered(g2, board.symbolAt(index), 0, 0, getWidth(), getHeight());
+        g2.dispose();
+      }
+      if (index == hintedTile) {
+        g.setColor(BoardCanvas.HINT);
+        for (int i = 0; i < 3; i++) {
+          g.drawRect(i, i, getWidth() - 1 - 2 * i, getHeight() - 1 - 2 * i);
+        }
+      }
+      GameMetrics.shared().tilePainted(index);
+    }
+
+    /* show what the board says about this tile */
+    public void refresh() {
+      setEnabled(!board.isCleared(index)); // freeze the canceled tiles
+      repaint();
+    }
+  }
+
+  /*
+   * I searched it online. Its an actionlistener.
+   * 
+   * @reference:
+   * https://stackoverflow.com/questions/21879243/how-to-create-on-click-event-for
+   * -buttons-in-swing
+   */
+  private class TileButtonListener implements ActionListener {
+    @Override
+    public void actionPerformed(ActionEvent e) { // when the tile getts clicked
+      TileButton clickedTile = (TileButton) e.getSource(); // the tile get clicked
+      tileClicked(clickedTile.index);
+    }
+  }
+
+  /* the same rules for a button click and a click on the canvas */
+  private void tileClicked(int index) {
+    GameMetrics.shared().clicked(index);
+    scheduler.click(index);
+  }
+
+  /* H: marks a tile worth flipping for a moment, looked up in the board's symbol index */
+  private void hint() {
+    if (board == null || scheduler == null || replaying != null) {
+      return;
+    }
+    int tile = board.hint(hintRandom);
+    if (tile >= 0) {
+      showHint(tile);
+      hintTimer.restart();
+    }
+  }
+
+  /* -1 takes the mark away */
+  private void showHint(int tile) {
+    int old = hintedTile;
+    hintedTile = tile;
+    if (canvas != null) {
+      canvas.setHighlight(tile);
+    } else if (tiles != null) {
+      for (int index : new int[] {old, tile}) {
+        if (index >= 0 && index < tiles.length && tiles[index] != null) {
+          tiles[index].repaint();
+        }
+      }
+    }
+  }
+
+  private void refreshTile(int index) {
+    if (canvas != null) {
+      canvas.repaintTile(index);
+    } else {
+      tiles[index].refresh();
+    }
+  }
+
+  /*
+   * showing statistic data at the end of the game.
+   */
+  private void gameOver() {
+    if (replaying != null) {
+      JOptionPane.showMessageDialog(this, String.format("The replay finished after %d flips and %.3f seconds.",
+          board.flipCount(), session.elapsedMillis() / 1000.0), "Replay", JOptionPane.INFORMATION_MESSAGE);
+      System.exit(0);
+    }
+    GameSession.Finished finished = session.finish();
+    long totalTime = finished.score().elapsedMillis();
+    int flipCount = finished.score().flips();
+    int differentTiles = board.differentTiles();
+    Leaderboard leaderboard = finished.leaderboard();
+    /* the history may still be loading, the dialog does not wait for it */
+    String ranking = leaderboard == null ? "Your place among all games is still being worked out."
+        : String.format("You are in the top %.0f%% for %dx%d (place %d of %d games)",
+            Math.max(1, leaderboard.topPercent(differentTiles, identicalTilesToCancel, totalTime)), differentTiles,
+            identicalTilesToCancel, leaderboard.rank(differentTiles, identicalTilesToCancel, totalTime),
+            leaderboard.count(differentTiles, identicalTilesToCancel));
+
+    // Convert totalTime from milliseconds to seconds
+    double totalTimeSeconds = totalTime / 1000.0;
+    double howManyTimesEachGetClicked = (double) flipCount / board.tileCount();
+    int replay = JOptionPane.showConfirmDialog(this,
+        String.format("""
+            You have canceled all the tiles and thus finish this round!
+
+            Time spent: %.3f seconds
+            Size of every single set: %d
+            Set number: %d
+            Total flips: %d
+            In average you clicked each tile %.2f times
+
+            %s
+
+            Do you want to play again?""",
+            totalTimeSeconds, identicalTilesToCancel, differentTiles, flipCount, howManyTimesEachGetClicked, ranking),
+        "Game Over",
+        JOptionPane.YES_NO_OPTION);
+
+    if (replay == JOptionPane.YES_OPTION) {
+      resetGame(); // Reset game state
+      showDifficultySettings();
+    } else {
+      session.awaitSaved();
+      System.exit(0);
+    }
+  }
+
+  /*
+   * feeds the recorded flips to the scheduler with the recorded pauses divided
+   * by the replay speed. the reveal delay is sped up as well, so clicks queue
+   * up behind a failed group the way they did in the recorded game.
+   */
+  private void startPlayback() {
+    ReplayJournal.Reader flips = replaying.reader();
+    scheduler.setRevealDelay((int) Math.max(1, scheduler.getRevealDelay() / replaySpeed));
+    Timer player = new Timer(0, null);
+    player.setRepeats(false);
+    player.addActionListener(e -> {
+      tileClicked(flips.index());
+      if (flips.next()) {
+        player.setInitialDelay(playbackDelay(flips.deltaNanos()));
+        player.restart();
+      }
+    });
+    if (flips.next()) {
+      player.setInitialDelay(playbackDelay(flips.deltaNanos()));
+      player.start();
+    }
+  }
+
+  private int playbackDelay(long deltaNanos) {
+    return (int) Math.min(Integer.MAX_VALUE, deltaNanos / 1_000_000 / replaySpeed);
+  }
+
+  /*
+   * Reset the game state for replaying
+   */
+  private void resetGame() {
+    getContentPane().removeAll(); // Remove all components from the frame
+    getContentPane().revalidate();
+    getContentPane().repaint();
+
+    /* kept to show the next board, see reuseTiles */
+    this.spareTiles = tiles;
+    this.spareCanvas = canvas;
+    this.tiles = null;
+    this.canvas = null;
+    this.board = null;
+    this.session = null;
+    this.hintedTile = -1;
+    hintTimer.stop();
+    animator.clear();
+  }
+
+  /*
+   * gets the settings for game difficulty
+   */
+  public void showDifficultySettings() {
+    while (true) {
+      JPanel fields = new JPanel(new GridLayout(2, 2));
+      // get the two variables needed to start a game.
+      /* the last settings are filled in, so playing the same board again is one click */
+      JTextField differentTilesField = new JTextField(lastDifferentTiles > 0 ? String.valueOf(lastDifferentTiles) : "");
+      JTextField identicalField = new JTextField(lastDifferentTiles > 0 ? String.valueOf(identicalTilesToCancel) : "");
+
+      fields.add(new JLabel("Number of Different Tiles:"));
+      fields.add(differentTilesField);
+      fields.add(new JLabel("Identical tiles to cancel:"));
+      fields.add(identicalField);
+
+      /* the estimate follows the typing once it pauses, simulated in the background when it is not in the table */
+      JLabel estimateLabel = new JLabel(" ");
+      Timer estimateDelay = new Timer(ESTIMATE_DELAY_MILLIS,
+          e -> showEstimate(estimateLabel, differentTilesField.getText(), identicalField.getText()));
+      estimateDelay.setRepeats(false);
+      estimateDelay.start(); // the fields may come filled in
+      DocumentListener estimateUpdater = new DocumentListener() {
+        @Override
+        public void insertUpdate(DocumentEvent e) {
+          estimateDelay.restart();
+        }
+
+        @Override
+        public void removeUpdate(DocumentEvent e) {
+          insertUpdate(e);
+        }
+
+        @Override
+        public void changedUpdate(DocumentEvent e) {
+          insertUpdate(e);
+        }
+      };
+      differentTilesField.getDocument().addDocumentListener(estimateUpdater);
+      identicalField.getDocument().addDocumentListener(estimateUpdater);
+
+      JPanel panel = new JPanel(new BorderLayout(0, 8));
+      panel.add(fields, BorderLayout.CENTER);
+      panel.add(estimateLabel, BorderLayout.SOUTH);
+
+      /*
+       * JOptionPane is a easy way to pop up notification messages
+       * 
+       * @reference: https://stackoverflow.com/questions/7080205/popup-message-boxes
+       */
+      int result = JOptionPane.showConfirmDialog(null, panel, "Enter Game Settings", JOptionPane.OK_CANCEL_OPTION);
+      estimateDelay.stop();
+      if (result == JOptionPane.OK_OPTION) {
+        // exception handling
+        try {
+          int differentTiles = Integer.parseInt(differentTilesField.getText());
+          int identical = Integer.parseInt(identicalField.getText());
+
+          if (differentTiles <= 0 || identical <= 0) {
+            throw new NumberFormatException("Values must be positive integers.");
+          }
+
+          if ((long) differentTiles * identical > MAX_TILES || isHopeless(differentTiles, identical)) {
+            throw new Exception("number too large");
+          }
+
+          JOptionPane.showMessageDialog(this, "Good luck and have fun!", "Enjoy the Game",
+              JOptionPane.INFORMATION_MESSAGE);
+          initializeGame(differentTiles, identical);
+          break;
+        } catch (NumberFormatException e) {
+          JOptionPane.showMessageDialog(null, "Please enter valid POSITIVE INTEGER values for all variables.",
+              "Invalid Input", JOptionPane.ERROR_MESSAGE);
+        } catch (Exception e) {
+          JOptionPane.showMessageDialog(null, "You definitely cannot handle this many tiles.",
+              "Invalid Input", JOptionPane.ERROR_MESSAGE);
+        }
+      } else {
+        /* giving an option to exit the game */
+        System.exit(0);
+      }
+    }
+  }
+
+  /*
+   * fills the estimate line of the settings dialog. what the table knows is
+   * shown at once, a board that has to be simulated says so and gets its line
+   * from the background, unless the fields changed meanwhile.
+   */
+  private static void showEstimate(JLabel label, String differentText, String identicalText) {
+    int differentTiles;
+    int identical;
+    try {
+      differentTiles = Integer.parseInt(differentText.trim());
+      identical = Integer.parseInt(identicalText.trim());
+    } catch (NumberFormatException e) {
+      label.setText(" ");
+      return;
+    }
+    String request = differentTiles + "x" + identical;
+    label.putClientProperty("estimateFor", request);
+    if (differentTiles <= 0 || identical <= 0 || (long) differentTiles * identical > MAX_TILES) {
+      label.setText(" ");
+      return;
+    }
+    DifficultyTable table = DifficultyTable.sharedIfLoaded();
+    if (table == null) {
+      label.setText("Still working out how hard games are...");
+      return;
+    }
+    DifficultyEstimator.Estimate typical = table.known(differentTiles, identical, BotPlayer.Memory.TYPICAL);
+    DifficultyEstimator.Estimate perfect = table.known(differentTiles, identical, BotPlayer.Memory.PERFECT);
+    if ((typical == null || perfect == null) && table.needsSimulation(differentTiles, identical)) {
+      label.setText("Computing how hard this board is...");
+      ESTIMATES.execute(() -> {
+        if (!request.equals(label.getClientProperty("estimateFor"))) {
+          return; // typed on meanwhile
+        }
+        String text = describeDifficulty(table.estimate(differentTiles, identical, BotPlayer.Memory.TYPICAL),
+            table.estimate(differentTiles, identical, BotPlayer.Memory.PERFECT));
+        SwingUtilities.invokeLater(() -> {
+          if (request.equals(label.getClientProperty("estimateFor"))) {
+            label.setText(text);
+          }
+        });
+      });
+      return;
+    }
+    label.setText(describeDifficulty(typical, perfect));
+  }
+
+  /* a line for the settings dialog, the typical player estimate with the perfect memory one for comparison */
+  private static String describeDifficulty(DifficultyEstimator.Estimate typical,
+      DifficultyEstimator.Estimate perfect) {
+    if (typical == null || perfect == null) {
+      return "No estimate for this many identical tiles.";
+    }
+    if (typical.isHopeless()) {
+      return "Hopeless: most players would never finish this board.";
+    }
+    return String.format("About %.0f flips and %.0f min for most players (a perfect memory needs %.0f flips).",
+        typical.meanFlips(), Math.ceil(typical.expectedSeconds() / 60), perfect.meanFlips());
+  }
+
+  /*
+   * boards the old fixed limit accepted are still accepted, bigger ones are
+   * refused when the table says nobody finishes them. only the table is
+   * asked, nothing is simulated on the EDT.
+   */
+  private static boolean isHopeless(int differentTiles, int identical) {
+    DifficultyTable table = DifficultyTable.sharedIfLoaded();
+    if (table == null || (long) differentTiles * identical < ALWAYS_ACCEPTED_TILES) {
+      return false;
+    }
+    DifficultyEstimator.Estimate typical = table.known(differentTiles, identical, BotPlayer.Memory.TYPICAL);
+    return typical != null && typical.isHopeless();
+  }
+
+  public void showIntroduction() {
+    /**
+     * showing introductions before the game
+     */
+    String[] introductions = {
+        """
+        Welcome to the Tile Flipping Game!
+        
+        Instructions:
+        1. Click on a tile to flip it.
+        2. Match a number of identical tiles in a row to cancel them out.
+        3. If the tiles do not match, they will be flipped back.
+        4. Cancel all tiles to win the game.
+        5. Stuck? Press H to be shown a tile worth flipping.
+        
+        """, 
+        """
+        This game is quite different from similar games
+        where you need flip only two tiles with the same pattern to cancel them. 
+        
+        You can now assign the number of identical tiles required to cancel them out,
+        and the according number of identical tiles will be generated automatically.""", 
+        """
+        You will then be asked for the number of total groups of tiles
+        and the number of tiles in each group.
+
+        Please fill in POSITIVE NUMBERS only.
+
+        You will receive warnings if you do not do so."""};
+      for (String introduction : introductions) {
+          JOptionPane.showMessageDialog(this, introduction, "Introductions", JOptionPane.INFORMATION_MESSAGE);
+      }
+  }
+
+  /*
+   * Starts the game
+   */
+  public static void gameStart() {
+    /* read the score history while the player is still reading the introduction */
+    GameSession.startBackgroundLoaders();
+    openWindow(game -> {
+      if (game.askToResume()) {
+        game.resumeGame();
+        return;
+      }
+      game.showIntroduction();
+      game.showDifficultySettings();
+    });
+  }
+
+  /* an unfinished game was left behind, the player decides whether to go on with it */
+  private boolean askToResume() {
+    BoardSnapshot.Saved saved = BoardSnapshot.describe(BoardSnapshot.FILE);
+    if (saved == null) {
+      return false;
+    }
+    long seconds = saved.elapsedNanos() / 1_000_000_000;
+    int answer = JOptionPane.showConfirmDialog(this,
+        String.format("Continue your unfinished game of %d sets of %d tiles?\n(%d flips, %d:%02d played)",
+            saved.differentTiles(), saved.identicalTilesToCancel(), saved.flipCount(), seconds / 60, seconds % 60),
+        "Saved Game", JOptionPane.YES_NO_OPTION);
+    return answer == JOptionPane.YES_OPTION;
+  }
+
+  /*
+   * kiosk start: straight into a board of the given size without the
+   * introduction and the settings dialog. the loaders wait until it is playable.
+   */
+  public static void quickStart(int differentTiles, int identicalTilesToCancel) {
+    checkBoardSize(differentTiles, identicalTilesToCancel);
+    /* a kiosk restarted in the middle of a game carries on with it */
+    BoardSnapshot.Saved saved = BoardSnapshot.describe(BoardSnapshot.FILE);
+    boolean resume = saved != null && saved.differentTiles() == differentTiles
+        && saved.identicalTilesToCancel() == identicalTilesToCancel;
+    openWindow(game -> {
+      if (resume) {
+        game.resumeGame();
+      } else {
+        game.initializeGame(differentTiles, identicalTilesToCancel);
+      }
+    });
+  }
+
+  /*
+   * the launch of quickStart up to a playable board, then the process exits.
+   * run with -XX:ArchiveClassesAtExit to record the classes for later launches
+   * (scripts/kiosk.sh). a saved game is neither resumed nor written, and no
+   * replay journal is kept, so the next real launch finds the disk as it was.
+   */
+  public static void trainingStart(int differentTiles, int identicalTilesToCancel) {
+    checkBoardSize(differentTiles, identicalTilesToCancel);
+    openWindow(game -> {
+      game.training = true;
+      game.initializeGame(differentTiles, identicalTilesToCancel);
+    });
+  }
+
+  private static void checkBoardSize(int differentTiles, int identicalTilesToCancel) {
+    if (differentTiles <= 0 || identicalTilesToCancel <= 0
+        || (long) differentTiles * identicalTilesToCancel > MAX_TILES) {
+      throw new IllegalArgumentException("board size must be positive and at most " + MAX_TILES + " tiles");
+    }
+  }
+
+  /* shows a recorded game in the window, speed 2 plays it twice as fast */
+  public static void replayStart(ReplayJournal recorded, double speed) {
+    if (!ReplayJournal.isKnownGenerator(recorded.generator()) || !(speed > 0)) {
+      throw new IllegalArgumentException("cannot replay this journal at speed " + speed);
+    }
+    openWindow(game -> {
+      game.replaying = recorded;
+      game.replaySpeed = speed;
+      game.identicalTilesToCancel = recorded.identicalTilesToCancel();
+      game.buildStartTime = System.nanoTime();
+      game.dealBoard(() -> new BoardPool.Dealt(recorded.newBoard(), recorded.generator(), recorded.seed()));
+      game.setTitle("Tile Flipping Game (replay)");
+    });
+  }
+
+  /* every launch comes through here: the watchdog is started, then the window is made and set up on the EDT */
+  private static void openWindow(Consumer<TileFlippingGame> setup) {
+    EdtWatchdog.start();
+    SwingUtilities.invokeLater(() -> setup.accept(new TileFlippingGame()));
+  }
+
+  public static void main(String[] args) {
+    // show all text in english
+    Locale.setDefault(Locale.ENGLISH);
+    gameStart();
+  }
+}
@@ -1,15 +1,17 @@
-
 /*
  * @author  Idwel
  * @purpose Grade11 Semester2 end java GUI program
  */
+package tileflip;
+
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.io.*;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
+import java.util.Random;
 import javax.swing.*;
 
 public class TileFlippingGameOriginal extends JFrame {
@@ -30,6 +32,19 @@ public class TileFlippingGameOriginal extends JFrame {
     this.selectedTiles = new ArrayList<>();
     this.score = 0;
     this.flipCount = 0; // Initialize flip counter
+    /* once per window, it reads the grid of whichever game is shown */
+    addComponentListener(new ComponentAdapter() {
+      @Override
+      public void componentResized(ComponentEvent e) {
+        if (tiles == null) {
+          return; // no game yet
+        }
+        /* the tiles got a new size, drop the glyphs rendered for the old one */
+        Container content = getContentPane();
+        int tileSize = Math.min(content.getWidth() / cols, content.getHeight() / rows);
+        GlyphCache.shared().retainSizes(tileSize, tileSize + 1);
+      }
+    });
   }
 
   public void initializeGame(int differentTiles, int identicalTilesToCancel) {
@@ -74,45 +89,43 @@ public class TileFlippingGameOriginal extends JFrame {
     setLayout(new GridLayout(rows, cols));
     setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
 
-    List<String> symbols = generateSymbols(differentTiles);
-    Collections.shuffle(symbols); // randomize tile alphabet order.
+    int[] symbols = generateSymbols(differentTiles);
+    shuffle(symbols); // randomize tile alphabet order.
 
     int index = 0;
     /* Place the buttons on the grid one by one */
     for (int i = 0; i < rows; i++) {
       for (int j = 0; j < cols; j++) {
-        tiles[i][j] = new TileButton(i, j, symbols.get(index));
+        tiles[i][j] = new TileButton(i, j, symbols[index]);
         tiles[i][j].addActionListener(new TileButtonListener());
         add(tiles[i][j]);
         index++;
       }
     }
-
     setVisible(true);
   }
 
   /*
    * order of symbol generation: A-Z, then AA-ZZ, then AAA-ZZZ...
-   * each symbol can be represented by a single integer
+   * each symbol is represented by a single integer, see SymbolLabels
    */
-  private List<String> generateSymbols(int differentTiles) {
-    List<String> symbols = new ArrayList<>();
-    for (int i = 0; i < differentTiles; i++) {
-      String symbol = getSymbolForIndex(i);
-      for (int j = 0; j < identicalTilesToCancel; j++) {
-        symbols.add(symbol);
-      }
+  private int[] generateSymbols(int differentTiles) {
+    int[] symbols = new int[differentTiles * identicalTilesToCancel];
+    for (int i = 0; i < symbols.length; i++) {
+      symbols[i] = i / identicalTilesToCancel;
     }
     return symbols;
   }
 
-  private String getSymbolForIndex(int index) {
-    StringBuilder symbol = new StringBuilder();
-    while (index >= 0) {
-      symbol.insert(0, (char) ('A' + index % 26));
-      index = index / 26 - 1;
+  /* Fisher-Yates shuffle on the primitive array */
+  private void shuffle(int[] symbols) {
+    Random random = new Random();
+    for (int i = symbols.length - 1; i > 0; i--) {
+      int j = random.nextInt(i + 1);
+      int tmp = symbols[i];
+      symbols[i] = symbols[j];
+      symbols[j] = tmp;
     }
-    return symbol.toString();
   }
 
   /*
@@ -121,9 +134,9 @@ public class TileFlippingGameOriginal extends JFrame {
    */
   private class TileButton extends JButton {
     private boolean isFlipped;
-    private final String symbol;
+    private final int symbol;
 
-    public TileButton(int row, int col, String symbol) {
+    public TileButton(int row, int col, int symbol) {
       this.symbol = symbol;
       this.isFlipped = false;
       setText("");
@@ -134,14 +147,8 @@ public class TileFlippingGameOriginal extends JFrame {
     protected void paintComponent(Graphics g) {
       super.paintComponent(g);
       if (isFlipped) {
-        Font currentFont = g.getFont();
-        int fontSize = Math.min(getWidth(), getHeight()) / 2;
-        Font newFont = currentFont.deriveFont((float) fontSize);
-        g.setFont(newFont);
-        FontMetrics fm = g.getFontMetrics(newFont);
-        int textWidth = fm.stringWidth(symbol);
-        int textHeight = fm.getAscent();
-        g.drawString(symbol, (getWidth() - textWidth) / 2, (getHeight() + textHeight) / 2 - fm.getDescent());
+        /* pre-rendered at this tile size, no font derivation on every paint */
+        GlyphCache.shared().drawCentered(g, symbol, 0, 0, getWidth(), getHeight());
       }
     }
 
@@ -150,7 +157,7 @@ public class TileFlippingGameOriginal extends JFrame {
       repaint();
     }
 
-    public String getSymbol() {
+    public int getSymbol() {
       return symbol;
     }
   }
@@ -187,11 +194,11 @@ public class TileFlippingGameOriginal extends JFrame {
    * showing statistic data at the end of the game.
    */
   private void checkForMatch() {
-    String firstSymbol = selectedTiles.get(0).getSymbol();
+    int firstSymbol = selectedTiles.get(0).getSymbol();
     boolean allMatch = true;
 
     for (TileButton tile : selectedTiles) {
-      if (!tile.getSymbol().equals(firstSymbol)) {
+      if (tile.getSymbol() != firstSymbol) {
         allMatch = false;
         break;
       }
@@ -213,7 +220,7 @@ public class TileFlippingGameOriginal extends JFrame {
     if (score == (rows * cols) / identicalTilesToCancel) {
       long endTime = System.currentTimeMillis();
       long totalTime = endTime - startTime;
-      PlayerData.saveScore(score);
+      PlayerData.saveScore(new ScoreRecord(endTime, totalTime, flipCount, identicalTilesToCancel, differentTiles));
 
       // Convert totalTime from milliseconds to seconds
       double totalTimeSeconds = totalTime / 1000.0;
@@ -360,26 +367,3 @@ public class TileFlippingGameOriginal extends JFrame {
     gameStart();
   }
 }
-
-class PlayerData {
-  private static final String DATA_FILE = "player_data.txt";
-
-  public static void saveScore(int score) {
-    try (PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter(DATA_FILE, true)))) {
-      out.println(score);
-    } catch (IOException e) {
-    }
-  }
-
-  public static List<Integer> loadScores() {
-    List<Integer> scores = new ArrayList<>();
-    try (BufferedReader in = new BufferedReader(new FileReader(DATA_FILE))) {
-      String line;
-      while ((line = in.readLine()) != null) {
-        scores.add(Integer.valueOf(line));
-      }
-    } catch (IOException e) {
-    }
-    return scores;
-  }
-}
\ No newline at end of file
@@ -0,0 +1,112 @@
+package tileflip;
+
+/*
+ * hashed timer wheel: many timeouts, one thread, O(1) to schedule and cancel.
+ * time is cut into ticks, a timeout due at some tick hangs in the slot
+ * (tick % slots) of the wheel. advancing the wheel only looks at the slots of
+ * the ticks that passed, so thousands of games share it instead of running a
+ * timer thread each. not thread safe, it belongs to the thread advancing it.
+ */
+class TimerWheel {
+  /* something that can be scheduled, linked into its slot without extra nodes */
+  abstract static class Timeout {
+    private long deadlineTick;
+    private int slot = -1;
+    private Timeout prev;
+    private Timeout next;
+
+    protected abstract void expired();
+
+    public boolean isScheduled() {
+      return slot >= 0;
+    }
+  }
+
+  private final long tickNanos;
+  private final long startNanos;
+  private final Timeout[] slots;
+  private final int mask;
+  private long currentTick;
+  private int scheduled;
+
+  public TimerWheel(long tickNanos, int slotCount, long nowNanos) {
+    if (Integer.bitCount(slotCount) != 1) {
+      throw new IllegalArgumentException("slot count must be a power of two");
+    }
+    this.tickNanos = tickNanos;
+    this.startNanos = nowNanos;
+    this.slots = new Timeout[slotCount];
+    this.mask = slotCount - 1;
+  }
+
+  /* (re)schedules the timeout to expire delayNanos from now */
+  public void schedule(Timeout timeout, long delayNanos, long nowNanos) {
+    cancel(timeout);
+    long dueTick = Math.max(currentTick + 1, (nowNanos - startNanos + delayNanos + tickNanos - 1) / tickNanos);
+    int slot = (int) (dueTick & mask);
+    timeout.deadlineTick = dueTick;
+    timeout.slot = slot;
+    timeout.prev = null;
+    timeout.next = slots[slot];
+    if (slots[slot] != null) {
+      slots[slot].prev = timeout;
+    }
+    slots[slot] = timeout;
+    scheduled++;
+  }
+
+  public void cancel(Timeout timeout) {
+    if (timeout.slot < 0) {
+      return;
+    }
+    if (timeout.prev != null) {
+      timeout.prev.next = timeout.next;
+    } else {
+      slots[timeout.slot] = timeout.next;
+    }
+    if (timeout.next != null) {
+      timeout.next.prev = timeout.prev;
+    }
+    timeout.prev = null;
+    timeout.next = null;
+    timeout.slot = -1;
+    scheduled--;
+  }
+
+  /* fires every timeout due up to now, returns how many fired */
+  public int advance(long nowNanos) {
+    long targetTick = (nowNanos - startNanos) / tickNanos;
+    int fired = 0;
+    while (currentTick < targetTick) {
+      currentTick++;
+      if (scheduled == 0) {
+        currentTick = targetTick; // nothing to look at, jump ahead
+        break;
+      }
+      Timeout timeout = slots[(int) (currentTick & mask)];
+      while (timeout != null) {
+        Timeout next = timeout.next;
+        if (timeout.isScheduled() && timeout.deadlineTick <= currentTick) {
+          cancel(timeout);
+          timeout.expired();
+          fired++;
+        }
+        timeout = next;
+      }
+    }
+    return fired;
+  }
+
+  /* how long the owning thread may sleep before the next tick matters */
+  public long nanosUntilNextTick(long nowNanos) {
+    if (scheduled == 0) {
+      return Long.MAX_VALUE;
+    }
+    long nextTickNanos = startNanos + (currentTick + 1) * tickNanos;
+    return Math.max(0, nextTickNanos - nowNanos);
+  }
+
+  public int scheduled() {
+    return scheduled;
+  }
+}
@@ -0,0 +1,146 @@
+package tileflip;
+
+import java.awt.event.ActionEvent;
+import javax.swing.Timer;
+
+/*
+ * runs the turns of one game on the event dispatch thread.
+ * a failed group stays visible for the reveal delay and is then flipped back
+ * by a single Timer that is reused for every turn. clicks made while a failed
+ * group is still shown are queued and replayed afterwards, in order.
+ */
+class TurnScheduler {
+  /* the view is told about every tile that changed and every finished turn */
+  interface Listener {
+    void tileChanged(int index);
+
+    /* a flip the board accepted, in the order the board saw them */
+    default void flipped(int index, TileBoard.Outcome outcome) {
+    }
+
+    default void turnEnded(TileBoard.Outcome outcome) {
+    }
+  }
+
+  static final int DEFAULT_REVEAL_DELAY = Integer.getInteger("tileflip.revealDelay", 500);
+  private static final int QUEUE_CAPACITY = 256;
+
+  private TileBoard board;
+  private final Listener listener;
+  private final Timer revealTimer;
+
+  /* ring buffer of tile indexes clicked during the reveal window */
+  private final int[] queue = new int[QUEUE_CAPACITY];
+  private int queueHead;
+  private int queueSize;
+  private long revealStartedAt;
+  private final GameMetrics metrics = GameMetrics.shared();
+
+  public TurnScheduler(TileBoard board, int revealDelay, Listener listener) {
+    this.board = board;
+    this.listener = listener;
+    this.revealTimer = new Timer(revealDelay, (ActionEvent e) -> endReveal());
+    this.revealTimer.setRepeats(false);
+  }
+
+  public void setRevealDelay(int revealDelay) {
+    revealTimer.setInitialDelay(revealDelay);
+  }
+
+  public int getRevealDelay() {
+    return revealTimer.getInitialDelay();
+  }
+
+  /* start over with another board, pending flips and clicks are dropped */
+  public void setBoard(TileBoard board) {
+    revealTimer.stop();
+    this.board = board;
+    queueSize = 0;
+  }
+
+  /* a tile got clicked by the player */
+  public void click(int index) {
+    if (board.isAwaitingFlipBack()) {
+      enqueue(index);
+      return;
+    }
+    play(index);
+  }
+
+  private void play(int index) {
+    GameEvents.Flip event = new GameEvents.Flip();
+    event.begin();
+    TileBoard.Outcome outcome = board.flip(index);
+    if (outcome == TileBoard.Outcome.IGNORED) {
+      return;
+    }
+    listener.flipped(index, outcome);
+    listener.tileChanged(index);
+    metrics.flips.increment();
+
+    switch (outcome) {
+      case MATCHED, COMPLETED -> {
+        metrics.matches.increment();
+        refreshResolved();
+        resolved(outcome);
+      }
+      /* leave the tiles up for a moment, then flip them back */
+      case MISMATCHED -> {
+        metrics.mismatches.increment();
+        revealStartedAt = System.nanoTime();
+        revealTimer.restart();
+      }
+      default -> {
+      }
+    }
+    if (event.shouldCommit()) {
+      event.board(board);
+      event.index = index;
+      event.outcome = outcome.name();
+      event.commit();
+    }
+  }
+
+  private void endReveal() {
+    board.flipBack();
+    refreshResolved();
+    resolved(TileBoard.Outcome.MISMATCHED);
+    metrics.revealToResolution.record(System.nanoTime() - revealStartedAt);
+    /* replay what was clicked meanwhile, until the next failed group */
+    while (queueSize > 0 && !board.isAwaitingFlipBack()) {
+      int index = queue[queueHead];
+      queueHead = (queueHead + 1) % QUEUE_CAPACITY;
+      queueSize--;
+      play(index);
+    }
+  }
+
+  private void enqueue(int index) {
+    if (queueSize == QUEUE_CAPACITY) {
+      return; // nobody clicks that fast, drop the newest
+    }
+    queue[(queueHead + queueSize) % QUEUE_CAPACITY] = index;
+    queueSize++;
+  }
+
+  /* tells the listener, timed as one event with everything the listener does */
+  private void resolved(TileBoard.Outcome outcome) {
+    GameEvents.MatchResolved event = new GameEvents.MatchResolved();
+    event.begin();
+    int groupSize = board.resolvedCount();
+    listener.turnEnded(outcome);
+    if (event.shouldCommit()) {
+      event.board(board);
+      event.outcome = outcome.name();
+      event.groupSize = groupSize;
+      event.commit();
+    }
+  }
+
+  /* the tiles of the group the board resolved last */
+  private void refreshResolved() {
+    for (int i = 0; i < board.resolvedCount(); i++) {
+      listener.tileChanged(board.resolvedAt(i));
+    }
+  }
+}
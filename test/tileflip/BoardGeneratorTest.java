@@ -0,0 +1,55 @@
+package tileflip;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.Test;
+
+class BoardGeneratorTest {
+  /* a few chunks of CHUNK tiles, so the buckets really are spread over the threads */
+  private static final int DIFFERENT_TILES = 100_000;
+  private static final int IDENTICAL = 3;
+
+  /* the parallel streams of the deal run in the pool they are started from */
+  private static int[] dealOn(int threads, long seed, BoardGenerator.Constraint constraint)
+      throws InterruptedException, ExecutionException {
+    ForkJoinPool pool = new ForkJoinPool(threads);
+    try {
+      return pool.submit(() -> {
+        TileBoard board = BoardGenerator.newBoard(DIFFERENT_TILES, IDENTICAL, seed, constraint);
+        int[] symbols = new int[board.tileCount()];
+        for (int i = 0; i < symbols.length; i++) {
+          symbols[i] = board.symbolAt(i);
+        }
+        return symbols;
+      }).get();
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  void oneThreadAndManyThreadsDealTheSameBoard() throws Exception {
+    int[] one = dealOn(1, 77, BoardGenerator.Constraint.NONE);
+    assertArrayEquals(one, dealOn(4, 77, BoardGenerator.Constraint.NONE));
+    assertArrayEquals(one, dealOn(7, 77, BoardGenerator.Constraint.NONE));
+    assertFalse(Arrays.equals(one, dealOn(4, 78, BoardGenerator.Constraint.NONE)));
+
+    int[] count = new int[DIFFERENT_TILES];
+    for (int symbol : one) {
+      count[symbol]++;
+    }
+    for (int symbol = 0; symbol < DIFFERENT_TILES; symbol++) {
+      assertEquals(IDENTICAL, count[symbol]);
+    }
+  }
+
+  @Test
+  void theRepairPassDoesNotDependOnTheThreadsEither() throws Exception {
+    assertArrayEquals(dealOn(1, 5, BoardGenerator.Constraint.APART), dealOn(4, 5, BoardGenerator.Constraint.APART));
+  }
+}
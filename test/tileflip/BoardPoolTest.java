@@ -0,0 +1,69 @@
+package tileflip;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class BoardPoolTest {
+  private static final int GENERATOR = ReplayJournal.GENERATOR_PARALLEL;
+
+  /* a take that finds nothing leaves the deal on its way, so taking again waits for it */
+  private static BoardPool.Dealt awaitTake(BoardPool pool, int differentTiles, int identical)
+      throws InterruptedException {
+    long deadline = System.nanoTime() + 20_000_000_000L;
+    BoardPool.Dealt dealt;
+    while ((dealt = pool.take(GENERATOR, differentTiles, identical)) == null) {
+      assertTrue(System.nanoTime() < deadline, "no board of " + differentTiles + " x " + identical);
+      Thread.sleep(5);
+    }
+    return dealt;
+  }
+
+  private static int[] symbols(TileBoard board) {
+    int[] symbols = new int[board.tileCount()];
+    for (int i = 0; i < symbols.length; i++) {
+      symbols[i] = board.symbolAt(i);
+    }
+    return symbols;
+  }
+
+  @Test
+  void aTakenBoardIsDealtAgainFromItsSeed() throws InterruptedException {
+    BoardPool pool = new BoardPool();
+    BoardPool.Dealt dealt = awaitTake(pool, 30, 2);
+    assertEquals(GENERATOR, dealt.generator());
+    assertEquals(30, dealt.board().differentTiles());
+    assertEquals(2, dealt.board().identicalTilesToCancel());
+    assertEquals(0, dealt.board().flipCount());
+    TileBoard again = ReplayJournal.deal(GENERATOR, 30, 2, dealt.seed());
+    assertArrayEquals(symbols(again), symbols(dealt.board()));
+
+    /* the take asked for the next board, a fresh one */
+    BoardPool.Dealt next = awaitTake(pool, 30, 2);
+    assertTrue(next.board() != dealt.board());
+  }
+
+  @Test
+  void theSettingUsedLongestAgoIsDropped() throws InterruptedException {
+    BoardPool pool = new BoardPool();
+    for (int differentTiles = 11; differentTiles <= 15; differentTiles++) {
+      pool.prepare(GENERATOR, differentTiles, 2); // the fifth setting drops the first
+    }
+    awaitTake(pool, 15, 2); // deals run in order, so 12 to 14 are waiting too
+    assertNull(pool.take(GENERATOR, 11, 2));
+    /* asking for 11 again dropped 12, the oldest now */
+    assertNull(pool.take(GENERATOR, 12, 2));
+    assertNotNull(pool.take(GENERATOR, 14, 2));
+  }
+
+  @Test
+  void aBoardThatCannotKeepSymbolsApartIsDealtWithout() {
+    BoardPool.Dealt dealt = BoardPool.deal(ReplayJournal.GENERATOR_PARALLEL_APART, 1, 4, 3);
+    assertEquals(ReplayJournal.GENERATOR_PARALLEL, dealt.generator());
+    assertArrayEquals(new int[] {0, 0, 0, 0}, symbols(dealt.board()));
+  }
+}
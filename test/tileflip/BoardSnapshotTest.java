@@ -0,0 +1,68 @@
+package tileflip;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class BoardSnapshotTest {
+  @TempDir
+  Path directory;
+
+  private static int[] symbols(TileBoard board) {
+    int[] symbols = new int[board.tileCount()];
+    for (int i = 0; i < symbols.length; i++) {
+      symbols[i] = board.symbolAt(i);
+    }
+    return symbols;
+  }
+
+  @Test
+  void aCreatedSnapshotIsOnlyResumableOnceTheStateIsWritten() throws IOException {
+    Path path = directory.resolve("player.snapshot");
+    TileBoard board = TileBoard.dealt(3, 2, new int[] {0, 1, 0, 2, 1, 2});
+    BoardSnapshot snapshot = BoardSnapshot.create(path, board);
+    assertNull(BoardSnapshot.describe(path));
+
+    board.flip(0);
+    board.flip(2); // a cleared pair before the file was attached
+    snapshot.writeAll();
+    snapshot.close();
+    assertEquals(new BoardSnapshot.Saved(3, 2, 2, 0), BoardSnapshot.describe(path));
+
+    TileBoard restored = BoardSnapshot.open(path).board();
+    assertArrayEquals(symbols(board), symbols(restored));
+    assertTrue(restored.isCleared(0));
+    assertTrue(restored.isCleared(2));
+    assertEquals(2, restored.flipCount());
+  }
+
+  @Test
+  void aFinishedGameLeavesTheFileForTheNextOne() throws IOException {
+    Path path = directory.resolve("player.snapshot");
+    TileBoard big = new TileBoard(300, 4, 1);
+    BoardSnapshot first = BoardSnapshot.create(path, big);
+    first.writeAll();
+    first.started(System.nanoTime() - 5_000_000_000L);
+    first.flush();
+    first.finish();
+    assertTrue(Files.exists(path));
+    assertNull(BoardSnapshot.describe(path));
+    long size = Files.size(path);
+
+    /* the map of the finished game is still alive, the next game maps the same file */
+    TileBoard small = TileBoard.dealt(3, 2, new int[] {2, 1, 0, 2, 1, 0});
+    BoardSnapshot second = BoardSnapshot.create(path, small);
+    second.writeAll();
+    second.close();
+    assertEquals(size, Files.size(path));
+    assertEquals(new BoardSnapshot.Saved(3, 2, 0, 0), BoardSnapshot.describe(path));
+    assertArrayEquals(symbols(small), symbols(BoardSnapshot.open(path).board()));
+  }
+}
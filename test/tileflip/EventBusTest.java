@@ -0,0 +1,183 @@
+package tileflip;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import org.junit.jupiter.api.Test;
+
+class EventBusTest {
+  private static final TileBoard BOARD = TileBoard.dealt(3, 2, new int[] {0, 1, 0, 2, 1, 2});
+
+  /* every field carries the sequence, so a half overwritten event shows */
+  private static void publish(EventBus bus, long sequence) {
+    bus.publish(EventBus.Type.FLIP, BOARD, (int) sequence, (int) sequence, sequence);
+  }
+
+  private static void assertWhole(EventBus.Event event) {
+    assertEquals(EventBus.Type.FLIP, event.type());
+    assertEquals(3, event.differentTiles());
+    assertEquals(2, event.identicalTilesToCancel());
+    assertEquals(event.sequence(), event.tile());
+    assertEquals(event.sequence(), event.flips());
+    assertEquals(event.sequence(), event.millis());
+  }
+
+  private static void await(BooleanSupplier condition) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(20);
+    while (!condition.getAsBoolean()) {
+      assertTrue(System.nanoTime() < deadline, "timed out");
+      Thread.sleep(5);
+    }
+  }
+
+  @Test
+  void aConsumerThatKeepsUpGetsEveryEventInOrder() throws Exception {
+    EventBus bus = new EventBus(1 << 12);
+    List<EventBus.Event> events = new CopyOnWriteArrayList<>();
+    List<Boolean> ends = new CopyOnWriteArrayList<>();
+    bus.subscribe("test-consumer", (event, endOfBatch) -> {
+      events.add(event);
+      ends.add(endOfBatch);
+    });
+    for (int i = 0; i < 1000; i++) {
+      publish(bus, i);
+    }
+    await(() -> events.size() == 1000);
+    for (int i = 0; i < events.size(); i++) {
+      assertEquals(i, events.get(i).sequence());
+      assertWhole(events.get(i));
+    }
+    assertTrue(ends.get(ends.size() - 1));
+    assertEquals(0, bus.dropped());
+  }
+
+  @Test
+  void aLappedConsumerSkipsToTheOldestSlotLeft() throws Exception {
+    EventBus bus = new EventBus(8);
+    CountDownLatch inHandler = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    List<Long> sequences = new CopyOnWriteArrayList<>();
+    bus.subscribe("slow-consumer", (event, endOfBatch) -> {
+      assertWhole(event);
+      sequences.add(event.sequence());
+      inHandler.countDown();
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    });
+    publish(bus, 0);
+    assertTrue(inHandler.await(20, TimeUnit.SECONDS));
+    for (int i = 1; i <= 100; i++) {
+      publish(bus, i); // the producer never waits for the consumer
+    }
+    release.countDown();
+    await(() -> sequences.size() == 9);
+    assertEquals(List.of(0L, 93L, 94L, 95L, 96L, 97L, 98L, 99L, 100L), sequences);
+    assertEquals(92, bus.dropped());
+  }
+
+  /* the producer laps a ring of two slots all the time: events are whole or counted as dropped, never torn */
+  @Test
+  void aSlotOverwrittenWhileReadIsDroppedNotTorn() throws Exception {
+    EventBus bus = new EventBus(2);
+    int published = 200_000;
+    List<Long> sequences = new CopyOnWriteArrayList<>();
+    long[] last = {-1};
+    bus.subscribe("racing-consumer", (event, endOfBatch) -> {
+      assertWhole(event);
+      assertTrue(event.sequence() > last[0]);
+      last[0] = event.sequence();
+      sequences.add(event.sequence());
+    });
+    for (int i = 0; i < published; i++) {
+      publish(bus, i);
+    }
+    await(() -> !sequences.isEmpty() && sequences.get(sequences.size() - 1) == published - 1);
+    assertEquals(published, sequences.size() + bus.dropped());
+  }
+
+  private static final class Recording implements Flow.Subscriber<EventBus.Event> {
+    final List<EventBus.Event> events = new CopyOnWriteArrayList<>();
+    final long initialRequest;
+    volatile Flow.Subscription subscription;
+    volatile Throwable error;
+
+    Recording(long initialRequest) {
+      this.initialRequest = initialRequest;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+      this.subscription = subscription;
+      subscription.request(initialRequest);
+    }
+
+    @Override
+    public void onNext(EventBus.Event item) {
+      events.add(item);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+      error = throwable;
+    }
+
+    @Override
+    public void onComplete() {
+    }
+  }
+
+  @Test
+  void aSubscriberGetsOnlyWhatItRequested() throws Exception {
+    EventBus bus = new EventBus(64);
+    Recording subscriber = new Recording(2);
+    bus.subscribe(subscriber);
+    for (int i = 0; i < 5; i++) {
+      publish(bus, i);
+    }
+    await(() -> subscriber.events.size() == 2);
+    Thread.sleep(200); // and nothing more comes
+    assertEquals(2, subscriber.events.size());
+
+    subscriber.subscription.request(3);
+    await(() -> subscriber.events.size() == 5);
+    for (int i = 0; i < 5; i++) {
+      assertEquals(i, subscriber.events.get(i).sequence());
+    }
+    assertEquals(0, bus.dropped());
+  }
+
+  @Test
+  void aBadRequestEndsTheSubscriptionWithAnError() throws Exception {
+    EventBus bus = new EventBus(64);
+    Recording subscriber = new Recording(0);
+    bus.subscribe(subscriber);
+    await(() -> subscriber.error != null);
+    assertInstanceOf(IllegalArgumentException.class, subscriber.error);
+    publish(bus, 0);
+    Thread.sleep(200);
+    assertTrue(subscriber.events.isEmpty());
+  }
+
+  @Test
+  void aCancelledSubscriberGetsNothingMore() throws Exception {
+    EventBus bus = new EventBus(64);
+    Recording subscriber = new Recording(Long.MAX_VALUE);
+    bus.subscribe(subscriber);
+    publish(bus, 0);
+    await(() -> subscriber.events.size() == 1);
+    subscriber.subscription.cancel();
+    publish(bus, 1);
+    Thread.sleep(200);
+    assertEquals(1, subscriber.events.size());
+  }
+}
@@ -0,0 +1,125 @@
+package tileflip;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.swing.SwingUtilities;
+import org.junit.jupiter.api.Test;
+
+/* the animator runs on the EDT, which needs no display */
+class FlipAnimatorTest {
+  private static final int COLS = 20;
+  private static final int SIZE = 10;
+
+  /* tiles laid out 20 a row, the ones from 1000 on are scrolled away */
+  private static final class RecordingView implements FlipAnimator.View {
+    final List<Rectangle> repaints = new ArrayList<>();
+
+    @Override
+    public boolean tileBounds(int index, Rectangle into) {
+      into.setBounds(index % COLS * SIZE, index / COLS * SIZE, SIZE, SIZE);
+      return index < 1000;
+    }
+
+    @Override
+    public void repaint(int x, int y, int width, int height) {
+      repaints.add(new Rectangle(x, y, width, height));
+    }
+  }
+
+  private static void onEdt(Runnable runnable) throws Exception {
+    SwingUtilities.invokeAndWait(runnable);
+  }
+
+  /* every moving tile is found through the table with its own kind, and nothing else is */
+  private static void assertConsistent(FlipAnimator animator, int tiles) {
+    Map<Integer, Integer> moving = new HashMap<>();
+    for (int slot = 0; slot < animator.activeCount(); slot++) {
+      assertEquals(null, moving.put(animator.activeTile(slot), animator.activeKind(slot)), "tile twice");
+    }
+    for (int tile = 0; tile < tiles; tile++) {
+      assertEquals(moving.getOrDefault(tile, FlipAnimator.NONE), animator.kindOf(tile), "tile " + tile);
+    }
+  }
+
+  @Test
+  void finishedAnimationsLeaveTheTableExact() throws Exception {
+    FlipAnimator animator = new FlipAnimator();
+    RecordingView view = new RecordingView();
+    int tiles = 300; // more than the arrays start with
+    onEdt(() -> {
+      animator.setView(view);
+      for (int tile = 0; tile < tiles; tile++) {
+        animator.start(tile, tile % 2 == 0 ? FlipAnimator.FLIP_UP : FlipAnimator.FADE);
+      }
+      animator.start(4, FlipAnimator.FLIP_DOWN); // a restart keeps the slot
+      assertEquals(tiles, animator.activeCount());
+      assertEquals(FlipAnimator.FLIP_DOWN, animator.kindOf(4));
+      assertEquals(FlipAnimator.NONE, animator.kindOf(tiles));
+      assertConsistent(animator, tiles + 10);
+    });
+
+    /* the flips end before the fades, so the table loses tiles in between */
+    long deadline = System.nanoTime() + 10_000_000_000L;
+    int[] left = {tiles};
+    while (left[0] > 0) {
+      assertTrue(System.nanoTime() < deadline, left[0] + " animations never ended");
+      Thread.sleep(10);
+      onEdt(() -> {
+        assertConsistent(animator, tiles + 10);
+        left[0] = animator.activeCount();
+      });
+    }
+    onEdt(() -> {
+      assertEquals(1f, animator.progressOf(1));
+      assertTrue(!view.repaints.isEmpty());
+      for (Rectangle repaint : view.repaints) {
+        assertTrue(new Rectangle(0, 0, COLS * SIZE, tiles / COLS * SIZE).contains(repaint), repaint.toString());
+      }
+      /* the first frame repaints every tile at once */
+      assertEquals(new Rectangle(0, 0, COLS * SIZE, tiles / COLS * SIZE), view.repaints.get(0));
+    });
+  }
+
+  @Test
+  void aFrameRepaintsOnlyTheTilesOnTheScreen() throws Exception {
+    FlipAnimator animator = new FlipAnimator();
+    RecordingView view = new RecordingView();
+    onEdt(() -> {
+      animator.setView(view);
+      animator.start(21, FlipAnimator.FLIP_UP);
+      animator.start(42, FlipAnimator.FLIP_UP);
+      animator.start(5000, FlipAnimator.FLIP_UP);
+    });
+    long deadline = System.nanoTime() + 10_000_000_000L;
+    int[] left = {3};
+    while (left[0] > 0) {
+      assertTrue(System.nanoTime() < deadline);
+      Thread.sleep(10);
+      onEdt(() -> left[0] = animator.activeCount());
+    }
+    onEdt(() -> {
+      for (Rectangle repaint : view.repaints) {
+        assertEquals(new Rectangle(10, 10, 20, 20), repaint);
+      }
+    });
+  }
+
+  @Test
+  void anotherViewDropsTheRunningAnimations() throws Exception {
+    FlipAnimator animator = new FlipAnimator();
+    onEdt(() -> {
+      animator.setView(new RecordingView());
+      animator.start(3, FlipAnimator.FADE);
+      animator.setView(new RecordingView());
+      assertEquals(0, animator.activeCount());
+      assertEquals(FlipAnimator.NONE, animator.kindOf(3));
+      assertEquals(1f, animator.progressOf(3));
+    });
+  }
+}
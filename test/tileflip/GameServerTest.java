@@ -0,0 +1,94 @@
+package tileflip;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class GameServerTest {
+  private GameServer server;
+  private Thread serving;
+
+  @BeforeEach
+  void start() throws IOException {
+    server = new GameServer(new InetSocketAddress("127.0.0.1", 0), 2, 500);
+    serving = new Thread(() -> {
+      try {
+        server.serve();
+      } catch (IOException e) {
+        throw new RuntimeException(e);
+      }
+    }, "game-server-test");
+    serving.start();
+  }
+
+  @AfterEach
+  void stop() throws InterruptedException {
+    server.stop();
+    serving.join(5000);
+  }
+
+  @Test
+  void eachBoardLimitHasItsOwnError() throws IOException {
+    try (Socket socket = new Socket("127.0.0.1", server.port())) {
+      BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+      PrintWriter out = new PrintWriter(socket.getOutputStream(), true, StandardCharsets.US_ASCII);
+      out.print("NEW 2 20000\n");
+      out.flush();
+      assertEquals("ERR too many identical tiles, at most 10000", in.readLine());
+      out.print("NEW 2000 1000\n");
+      out.flush();
+      assertEquals("ERR too many tiles, at most 1000000", in.readLine());
+      out.print("NEW 3 2 1\n");
+      out.flush();
+      assertTrue(in.readLine().startsWith("OK "));
+    }
+  }
+
+  @Test
+  void stopClosesTheConnectionsAndThePort() throws Exception {
+    int port = server.port();
+    try (Socket socket = new Socket("127.0.0.1", port)) {
+      BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+      PrintWriter out = new PrintWriter(socket.getOutputStream(), true, StandardCharsets.US_ASCII);
+      out.print("NEW 3 2 1\n");
+      out.flush();
+      assertTrue(in.readLine().startsWith("OK "));
+
+      server.stop();
+      serving.join(5000);
+      assertEquals(Thread.State.TERMINATED, serving.getState());
+      assertNull(in.readLine()); // closed by the server
+    }
+    assertThrows(IOException.class, () -> new Socket("127.0.0.1", port).close());
+  }
+
+  @Test
+  void aServerThatNeverServedCanBeStopped() throws IOException {
+    GameServer idle = new GameServer(new InetSocketAddress("127.0.0.1", 0), 1, 500);
+    int port = idle.port();
+    idle.stop();
+    assertThrows(IOException.class, () -> new Socket("127.0.0.1", port).close());
+    idle.serve(); // returns at once
+  }
+
+  @Test
+  void aServerServesOnlyOnce() throws IOException {
+    try (Socket socket = new Socket("127.0.0.1", server.port())) {
+      socket.getOutputStream().write("NEW 3 2 1\n".getBytes(StandardCharsets.US_ASCII));
+      socket.getInputStream().read(); // answered by an event loop, so serve() is running
+    }
+    assertThrows(IllegalStateException.class, server::serve);
+  }
+}
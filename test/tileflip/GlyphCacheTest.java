@@ -0,0 +1,64 @@
+package tileflip;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.awt.image.BufferedImage;
+import org.junit.jupiter.api.Test;
+
+class GlyphCacheTest {
+  /* a 10 x 10 glyph at scale 1 takes 400 bytes */
+  private static final int SIZE = 10;
+  private static final long GLYPH_BYTES = 4 * SIZE * SIZE;
+
+  @Test
+  void aGlyphIsRenderedOnce() {
+    GlyphCache cache = new GlyphCache(1 << 20);
+    BufferedImage first = cache.glyph(7, SIZE, 1);
+    assertSame(first, cache.glyph(7, SIZE, 1));
+    assertNotSame(first, cache.glyph(7, SIZE, 2)); // another screen scale is another glyph
+    assertEquals(2, cache.size());
+    assertEquals(GLYPH_BYTES + 4 * 20 * 20, cache.bytes());
+  }
+
+  @Test
+  void theLeastRecentlyUsedGlyphGoesFirst() {
+    GlyphCache cache = new GlyphCache(3 * GLYPH_BYTES);
+    BufferedImage zero = cache.glyph(0, SIZE, 1);
+    BufferedImage one = cache.glyph(1, SIZE, 1);
+    cache.glyph(2, SIZE, 1);
+    cache.glyph(0, SIZE, 1); // used again, 1 is the oldest now
+    cache.glyph(3, SIZE, 1);
+
+    assertEquals(3, cache.size());
+    assertEquals(3 * GLYPH_BYTES, cache.bytes());
+    assertSame(zero, cache.glyph(0, SIZE, 1));
+    assertNotSame(one, cache.glyph(1, SIZE, 1)); // evicted and rendered again
+  }
+
+  @Test
+  void retainSizesDropsTheOtherSizes() {
+    GlyphCache cache = new GlyphCache(1 << 20);
+    for (int size = 8; size <= 12; size++) {
+      cache.glyph(1, size, 1);
+      cache.glyph(2, size, 1);
+    }
+    BufferedImage kept = cache.glyph(1, SIZE, 1);
+    cache.retainSizes(SIZE, SIZE + 1);
+
+    assertEquals(4, cache.size());
+    assertEquals(2 * GLYPH_BYTES + 2 * 4 * 11 * 11, cache.bytes());
+    assertSame(kept, cache.glyph(1, SIZE, 1));
+  }
+
+  @Test
+  void aSingleGlyphOverTheBoundIsKept() {
+    GlyphCache cache = new GlyphCache(GLYPH_BYTES / 2);
+    BufferedImage only = cache.glyph(5, SIZE, 1);
+    assertSame(only, cache.glyph(5, SIZE, 1)); // the tile being painted keeps its glyph
+    cache.glyph(6, SIZE, 1);
+    assertEquals(1, cache.size());
+    assertEquals(GLYPH_BYTES, cache.bytes());
+  }
+}
@@ -0,0 +1,121 @@
+package tileflip;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ProfileStoreTest {
+  @TempDir
+  Path dataDir;
+
+  private static ScoreRecord score(int setNumber) {
+    return new ScoreRecord(1_700_000_000_000L, 1000, 20, 2, setNumber);
+  }
+
+  @Test
+  void everyPlayerHasAFileInTheShardOfTheirName() throws IOException {
+    ProfileStore store = new ProfileStore(dataDir);
+    List<String> players = List.of("alice", "bob", "../etc/passwd", "zoë", "a b");
+    Set<Path> paths = new HashSet<>();
+    for (String player : players) {
+      Path path = store.pathOf(player);
+      assertEquals(path, store.pathOf(player));
+      assertEquals(dataDir.resolve("profiles"), path.getParent().getParent()); // names cannot leave their shard
+      assertTrue(Integer.parseInt(path.getParent().getFileName().toString(), 16) < 64, path.toString());
+      assertTrue(paths.add(path), player);
+      try (ScoreLog log = store.open(player)) {
+        log.append(score(player.length()));
+      }
+    }
+    assertEquals(paths, new HashSet<>(store.profiles()));
+    for (String player : players) {
+      assertEquals(List.of(score(player.length())), store.read(player));
+    }
+    assertEquals(players.size(), store.readAll().size());
+  }
+
+  @Test
+  void aStoreWithoutProfilesIsEmpty() throws IOException {
+    ProfileStore store = new ProfileStore(dataDir.resolve("nothing"));
+    assertTrue(store.profiles().isEmpty());
+    assertTrue(store.readAll().isEmpty());
+  }
+
+  /* file locks only keep processes apart, so the other writers are processes of their own */
+  @Test
+  void processesAppendingToOneProfileKeepEveryScore() throws Exception {
+    int scores = 300;
+    List<Process> writers = new ArrayList<>();
+    for (int i = 0; i < 2; i++) {
+      writers.add(new ProcessBuilder(Paths.get(System.getProperty("java.home"), "bin", "java").toString(),
+          "-cp", System.getProperty("java.class.path"), ProfileStore.class.getName(),
+          dataDir.toString(), "alice", Integer.toString(scores))
+          .redirectErrorStream(true)
+          .redirectOutput(dataDir.resolve("writer-" + i + ".out").toFile())
+          .start());
+    }
+    ProfileStore store = new ProfileStore(dataDir);
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+    while (!Files.exists(store.pathOf("alice")) && System.nanoTime() < deadline) {
+      Thread.sleep(5); // start once the other processes are writing
+    }
+    try (ScoreLog log = store.open("alice")) {
+      for (int i = 0; i < scores; i++) {
+        log.append(score(i));
+      }
+      log.sync();
+    }
+    for (Process writer : writers) {
+      assertTrue(writer.waitFor(60, TimeUnit.SECONDS));
+      assertEquals(0, writer.exitValue());
+    }
+
+    List<ScoreRecord> records = store.read("alice");
+    assertEquals(3 * scores, records.size());
+    int[] timesSeen = new int[scores];
+    for (ScoreRecord record : records) {
+      timesSeen[record.setNumber()]++;
+    }
+    for (int i = 0; i < scores; i++) {
+      assertEquals(3, timesSeen[i], "score " + i);
+    }
+  }
+
+  @Test
+  void legacyScoresAreImportedOnce() throws IOException {
+    ProfileStore store = new ProfileStore(dataDir);
+    Path legacyLog = dataDir.resolve("scores.bin");
+    try (ScoreLog log = ScoreLog.open(legacyLog)) {
+      log.appendAll(List.of(score(1), score(2)));
+    }
+    Path legacyText = dataDir.resolve("scores.txt");
+    Files.writeString(legacyText, "5\n7\nnot a score\n", StandardCharsets.UTF_8);
+
+    try (ScoreLog log = store.open("alice")) {
+      assertEquals(4, store.importLegacy(log, legacyLog, legacyText, dataDir.resolve("never.bin")));
+      assertEquals(0, store.importLegacy(log, legacyLog, legacyText));
+    }
+    assertFalse(Files.exists(legacyLog));
+    assertFalse(Files.exists(legacyText));
+    assertTrue(Files.exists(dataDir.resolve("scores.bin.imported")));
+    assertTrue(Files.exists(dataDir.resolve("scores.txt.imported")));
+    List<ScoreRecord> records = store.read("alice");
+    assertEquals(4, records.size());
+    assertEquals(List.of(score(1), score(2)), records.subList(0, 2));
+    assertEquals(5, records.get(2).setNumber());
+    assertEquals(7, records.get(3).setNumber());
+  }
+}
@@ -0,0 +1,78 @@
+package tileflip;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.Test;
+
+class RankTreeTest {
+  /* the number of keys below key in a sorted list, by binary search for the first one not below */
+  private static int countLess(List<Long> sorted, long key) {
+    int low = 0;
+    int high = sorted.size();
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (sorted.get(middle) < key) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  private static void assertSameAs(List<Long> sorted, RankTree tree, SplittableRandom random) {
+    assertEquals(sorted.size(), tree.size());
+    for (int k = 0; k < sorted.size(); k++) {
+      assertEquals(sorted.get(k), tree.select(k));
+    }
+    for (int i = 0; i < 200; i++) {
+      long key = random.nextLong(-10, 510);
+      assertEquals(countLess(sorted, key), tree.countLess(key), "keys below " + key);
+    }
+  }
+
+  @Test
+  void insertedKeysAnswerLikeASortedList() {
+    SplittableRandom random = new SplittableRandom(1);
+    RankTree tree = new RankTree();
+    List<Long> sorted = new ArrayList<>();
+    for (int i = 0; i < 2000; i++) {
+      long key = random.nextLong(500); // plenty of duplicates
+      tree.insert(key);
+      sorted.add(key);
+      if (i % 250 == 0) {
+        Collections.sort(sorted);
+        assertSameAs(sorted, tree, random);
+      }
+    }
+    Collections.sort(sorted);
+    assertSameAs(sorted, tree, random);
+  }
+
+  @Test
+  void aTreeBuiltAtOnceAnswersLikeASortedList() {
+    SplittableRandom random = new SplittableRandom(2);
+    long[] keys = new long[3000];
+    List<Long> sorted = new ArrayList<>();
+    for (int i = 0; i < keys.length; i++) {
+      keys[i] = random.nextLong(500);
+      sorted.add(keys[i]);
+    }
+    RankTree tree = RankTree.of(keys, keys.length);
+    tree.insert(250);
+    sorted.add(250L);
+    Collections.sort(sorted);
+    assertSameAs(sorted, tree, random);
+
+    long[] smallest = new long[10];
+    for (int i = 0; i < smallest.length; i++) {
+      smallest[i] = sorted.get(i);
+    }
+    assertArrayEquals(smallest, tree.smallest(10));
+  }
+}
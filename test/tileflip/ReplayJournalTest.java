@@ -0,0 +1,59 @@
+package tileflip;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+
+class ReplayJournalTest {
+  /* values around every varint length, up to the largest tile index and a long pause */
+  private static final int[] INDEXES = {0, 1, 127, 128, 16_383, 16_384, 2_097_151, 2_097_152, Integer.MAX_VALUE - 9};
+  private static final long[] DELTAS = {0, 127, 128, 1_000_000, 3_000_000_000L, Long.MAX_VALUE / 2, 1, 300, 5};
+
+  private static ReplayJournal recorded() {
+    ReplayJournal journal = new ReplayJournal(ReplayJournal.GENERATOR_PARALLEL_APART, -1234567890123L, 300_000, 7);
+    journal.start(0);
+    long now = 0;
+    for (int i = 0; i < INDEXES.length; i++) {
+      now += DELTAS[i];
+      journal.recordFlip(INDEXES[i], now);
+    }
+    return journal;
+  }
+
+  @Test
+  void theFlipsComeBackAsRecorded() throws IOException {
+    ReplayJournal read = ReplayJournal.fromBytes(recorded().toBytes());
+    assertEquals(ReplayJournal.GENERATOR_PARALLEL_APART, read.generator());
+    assertEquals(-1234567890123L, read.seed());
+    assertEquals(300_000, read.differentTiles());
+    assertEquals(7, read.identicalTilesToCancel());
+    assertEquals(INDEXES.length, read.flipCount());
+    ReplayJournal.Reader flips = read.reader();
+    for (int i = 0; i < INDEXES.length; i++) {
+      assertTrue(flips.next());
+      assertEquals(INDEXES[i], flips.index());
+      assertEquals(DELTAS[i], flips.deltaNanos());
+    }
+    assertFalse(flips.next());
+  }
+
+  @Test
+  void aCutOffJournalIsRejected() {
+    byte[] bytes = recorded().toBytes();
+    assertThrows(IOException.class, () -> ReplayJournal.fromBytes(Arrays.copyOf(bytes, bytes.length - 1)));
+    assertThrows(IOException.class, () -> ReplayJournal.fromBytes(Arrays.copyOf(bytes, 10)));
+  }
+
+  @Test
+  void aJournalOfAnUnknownGeneratorIsRejected() {
+    byte[] bytes = recorded().toBytes();
+    bytes[5] = 42; // after the magic and the version
+    assertFalse(ReplayJournal.isKnownGenerator(42));
+    assertThrows(IOException.class, () -> ReplayJournal.fromBytes(bytes));
+  }
+}
@@ -0,0 +1,88 @@
+package tileflip;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ScoreLogTest {
+  @TempDir
+  Path directory;
+
+  private static ScoreRecord score(int i) {
+    return new ScoreRecord(1_700_000_000_000L + i, 1000 + i, 20 + i, 2, 10 + i);
+  }
+
+  @Test
+  void recordsSurviveReopening() throws IOException {
+    Path path = directory.resolve("scores.bin");
+    try (ScoreLog log = ScoreLog.open(path)) {
+      log.append(score(0));
+      log.appendAll(List.of(score(1), score(2)));
+    }
+    assertEquals(List.of(score(0), score(1), score(2)), ScoreLog.read(path));
+  }
+
+  @Test
+  void aTornTailIsSkippedAndOverwritten() throws IOException {
+    Path path = directory.resolve("scores.bin");
+    try (ScoreLog log = ScoreLog.open(path)) {
+      log.appendAll(List.of(score(0), score(1)));
+    }
+    long valid = Files.size(path);
+    try (ScoreLog log = ScoreLog.open(path)) {
+      log.append(score(2));
+    }
+    /* a crash in the middle of the last record */
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+      channel.truncate(valid + 10);
+    }
+    assertEquals(List.of(score(0), score(1)), ScoreLog.read(path));
+
+    try (ScoreLog log = ScoreLog.open(path)) {
+      log.append(score(3));
+    }
+    assertEquals(List.of(score(0), score(1), score(3)), ScoreLog.read(path));
+  }
+
+  @Test
+  void recordsBehindATornOneDoNotComeBack() throws IOException {
+    Path path = directory.resolve("scores.bin");
+    try (ScoreLog log = ScoreLog.open(path)) {
+      log.appendAll(List.of(score(0), score(1), score(2), score(3)));
+    }
+    /* a crash left score(1) half written, the ones behind it are stale */
+    long second = ScoreLog.HEADER_SIZE + (Files.size(path) - ScoreLog.HEADER_SIZE) / 4;
+    byte[] bytes = Files.readAllBytes(path);
+    bytes[(int) second + 8] ^= 1;
+    Files.write(path, bytes);
+    assertEquals(List.of(score(0)), ScoreLog.read(path));
+
+    try (ScoreLog log = ScoreLog.open(path)) {
+      log.append(score(4));
+    }
+    assertEquals(List.of(score(0), score(4)), ScoreLog.read(path));
+    try (ScoreLog log = ScoreLog.open(path)) {
+      log.append(score(5));
+    }
+    assertEquals(List.of(score(0), score(4), score(5)), ScoreLog.read(path));
+  }
+
+  @Test
+  void aRecordWithABadChecksumEndsTheLog() throws IOException {
+    Path path = directory.resolve("scores.bin");
+    try (ScoreLog log = ScoreLog.open(path)) {
+      log.appendAll(List.of(score(0), score(1)));
+    }
+    byte[] bytes = Files.readAllBytes(path);
+    bytes[bytes.length - 1] ^= 1;
+    Files.write(path, bytes);
+    assertEquals(List.of(score(0)), ScoreLog.read(path));
+  }
+}
@@ -0,0 +1,129 @@
+package tileflip;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import jdk.jfr.consumer.RecordingStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/* the batches are watched through the writer's own flight recorder event */
+class ScoreWriterTest {
+  @TempDir
+  Path directory;
+
+  private record Write(int records, boolean synced) {
+  }
+
+  private final List<Write> writes = new CopyOnWriteArrayList<>();
+  private RecordingStream stream;
+
+  @BeforeEach
+  void record() {
+    stream = new RecordingStream();
+    stream.enable("tileflip.PersistenceWrite");
+    stream.setMaxAge(Duration.ofMinutes(1));
+    stream.onEvent("tileflip.PersistenceWrite", e -> writes.add(new Write(e.getInt("records"), e.getBoolean("synced"))));
+    stream.startAsync();
+  }
+
+  @AfterEach
+  void stop() {
+    stream.close();
+  }
+
+  private static ScoreRecord score(int i) {
+    return new ScoreRecord(1_700_000_000_000L + i, 1000 + i, 20 + i, 2, 10 + i);
+  }
+
+  /* the stream delivers about once a second */
+  private void awaitWrites(int count) throws InterruptedException {
+    long deadline = System.nanoTime() + Duration.ofSeconds(20).toNanos();
+    while (writes.size() < count && System.nanoTime() < deadline) {
+      Thread.sleep(20);
+    }
+    assertEquals(count, writes.size(), "batches written: " + writes);
+  }
+
+  private static void awaitTaken(ScoreWriter writer) throws InterruptedException {
+    while (writer.pending() > 0) {
+      Thread.sleep(1);
+    }
+  }
+
+  @Test
+  void scoresQueuedDuringAWriteGoOutAsOneBatchWithOneSync() throws Exception {
+    Path path = directory.resolve("scores.bin");
+    ScoreLog log = ScoreLog.open(path);
+    ScoreWriter writer = new ScoreWriter(log, ScoreWriter.FsyncPolicy.EVERY_BATCH, 0);
+    List<ScoreRecord> expected = new ArrayList<>();
+    synchronized (log) { // the writer waits in appendAll with the first score
+      writer.enqueue(score(0));
+      expected.add(score(0));
+      awaitTaken(writer);
+      for (int i = 1; i < 100; i++) {
+        writer.enqueue(score(i));
+        expected.add(score(i));
+      }
+    }
+    writer.close();
+    awaitWrites(2);
+    assertEquals(List.of(new Write(1, true), new Write(99, true)), writes);
+    assertEquals(expected, ScoreLog.read(path));
+  }
+
+  @Test
+  void theIntervalPolicySyncsOnlyWhenDueOrClosing() throws Exception {
+    Path path = directory.resolve("scores.bin");
+    ScoreLog log = ScoreLog.open(path);
+    ScoreWriter writer = new ScoreWriter(log, ScoreWriter.FsyncPolicy.INTERVAL, 60_000);
+    Thread closer = new Thread(() -> {
+      try {
+        writer.close();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    });
+    synchronized (log) {
+      writer.enqueue(score(0));
+      awaitTaken(writer);
+      writer.enqueue(score(1));
+      closer.start();
+      while (writer.pending() < 2) { // score 1 and the stop mark are queued behind the first batch
+        Thread.sleep(1);
+      }
+    }
+    closer.join();
+    awaitWrites(2);
+    /* the first batch is within the interval, the last one is synced because the writer closes */
+    assertEquals(List.of(new Write(1, false), new Write(1, true)), writes);
+    assertEquals(List.of(score(0), score(1)), ScoreLog.read(path));
+  }
+
+  @Test
+  void theNeverPolicyLeavesSyncingToTheSystem() throws Exception {
+    Path path = directory.resolve("scores.bin");
+    ScoreWriter writer = new ScoreWriter(ScoreLog.open(path), ScoreWriter.FsyncPolicy.NEVER, 0);
+    writer.enqueue(score(0));
+    writer.close();
+    awaitWrites(1);
+    assertEquals(List.of(new Write(1, false)), writes);
+    assertEquals(List.of(score(0)), ScoreLog.read(path));
+  }
+
+  @Test
+  void aClosedWriterTakesNoMoreScores() throws IOException, InterruptedException {
+    ScoreWriter writer = new ScoreWriter(ScoreLog.open(directory.resolve("scores.bin")),
+        ScoreWriter.FsyncPolicy.EVERY_BATCH, 0);
+    writer.close();
+    assertThrows(IllegalStateException.class, () -> writer.enqueue(score(0)));
+  }
+}
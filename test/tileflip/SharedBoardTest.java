@@ -0,0 +1,167 @@
+package tileflip;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class SharedBoardTest {
+  private static final int PLAYERS = 8;
+
+  private static void runAll(List<Runnable> work) throws InterruptedException {
+    ConcurrentLinkedQueue<Throwable> failures = new ConcurrentLinkedQueue<>();
+    List<Thread> threads = new ArrayList<>();
+    for (int i = 0; i < work.size(); i++) {
+      Runnable runnable = work.get(i);
+      Thread thread = new Thread(() -> {
+        try {
+          runnable.run();
+        } catch (Throwable e) {
+          failures.add(e);
+        }
+      }, "player-" + i);
+      threads.add(thread);
+      thread.start();
+    }
+    for (Thread thread : threads) {
+      thread.join(60_000);
+      assertTrue(!thread.isAlive(), thread.getName() + " is stuck");
+    }
+    if (!failures.isEmpty()) {
+      throw new AssertionError(failures.peek());
+    }
+  }
+
+  @Test
+  void onlyOnePlayerGetsATileEveryoneFlipsAtOnce() throws Exception {
+    SharedBoard board = new SharedBoard(500, 2, 1);
+    CyclicBarrier start = new CyclicBarrier(PLAYERS);
+    AtomicInteger[] winners = new AtomicInteger[board.tileCount()];
+    for (int i = 0; i < winners.length; i++) {
+      winners[i] = new AtomicInteger();
+    }
+    List<Runnable> players = new ArrayList<>();
+    for (int p = 0; p < PLAYERS; p++) {
+      players.add(() -> {
+        SharedBoard.Player player = board.join();
+        try {
+          for (int index = 0; index < board.tileCount(); index++) {
+            start.await(); // everyone goes for the same tile
+            if (player.flip(index) != TileBoard.Outcome.IGNORED) {
+              winners[index].incrementAndGet();
+              assertEquals(player.id(), board.stateAt(index));
+            }
+            start.await(); // nobody lets go before everyone has tried
+            player.flipBack();
+          }
+        } catch (Exception e) {
+          throw new RuntimeException(e);
+        }
+      });
+    }
+    runAll(players);
+    for (int index = 0; index < winners.length; index++) {
+      assertEquals(1, winners[index].get(), "winners of tile " + index);
+      assertEquals(SharedBoard.HIDDEN, board.stateAt(index));
+    }
+  }
+
+  /*
+   * players who know every symbol race for the same groups until the board is
+   * clear, while a spectator follows the published groups.
+   */
+  @Test
+  void racingPlayersClearEveryGroupExactlyOnce() throws Exception {
+    SharedBoard board = new SharedBoard(2000, 3, 7);
+    int k = board.identicalTilesToCancel();
+    int[] positions = new int[board.tileCount()];
+    int[] filled = new int[board.differentTiles()];
+    for (int i = 0; i < board.tileCount(); i++) {
+      positions[board.symbolAt(i) * k + filled[board.symbolAt(i)]++] = i;
+    }
+    AtomicInteger matched = new AtomicInteger();
+    AtomicInteger completed = new AtomicInteger();
+    List<Runnable> work = new ArrayList<>();
+    for (int p = 0; p < PLAYERS; p++) {
+      long seed = p;
+      work.add(() -> {
+        SharedBoard.Player player = board.join();
+        SplittableRandom random = new SplittableRandom(seed);
+        while (!board.isCompleted()) {
+          int first = board.randomHidden(random);
+          if (first < 0 || player.flip(first) == TileBoard.Outcome.IGNORED) {
+            Thread.yield();
+            continue;
+          }
+          TileBoard.Outcome outcome = TileBoard.Outcome.SELECTED;
+          int base = board.symbolAt(first) * k;
+          for (int i = 0; i < k && outcome == TileBoard.Outcome.SELECTED; i++) {
+            if (positions[base + i] != first) {
+              outcome = player.flip(positions[base + i]);
+            }
+          }
+          if (outcome == TileBoard.Outcome.MATCHED) {
+            matched.incrementAndGet();
+          } else if (outcome == TileBoard.Outcome.COMPLETED) {
+            completed.incrementAndGet();
+          } else {
+            player.flipBack(); // someone else holds part of the group
+            Thread.yield();
+          }
+        }
+      });
+    }
+    int[] seenGroups = new int[board.differentTiles()];
+    work.add(() -> {
+      SharedBoard.Player spectator = board.join();
+      int seen = 0;
+      while (seen < board.differentTiles()) {
+        int group = spectator.nextClearedGroup();
+        if (group < 0) {
+          Thread.yield();
+          continue;
+        }
+        /* the positions of a group are visible once its symbol is */
+        int symbol = board.groupSymbol(group);
+        for (int i = 0; i < k; i++) {
+          int position = board.groupPosition(group, i);
+          assertEquals(symbol, board.symbolAt(position));
+          assertEquals(SharedBoard.CLEARED, board.stateAt(position));
+        }
+        seenGroups[symbol]++;
+        seen++;
+      }
+    });
+    runAll(work);
+
+    assertTrue(board.isCompleted());
+    assertEquals(1, completed.get());
+    assertEquals(board.differentTiles() - 1, matched.get());
+    assertEquals(board.differentTiles(), board.clearedGroups());
+    for (int symbol = 0; symbol < seenGroups.length; symbol++) {
+      assertEquals(1, seenGroups[symbol], "groups of symbol " + symbol);
+    }
+    for (int index = 0; index < board.tileCount(); index++) {
+      assertEquals(SharedBoard.CLEARED, board.stateAt(index));
+    }
+    assertEquals(-1, board.randomHidden(new SplittableRandom(1))); // no live symbol is left
+  }
+
+  @Test
+  void aPlayerHoldingATileBlocksOnlyThatTile() {
+    SharedBoard board = new SharedBoard(3, 2, 3);
+    SharedBoard.Player first = board.join();
+    SharedBoard.Player second = board.join();
+    assertEquals(TileBoard.Outcome.SELECTED, first.flip(0));
+    assertEquals(TileBoard.Outcome.IGNORED, second.flip(0));
+    assertEquals(first.id(), board.stateAt(0));
+    first.flipBack();
+    assertEquals(TileBoard.Outcome.SELECTED, second.flip(0));
+  }
+}
@@ -0,0 +1,112 @@
+package tileflip;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+class SymbolIndexTest {
+  /* the index against a scan of the board, cleared[] says which tiles are gone */
+  private static void assertMatches(TileBoard board, boolean[] cleared, SymbolIndex index) {
+    Set<Integer> liveSymbols = new HashSet<>();
+    int remainingTiles = 0;
+    for (int symbol = 0; symbol < board.differentTiles(); symbol++) {
+      Set<Integer> expected = new HashSet<>();
+      for (int i = 0; i < board.tileCount(); i++) {
+        if (board.symbolAt(i) == symbol && !cleared[i]) {
+          expected.add(i);
+        }
+      }
+      Set<Integer> actual = new HashSet<>();
+      for (int i = 0; i < index.remaining(symbol); i++) {
+        actual.add(index.remainingAt(symbol, i));
+      }
+      assertEquals(expected, actual, "tiles left of symbol " + symbol);
+      assertEquals(expected.size(), index.remaining(symbol));
+      if (!expected.isEmpty()) {
+        liveSymbols.add(symbol);
+      }
+      remainingTiles += expected.size();
+    }
+    Set<Integer> live = new HashSet<>();
+    for (int i = 0; i < index.remainingGroups(); i++) {
+      live.add(index.remainingGroup(i));
+    }
+    assertEquals(liveSymbols, live);
+    assertEquals(liveSymbols.size(), index.remainingGroups());
+    assertEquals(remainingTiles, index.remainingTiles());
+    assertEquals(liveSymbols.isEmpty(), index.isEmpty());
+  }
+
+  @Test
+  void removingTilesInAnyOrderKeepsEveryListExact() {
+    TileBoard board = new TileBoard(50, 4, 11);
+    SymbolIndex index = new SymbolIndex(board);
+    boolean[] cleared = new boolean[board.tileCount()];
+    assertMatches(board, cleared, index);
+
+    List<Integer> order = new ArrayList<>();
+    for (int i = 0; i < board.tileCount(); i++) {
+      order.add(i);
+    }
+    Collections.shuffle(order, new Random(5));
+    for (int tile : order) {
+      index.remove(tile, board.symbolAt(tile));
+      cleared[tile] = true;
+      assertMatches(board, cleared, index);
+    }
+    assertTrue(index.isEmpty());
+  }
+
+  @Test
+  void removingATileTwiceChangesNothing() {
+    TileBoard board = TileBoard.dealt(3, 2, new int[] {0, 1, 0, 2, 1, 2});
+    SymbolIndex index = new SymbolIndex(board);
+    boolean[] cleared = new boolean[board.tileCount()];
+    index.remove(0, 0);
+    index.remove(0, 0);
+    cleared[0] = true;
+    assertMatches(board, cleared, index);
+    index.remove(2, 0);
+    index.remove(0, 0); // the symbol has no tiles left
+    cleared[2] = true;
+    assertMatches(board, cleared, index);
+    assertEquals(2, index.remainingGroups());
+  }
+
+  @Test
+  void aRestoredBoardStartsWithoutItsClearedTiles() {
+    TileBoard board = TileBoard.dealt(3, 2, new int[] {0, 1, 0, 2, 1, 2});
+    board.flip(1);
+    board.flip(4);
+    SymbolIndex index = new SymbolIndex(board);
+    boolean[] cleared = {false, true, false, false, true, false};
+    assertMatches(board, cleared, index);
+    assertEquals(0, board.remainingOf(1));
+  }
+
+  @Test
+  void theBoardKeepsItsIndexUpToDateWhilePlaying() {
+    TileBoard board = TileBoard.dealt(3, 2, new int[] {0, 1, 0, 2, 1, 2});
+    SymbolIndex index = board.symbolIndex();
+    board.flip(3);
+    board.flip(5);
+    assertMatches(board, new boolean[] {false, false, false, true, false, true}, index);
+
+    Random random = new Random(1);
+    for (int i = 0; i < 100; i++) {
+      int hint = board.hint(random);
+      assertFalse(board.isCleared(hint), "hint " + hint);
+      assertTrue(board.symbolAt(hint) != 2);
+    }
+    board.flip(0);
+    assertEquals(2, board.hint(random)); // the rest of the selected group
+  }
+}
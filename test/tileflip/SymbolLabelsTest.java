@@ -0,0 +1,58 @@
+package tileflip;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class SymbolLabelsTest {
+  /* bijective base 26 read back: A = 1 ... Z = 26, AA = 27, minus one for the ids starting at 0 */
+  private static long idOf(String label) {
+    long value = 0;
+    for (char c : label.toCharArray()) {
+      value = value * 26 + (c - 'A' + 1);
+    }
+    return value - 1;
+  }
+
+  @Test
+  void theFirstLabelsOfEachLength() {
+    assertEquals("A", SymbolLabels.label(0));
+    assertEquals("Z", SymbolLabels.label(25));
+    assertEquals("AA", SymbolLabels.label(26));
+    assertEquals("AZ", SymbolLabels.label(51));
+    assertEquals("BA", SymbolLabels.label(52));
+    assertEquals("ZZ", SymbolLabels.label(701));
+    assertEquals("AAA", SymbolLabels.label(702));
+  }
+
+  @Test
+  void everyIdHasItsOwnLabelInOrder() {
+    String previous = "";
+    for (int id = 0; id < 100_000; id++) { // across the end of the memo
+      String label = SymbolLabels.label(id);
+      assertEquals(id, idOf(label));
+      assertEquals(label.length(), SymbolLabels.length(id));
+      /* shorter labels first, then alphabetical: no label is skipped or repeated */
+      assertTrue(label.length() > previous.length()
+          || label.length() == previous.length() && label.compareTo(previous) > 0, label);
+      previous = label;
+    }
+  }
+
+  @Test
+  void theLargestIdsRoundTrip() {
+    for (int id : new int[] {Integer.MAX_VALUE, Integer.MAX_VALUE - 1, 12_356_630, 12_356_629, 321_272_406}) {
+      assertEquals(id, idOf(SymbolLabels.label(id)), "id " + id);
+    }
+    assertEquals("FXSHRXX", SymbolLabels.label(Integer.MAX_VALUE));
+  }
+
+  @Test
+  void writeFillsTheArrayAtTheOffset() {
+    char[] dest = "..........".toCharArray();
+    int length = SymbolLabels.write(702, dest, 3);
+    assertEquals(3, length);
+    assertEquals("...AAA....", new String(dest));
+  }
+}
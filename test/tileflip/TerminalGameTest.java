@@ -0,0 +1,128 @@
+package tileflip;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.junit.jupiter.api.Test;
+
+class TerminalGameTest {
+  private static final String ESC = "\u001b[";
+  private static final Pattern MOVE = Pattern.compile("\u001b\\[(\\d+);(\\d+)H");
+
+  /* a flush ends a frame */
+  private static final class Frames extends StringWriter {
+    final List<String> frames = new ArrayList<>();
+    private int flushed;
+
+    @Override
+    public void flush() {
+      frames.add(getBuffer().substring(flushed));
+      flushed = getBuffer().length();
+    }
+  }
+
+  /*
+   * 2 rows of 3:  A A B
+   *               B C C
+   * the board starts on line 3, the cells in columns 3, 5 and 7
+   */
+  private static TileBoard board() {
+    return TileBoard.dealt(3, 2, new int[] {0, 0, 1, 1, 2, 2});
+  }
+
+  /* the cursor positions of a frame that land in a cell of the board, as "line;column" */
+  private static List<String> cellMoves(String frame) {
+    List<String> moves = new ArrayList<>();
+    Matcher move = MOVE.matcher(frame);
+    while (move.find()) {
+      int line = Integer.parseInt(move.group(1));
+      int column = Integer.parseInt(move.group(2));
+      if (line >= 3 && line <= 4 && column >= 3) {
+        moves.add(line + ";" + column);
+      }
+    }
+    return moves;
+  }
+
+  private static List<String> play(TileBoard board, String... lines) throws IOException {
+    Frames out = new Frames();
+    new TerminalGame(board, out).play(new BufferedReader(new StringReader(String.join("\n", lines) + "\n")));
+    return out.frames;
+  }
+
+  @Test
+  void theFirstFrameDrawsEveryCell() throws IOException {
+    String first = play(board()).get(0);
+    assertTrue(first.startsWith(ESC + "2J" + ESC + "H"));
+    /* one cursor position per row, the cells of a row follow each other */
+    assertEquals(List.of("3;3", "4;3"), cellMoves(first));
+    assertTrue(first.contains(ESC + "3;3H. . . "), first);
+    assertTrue(first.contains(ESC + "4;3H. . . "), first);
+  }
+
+  @Test
+  void aMoveRewritesOnlyTheCellsThatChanged() throws IOException {
+    List<String> frames = play(board(), "1 1", "1 2", "x", "1 1", "1 3");
+    assertEquals(6, frames.size());
+
+    String flip = frames.get(1);
+    assertEquals(List.of("3;3"), cellMoves(flip));
+    assertTrue(flip.contains(ESC + "3;3H" + ESC + "1;33mA" + ESC + "0m "), flip);
+    assertFalse(flip.contains("2J"));
+    assertTrue(flip.length() < 120, flip.length() + " bytes");
+
+    /* the two cleared tiles sit side by side, one cursor position for both */
+    String match = frames.get(2);
+    assertEquals(List.of("3;3"), cellMoves(match));
+    assertTrue(match.contains(ESC + "3;3H" + ESC + "2mA" + ESC + "0m " + ESC + "2mA" + ESC + "0m "), match);
+    assertTrue(match.contains("a set is cleared"));
+
+    assertEquals(List.of(), cellMoves(frames.get(3)));
+    assertTrue(frames.get(3).contains("type <row> <column>"));
+    assertEquals(List.of(), cellMoves(frames.get(4)));
+    assertTrue(frames.get(4).contains("that tile is already face up"));
+
+    String next = frames.get(5);
+    assertEquals(List.of("3;7"), cellMoves(next));
+    assertTrue(next.contains(ESC + "1;33mB"), next);
+  }
+
+  @Test
+  void aHintIsMarkedAndUnmarked() throws IOException {
+    List<String> frames = play(board(), "1 1", "h", "x");
+    String hint = frames.get(2);
+    assertEquals(List.of("3;5"), cellMoves(hint)); // the rest of the selected group
+    assertTrue(hint.contains(ESC + "3;5H" + ESC + "7m." + ESC + "0m "), hint);
+    String after = frames.get(3);
+    assertEquals(List.of("3;5"), cellMoves(after));
+    assertTrue(after.contains(ESC + "3;5H. "), after);
+  }
+
+  @Test
+  void playingEveryGroupCompletesTheBoard() throws IOException {
+    TileBoard board = board();
+    Frames out = new Frames();
+    boolean completed = new TerminalGame(board, out)
+        .play(new BufferedReader(new StringReader("1 1\n1 2\n1 3\n2 1\n2 2\n2 3\n1 1\n")));
+    assertTrue(completed);
+    assertEquals(7, out.frames.size()); // the line after the last move is not read
+    assertTrue(board.isCompleted());
+  }
+
+  @Test
+  void quittingLeavesTheBoardUnfinished() throws IOException {
+    TileBoard board = board();
+    Frames out = new Frames();
+    assertFalse(new TerminalGame(board, out).play(new BufferedReader(new StringReader("1 1\nq\n2 2\n"))));
+    assertEquals(2, out.frames.size());
+  }
+}
@@ -0,0 +1,124 @@
+package tileflip;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class TileBoardTest {
+  /* 3 symbols of 2 tiles: A B A C B C */
+  private static TileBoard pairs() {
+    return TileBoard.dealt(3, 2, new int[] {0, 1, 0, 2, 1, 2});
+  }
+
+  @Test
+  void identicalTilesClearTheGroup() {
+    TileBoard board = pairs();
+    assertEquals(TileBoard.Outcome.SELECTED, board.flip(0));
+    assertEquals(TileBoard.Outcome.MATCHED, board.flip(2));
+    assertTrue(board.isCleared(0));
+    assertTrue(board.isCleared(2));
+    assertEquals(1, board.clearedGroups());
+    assertEquals(2, board.resolvedCount());
+    assertEquals(TileBoard.Outcome.IGNORED, board.flip(0));
+  }
+
+  @Test
+  void aDifferentSymbolFailsTheGroupAtOnce() {
+    TileBoard board = TileBoard.dealt(2, 3, new int[] {0, 0, 1, 1, 0, 1});
+    assertEquals(TileBoard.Outcome.SELECTED, board.flip(0));
+    /* the second tile already tells, no need to flip a third */
+    assertEquals(TileBoard.Outcome.MISMATCHED, board.flip(2));
+    assertTrue(board.isAwaitingFlipBack());
+    assertEquals(2, board.resolvedCount());
+    assertEquals(TileBoard.Outcome.IGNORED, board.flip(1));
+
+    board.flipBack();
+    assertFalse(board.isAwaitingFlipBack());
+    assertFalse(board.isFlipped(0));
+    assertFalse(board.isFlipped(2));
+    assertEquals(0, board.selectedCount());
+    assertEquals(2, board.flipCount());
+  }
+
+  @Test
+  void theLastGroupCompletesTheBoard() {
+    TileBoard board = pairs();
+    board.flip(0);
+    board.flip(2);
+    board.flip(1);
+    board.flip(4);
+    board.flip(3);
+    assertEquals(TileBoard.Outcome.COMPLETED, board.flip(5));
+    assertTrue(board.isCompleted());
+    assertEquals(6, board.flipCount());
+  }
+
+  @Test
+  void aSeedDealsEverySymbolIdenticalTimes() {
+    TileBoard board = new TileBoard(50, 4, 42);
+    int[] count = new int[50];
+    for (int i = 0; i < board.tileCount(); i++) {
+      count[board.symbolAt(i)]++;
+    }
+    for (int symbol = 0; symbol < 50; symbol++) {
+      assertEquals(4, count[symbol]);
+    }
+    assertEquals(board.tileCount(), board.rows() * board.cols());
+  }
+
+  @Test
+  void restoreTurnsAPartlyClearedGroupFaceDown() {
+    long[] flipped = {0b000101};
+    long[] cleared = {0b000001}; // tile 2, the other A, did not make it to disk
+    TileBoard board = TileBoard.restore(3, 2, new int[] {0, 1, 0, 2, 1, 2}, flipped, cleared, new int[2], 0, 7);
+    assertFalse(board.isCleared(0));
+    assertFalse(board.isFlipped(0));
+    assertFalse(board.isFlipped(2));
+    assertEquals(0, board.clearedGroups());
+    assertEquals(7, board.flipCount());
+  }
+
+  @Test
+  void restoreKeepsAConsistentSelection() {
+    long[] flipped = {0b000101 | 0b000010};
+    long[] cleared = {0b000101};
+    TileBoard board = TileBoard.restore(3, 2, new int[] {0, 1, 0, 2, 1, 2}, flipped, cleared, new int[] {1, 0}, 1,
+        3);
+    assertEquals(1, board.clearedGroups());
+    assertEquals(1, board.selectedCount());
+    assertTrue(board.isFlipped(1));
+    assertEquals(TileBoard.Outcome.MATCHED, board.flip(4));
+  }
+
+  @Test
+  void restoreDropsASelectionThatDoesNotMatchTheFaceUpTiles() {
+    long[] flipped = {0b011000};
+    long[] cleared = {0};
+    TileBoard board = TileBoard.restore(3, 2, new int[] {0, 1, 0, 2, 1, 2}, flipped, cleared, new int[] {3, 0}, 1,
+        2);
+    assertFalse(board.isFlipped(3));
+    assertFalse(board.isFlipped(4));
+    assertEquals(0, board.selectedCount());
+    assertEquals(TileBoard.Outcome.SELECTED, board.flip(3));
+  }
+
+  @Test
+  void restoreFlipsBackAFailedGroupThatWasStillShown() {
+    long[] flipped = {0b000011};
+    long[] cleared = {0};
+    TileBoard board = TileBoard.restore(3, 2, new int[] {0, 1, 0, 2, 1, 2}, flipped, cleared, new int[] {0, 1}, 2,
+        2);
+    assertFalse(board.isAwaitingFlipBack());
+    assertFalse(board.isFlipped(0));
+    assertFalse(board.isFlipped(1));
+  }
+
+  @Test
+  void restoreRejectsABrokenDeal() {
+    assertThrows(IllegalArgumentException.class, () -> TileBoard.restore(3, 2, new int[] {0, 0, 0, 2, 1, 2},
+        new long[1], new long[1], new int[2], 0, 0));
+  }
+}
@@ -0,0 +1,76 @@
+package tileflip;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class TimerWheelTest {
+  private static final long TICK = 1_000_000; // 1 ms
+
+  private static final class Counting extends TimerWheel.Timeout {
+    int expired;
+
+    @Override
+    protected void expired() {
+      expired++;
+    }
+  }
+
+  @Test
+  void aTimeoutExpiresOnceItsDelayPassed() {
+    TimerWheel wheel = new TimerWheel(TICK, 8, 0);
+    Counting timeout = new Counting();
+    wheel.schedule(timeout, 5 * TICK, 0);
+    assertTrue(timeout.isScheduled());
+    assertEquals(0, wheel.advance(4 * TICK));
+    assertEquals(0, timeout.expired);
+    assertEquals(1, wheel.advance(5 * TICK));
+    assertEquals(1, timeout.expired);
+    assertFalse(timeout.isScheduled());
+    assertEquals(0, wheel.advance(20 * TICK));
+    assertEquals(1, timeout.expired);
+  }
+
+  @Test
+  void aDelayLongerThanTheWheelWaitsForItsRound() {
+    TimerWheel wheel = new TimerWheel(TICK, 8, 0);
+    Counting late = new Counting();
+    Counting soon = new Counting();
+    wheel.schedule(late, 11 * TICK, 0); // the slot of tick 3, a round later
+    wheel.schedule(soon, 3 * TICK, 0);
+    assertEquals(1, wheel.advance(3 * TICK));
+    assertEquals(1, soon.expired);
+    assertEquals(0, late.expired);
+    assertEquals(0, wheel.advance(10 * TICK));
+    assertEquals(1, wheel.advance(11 * TICK));
+    assertEquals(1, late.expired);
+  }
+
+  @Test
+  void cancelledAndRescheduledTimeouts() {
+    TimerWheel wheel = new TimerWheel(TICK, 8, 0);
+    Counting cancelled = new Counting();
+    Counting moved = new Counting();
+    wheel.schedule(cancelled, 2 * TICK, 0);
+    wheel.schedule(moved, 2 * TICK, 0);
+    wheel.cancel(cancelled);
+    wheel.schedule(moved, 6 * TICK, TICK);
+    assertEquals(1, wheel.scheduled());
+    assertEquals(0, wheel.advance(6 * TICK));
+    assertEquals(1, wheel.advance(7 * TICK));
+    assertEquals(0, cancelled.expired);
+    assertEquals(1, moved.expired);
+    assertEquals(Long.MAX_VALUE, wheel.nanosUntilNextTick(7 * TICK));
+  }
+
+  @Test
+  void aTimeoutIsNeverDueInThePast() {
+    TimerWheel wheel = new TimerWheel(TICK, 8, 0);
+    wheel.advance(3 * TICK);
+    Counting timeout = new Counting();
+    wheel.schedule(timeout, 0, 3 * TICK);
+    assertEquals(1, wheel.advance(4 * TICK));
+  }
+}